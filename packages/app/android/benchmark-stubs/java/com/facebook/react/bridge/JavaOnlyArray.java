@@ -0,0 +1,140 @@
+package com.facebook.react.bridge;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Pure-JVM WritableArray, mirrors the React Native JavaOnlyArray. */
+public class JavaOnlyArray implements WritableArray {
+  private final List<Object> backingList = new ArrayList<>();
+
+  static ReadableType typeOf(Object value) {
+    if (value == null) {
+      return ReadableType.Null;
+    } else if (value instanceof Boolean) {
+      return ReadableType.Boolean;
+    } else if (value instanceof Number) {
+      return ReadableType.Number;
+    } else if (value instanceof String) {
+      return ReadableType.String;
+    } else if (value instanceof ReadableMap) {
+      return ReadableType.Map;
+    }
+    return ReadableType.Array;
+  }
+
+  static Object toJavaValue(Object value) {
+    if (value instanceof ReadableMap) {
+      return ((ReadableMap) value).toHashMap();
+    }
+    if (value instanceof ReadableArray) {
+      return ((ReadableArray) value).toArrayList();
+    }
+    return value;
+  }
+
+  @Override
+  public int size() {
+    return backingList.size();
+  }
+
+  @Override
+  public boolean isNull(int index) {
+    return backingList.get(index) == null;
+  }
+
+  @Override
+  public boolean getBoolean(int index) {
+    return (Boolean) backingList.get(index);
+  }
+
+  @Override
+  public double getDouble(int index) {
+    return ((Number) backingList.get(index)).doubleValue();
+  }
+
+  @Override
+  public int getInt(int index) {
+    return ((Number) backingList.get(index)).intValue();
+  }
+
+  @Override
+  public String getString(int index) {
+    return (String) backingList.get(index);
+  }
+
+  @Override
+  public ReadableArray getArray(int index) {
+    return (ReadableArray) backingList.get(index);
+  }
+
+  @Override
+  public ReadableMap getMap(int index) {
+    return (ReadableMap) backingList.get(index);
+  }
+
+  @Override
+  public ReadableType getType(int index) {
+    return typeOf(backingList.get(index));
+  }
+
+  @Override
+  public ArrayList<Object> toArrayList() {
+    ArrayList<Object> arrayList = new ArrayList<>(backingList.size());
+    for (Object value : backingList) {
+      arrayList.add(toJavaValue(value));
+    }
+    return arrayList;
+  }
+
+  @Override
+  public void pushNull() {
+    backingList.add(null);
+  }
+
+  @Override
+  public void pushBoolean(boolean value) {
+    backingList.add(value);
+  }
+
+  @Override
+  public void pushDouble(double value) {
+    backingList.add(value);
+  }
+
+  @Override
+  public void pushInt(int value) {
+    backingList.add(value);
+  }
+
+  @Override
+  public void pushString(String value) {
+    backingList.add(value);
+  }
+
+  @Override
+  public void pushArray(ReadableArray array) {
+    backingList.add(array);
+  }
+
+  @Override
+  public void pushMap(ReadableMap map) {
+    backingList.add(map);
+  }
+}
@@ -0,0 +1,138 @@
+package com.facebook.react.bridge;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Pure-JVM WritableMap, mirrors the React Native JavaOnlyMap. */
+public class JavaOnlyMap implements WritableMap {
+  private final Map<String, Object> backingMap = new LinkedHashMap<>();
+
+  @Override
+  public boolean hasKey(String name) {
+    return backingMap.containsKey(name);
+  }
+
+  @Override
+  public boolean isNull(String name) {
+    return backingMap.get(name) == null;
+  }
+
+  @Override
+  public boolean getBoolean(String name) {
+    return (Boolean) backingMap.get(name);
+  }
+
+  @Override
+  public double getDouble(String name) {
+    return ((Number) backingMap.get(name)).doubleValue();
+  }
+
+  @Override
+  public int getInt(String name) {
+    return ((Number) backingMap.get(name)).intValue();
+  }
+
+  @Override
+  public String getString(String name) {
+    return (String) backingMap.get(name);
+  }
+
+  @Override
+  public ReadableArray getArray(String name) {
+    return (ReadableArray) backingMap.get(name);
+  }
+
+  @Override
+  public ReadableMap getMap(String name) {
+    return (ReadableMap) backingMap.get(name);
+  }
+
+  @Override
+  public ReadableType getType(String name) {
+    return JavaOnlyArray.typeOf(backingMap.get(name));
+  }
+
+  @Override
+  public ReadableMapKeySetIterator keySetIterator() {
+    Iterator<String> iterator = backingMap.keySet().iterator();
+    return new ReadableMapKeySetIterator() {
+      @Override
+      public boolean hasNextKey() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public String nextKey() {
+        return iterator.next();
+      }
+    };
+  }
+
+  @Override
+  public HashMap<String, Object> toHashMap() {
+    HashMap<String, Object> hashMap = new HashMap<>();
+    for (Map.Entry<String, Object> entry : backingMap.entrySet()) {
+      hashMap.put(entry.getKey(), JavaOnlyArray.toJavaValue(entry.getValue()));
+    }
+    return hashMap;
+  }
+
+  @Override
+  public void putNull(String key) {
+    backingMap.put(key, null);
+  }
+
+  @Override
+  public void putBoolean(String key, boolean value) {
+    backingMap.put(key, value);
+  }
+
+  @Override
+  public void putDouble(String key, double value) {
+    backingMap.put(key, value);
+  }
+
+  @Override
+  public void putInt(String key, int value) {
+    backingMap.put(key, value);
+  }
+
+  @Override
+  public void putString(String key, String value) {
+    backingMap.put(key, value);
+  }
+
+  @Override
+  public void putArray(String key, ReadableArray value) {
+    backingMap.put(key, value);
+  }
+
+  @Override
+  public void putMap(String key, ReadableMap value) {
+    backingMap.put(key, value);
+  }
+
+  @Override
+  public void merge(ReadableMap source) {
+    backingMap.putAll(((JavaOnlyMap) source).backingMap);
+  }
+}
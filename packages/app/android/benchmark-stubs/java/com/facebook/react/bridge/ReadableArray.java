@@ -0,0 +1,47 @@
+package com.facebook.react.bridge;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.util.ArrayList;
+import javax.annotation.Nullable;
+
+/** Stand-in for the subset of the React Native ReadableArray used by the benchmarks. */
+public interface ReadableArray {
+  int size();
+
+  boolean isNull(int index);
+
+  boolean getBoolean(int index);
+
+  double getDouble(int index);
+
+  int getInt(int index);
+
+  @Nullable
+  String getString(int index);
+
+  @Nullable
+  ReadableArray getArray(int index);
+
+  @Nullable
+  ReadableMap getMap(int index);
+
+  ReadableType getType(int index);
+
+  ArrayList<Object> toArrayList();
+}
@@ -0,0 +1,39 @@
+package com.facebook.react.bridge;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import javax.annotation.Nullable;
+
+/** Stand-in for the subset of the React Native WritableMap used by the benchmarks. */
+public interface WritableMap extends ReadableMap {
+  void putNull(String key);
+
+  void putBoolean(String key, boolean value);
+
+  void putDouble(String key, double value);
+
+  void putInt(String key, int value);
+
+  void putString(String key, @Nullable String value);
+
+  void putArray(String key, @Nullable ReadableArray value);
+
+  void putMap(String key, @Nullable ReadableMap value);
+
+  void merge(ReadableMap source);
+}
@@ -0,0 +1,129 @@
+package io.invertase.firebase.common;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import android.os.Handler;
+import android.os.Looper;
+import com.facebook.react.bridge.ReadableMap;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Collects the values a native listener passes on into batches, so a burst of events (e.g. the
+ * child_added events of a list being loaded) is serialized and sent to JS in a few calls. Unlike
+ * ReactNativeFirebaseEventThrottle, no value is dropped.
+ *
+ * <ul>
+ *   <li>batchSize: delivers a batch as soon as it holds batchSize values.
+ *   <li>batchMs: delivers a batch at the latest batchMs after its first value was offered,
+ *       DEFAULT_BATCH_MS if only batchSize is set.
+ * </ul>
+ */
+public class ReactNativeFirebaseEventBatcher<T> {
+  public static final long DEFAULT_BATCH_MS = 50;
+
+  private static final Handler handler = new Handler(Looper.getMainLooper());
+
+  private final int batchSize;
+  private final long batchMs;
+  private final Sink<T> sink;
+  private final Runnable flushRunnable = this::flush;
+
+  private List<T> pending = new ArrayList<>();
+  private boolean cancelled = false;
+
+  public ReactNativeFirebaseEventBatcher(int batchSize, long batchMs, Sink<T> sink) {
+    this.batchSize = batchSize > 0 ? batchSize : Integer.MAX_VALUE;
+    this.batchMs = batchMs > 0 ? batchMs : DEFAULT_BATCH_MS;
+    this.sink = sink;
+  }
+
+  /**
+   * Creates a batcher from the "batchSize" and "batchMs" keys of the given listener options, or
+   * returns null if neither is set and values should be passed on directly.
+   */
+  @Nullable
+  public static <T> ReactNativeFirebaseEventBatcher<T> fromOptions(
+      @Nullable ReadableMap options, Sink<T> sink) {
+    int batchSize = (int) getNumber(options, "batchSize");
+    long batchMs = (long) getNumber(options, "batchMs");
+
+    if (batchSize <= 0 && batchMs <= 0) {
+      return null;
+    }
+
+    return new ReactNativeFirebaseEventBatcher<>(batchSize, batchMs, sink);
+  }
+
+  /** Adds a value to the current batch, delivering the batch if it is full. */
+  public void offer(T value) {
+    boolean deliverNow;
+
+    synchronized (this) {
+      if (cancelled) {
+        return;
+      }
+
+      pending.add(value);
+      deliverNow = pending.size() >= batchSize;
+      if (pending.size() == 1 && !deliverNow) {
+        handler.postDelayed(flushRunnable, batchMs);
+      }
+    }
+
+    if (deliverNow) {
+      flush();
+    }
+  }
+
+  /** Drops the values waiting to be delivered and ignores values offered from now on. */
+  public void cancel() {
+    synchronized (this) {
+      cancelled = true;
+      pending = new ArrayList<>();
+    }
+    handler.removeCallbacks(flushRunnable);
+  }
+
+  private void flush() {
+    List<T> batch;
+
+    synchronized (this) {
+      handler.removeCallbacks(flushRunnable);
+      if (pending.isEmpty() || cancelled) {
+        return;
+      }
+      batch = pending;
+      pending = new ArrayList<>();
+    }
+
+    sink.send(batch);
+  }
+
+  private static double getNumber(@Nullable ReadableMap options, String key) {
+    if (options != null && options.hasKey(key) && !options.isNull(key)) {
+      return options.getDouble(key);
+    }
+    return 0;
+  }
+
+  public interface Sink<T> {
+    void send(List<T> batch);
+  }
+}
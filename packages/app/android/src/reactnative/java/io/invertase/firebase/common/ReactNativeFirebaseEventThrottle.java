@@ -0,0 +1,150 @@
+package io.invertase.firebase.common;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import com.facebook.react.bridge.ReadableMap;
+import javax.annotation.Nullable;
+
+/**
+ * Rate limits the values a native listener passes on (e.g. to be serialized and sent to JS),
+ * dropping intermediate values. The latest value offered is always delivered eventually, so the
+ * trailing edge is never lost.
+ *
+ * <ul>
+ *   <li>throttleMs: delivers at most one value per throttleMs, the first immediately.
+ *   <li>debounceMs: delivers a value once none has been offered for debounceMs. With throttleMs
+ *       also set, a value is delivered at the latest throttleMs after it started waiting.
+ * </ul>
+ */
+public class ReactNativeFirebaseEventThrottle<T> {
+  private static final Handler handler = new Handler(Looper.getMainLooper());
+
+  private final long throttleMs;
+  private final long debounceMs;
+  private final Sink<T> sink;
+  private final Runnable flushRunnable = this::flush;
+
+  private T pending;
+  private boolean hasPending = false;
+  private boolean cancelled = false;
+  private long pendingSince = 0;
+  private long lastDeliveredAt = Long.MIN_VALUE / 2;
+
+  public ReactNativeFirebaseEventThrottle(long throttleMs, long debounceMs, Sink<T> sink) {
+    this.throttleMs = throttleMs;
+    this.debounceMs = debounceMs;
+    this.sink = sink;
+  }
+
+  /**
+   * Creates a throttle from the "throttleMs" and "debounceMs" keys of the given listener options,
+   * or returns null if neither is set and values should be passed on directly.
+   */
+  @Nullable
+  public static <T> ReactNativeFirebaseEventThrottle<T> fromOptions(
+      ReadableMap options, Sink<T> sink) {
+    long throttleMs = getMillis(options, "throttleMs");
+    long debounceMs = getMillis(options, "debounceMs");
+
+    if (throttleMs <= 0 && debounceMs <= 0) {
+      return null;
+    }
+
+    return new ReactNativeFirebaseEventThrottle<>(throttleMs, debounceMs, sink);
+  }
+
+  /** Offers a value, replacing any value still waiting to be delivered. */
+  public void offer(T value) {
+    boolean deliverNow;
+
+    synchronized (this) {
+      if (cancelled) {
+        return;
+      }
+
+      long now = SystemClock.uptimeMillis();
+      if (!hasPending) {
+        pendingSince = now;
+      }
+      pending = value;
+      hasPending = true;
+
+      long delay = getDelay(now);
+      handler.removeCallbacks(flushRunnable);
+      deliverNow = delay <= 0;
+      if (!deliverNow) {
+        handler.postDelayed(flushRunnable, delay);
+      }
+    }
+
+    if (deliverNow) {
+      flush();
+    }
+  }
+
+  /** Drops any value waiting to be delivered and ignores values offered from now on. */
+  public void cancel() {
+    synchronized (this) {
+      cancelled = true;
+      pending = null;
+      hasPending = false;
+    }
+    handler.removeCallbacks(flushRunnable);
+  }
+
+  private long getDelay(long now) {
+    if (debounceMs > 0) {
+      if (throttleMs > 0) {
+        return Math.min(debounceMs, pendingSince + throttleMs - now);
+      }
+      return debounceMs;
+    }
+
+    return lastDeliveredAt + throttleMs - now;
+  }
+
+  private void flush() {
+    T value;
+
+    synchronized (this) {
+      if (!hasPending || cancelled) {
+        return;
+      }
+      value = pending;
+      pending = null;
+      hasPending = false;
+      lastDeliveredAt = SystemClock.uptimeMillis();
+    }
+
+    sink.send(value);
+  }
+
+  private static long getMillis(ReadableMap options, String key) {
+    if (options != null && options.hasKey(key) && !options.isNull(key)) {
+      return (long) options.getDouble(key);
+    }
+    return 0;
+  }
+
+  public interface Sink<T> {
+    void send(T value);
+  }
+}
@@ -0,0 +1,188 @@
+package io.invertase.firebase.common;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import android.util.Log;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * A thread safe registry of native listeners, keyed by the id JS uses for them. Listeners are
+ * registered, fired and removed from different threads (native modules thread, Firebase callback
+ * threads and executors), so every operation is safe to call concurrently.
+ *
+ * <p>Each listener records the React context that registered it, its age, the number of events it
+ * has sent and the number of items (documents, children) those events carried. A listener still
+ * registered when its React context is destroyed (e.g. by a reload) has leaked: JS never removed
+ * it, and it would keep consuming CPU and bandwidth for a context that will never receive its
+ * events. Modules report these with reportLeaks before removing them with removeAllOwnedBy.
+ */
+public class ReactNativeFirebaseListenerRegistry<K, T> {
+  private static final String TAG = "RNFBListeners";
+
+  private final String type;
+  private final ConcurrentHashMap<K, Entry<T>> entries = new ConcurrentHashMap<>();
+
+  /**
+   * @param type a short name for the listeners held, e.g. "query", reported with their stats
+   */
+  public ReactNativeFirebaseListenerRegistry(String type) {
+    this.type = type;
+  }
+
+  /**
+   * Registers a listener owned by the given React context, unless a listener is already registered
+   * for the key.
+   *
+   * @return true if the listener was registered
+   */
+  public boolean putIfAbsent(K key, T listener, ReactContext owner) {
+    return entries.putIfAbsent(key, new Entry<>(listener, owner)) == null;
+  }
+
+  public boolean contains(K key) {
+    return entries.containsKey(key);
+  }
+
+  @Nullable
+  public T get(K key) {
+    Entry<T> entry = entries.get(key);
+    return entry == null ? null : entry.listener;
+  }
+
+  /**
+   * Unregisters a listener.
+   *
+   * @return the listener removed, or null if none was registered for the key
+   */
+  @Nullable
+  public T remove(K key) {
+    Entry<T> entry = entries.remove(key);
+    return entry == null ? null : entry.listener;
+  }
+
+  /**
+   * Unregisters every listener owned by the given React context, leaving listeners registered by
+   * any newer context in place.
+   *
+   * @return the listeners removed
+   */
+  public List<T> removeAllOwnedBy(ReactContext owner) {
+    List<T> removed = new ArrayList<>();
+
+    for (Map.Entry<K, Entry<T>> entry : entries.entrySet()) {
+      ReactContext entryOwner = entry.getValue().owner.get();
+      if ((entryOwner == null || entryOwner == owner)
+          && entries.remove(entry.getKey(), entry.getValue())) {
+        removed.add(entry.getValue().listener);
+      }
+    }
+
+    return removed;
+  }
+
+  /** Records an event sent to JS by a listener, carrying the given number of items. */
+  public void recordEvent(K key, long items) {
+    Entry<T> entry = entries.get(key);
+    if (entry != null) {
+      entry.events.incrementAndGet();
+      entry.items.addAndGet(items);
+    }
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /** Appends a stats map for every registered listener to the given array. */
+  public void addStats(WritableArray stats) {
+    long now = System.currentTimeMillis();
+
+    for (Map.Entry<K, Entry<T>> entry : entries.entrySet()) {
+      Entry<T> value = entry.getValue();
+      WritableMap listenerStats = Arguments.createMap();
+      listenerStats.putString("type", type);
+      listenerStats.putString("id", String.valueOf(entry.getKey()));
+      listenerStats.putDouble("ageMs", now - value.createdAt);
+      listenerStats.putDouble("events", value.events.get());
+      listenerStats.putDouble("items", value.items.get());
+      listenerStats.putBoolean("leaked", value.isLeaked());
+      stats.pushMap(listenerStats);
+    }
+  }
+
+  /**
+   * Logs a warning for every listener still registered by the given React context, or by one
+   * already garbage collected. Called while the context is destroyed, before removeAllOwnedBy.
+   *
+   * @return the number of leaked listeners
+   */
+  public int reportLeaks(ReactContext owner) {
+    long now = System.currentTimeMillis();
+    int leaked = 0;
+
+    for (Map.Entry<K, Entry<T>> entry : entries.entrySet()) {
+      Entry<T> value = entry.getValue();
+      ReactContext entryOwner = value.owner.get();
+      if (entryOwner == null || entryOwner == owner) {
+        leaked++;
+        Log.w(
+            TAG,
+            type
+                + " listener "
+                + entry.getKey()
+                + " was never removed by JS before its React context was destroyed: registered "
+                + (now - value.createdAt)
+                + "ms ago, sent "
+                + value.events.get()
+                + " events carrying "
+                + value.items.get()
+                + " items");
+      }
+    }
+
+    return leaked;
+  }
+
+  private static class Entry<T> {
+    final T listener;
+    final WeakReference<ReactContext> owner;
+    final long createdAt = System.currentTimeMillis();
+    final AtomicLong events = new AtomicLong();
+    final AtomicLong items = new AtomicLong();
+
+    Entry(T listener, ReactContext owner) {
+      this.listener = listener;
+      this.owner = new WeakReference<>(owner);
+    }
+
+    boolean isLeaked() {
+      ReactContext reactContext = owner.get();
+      return reactContext == null || !reactContext.hasActiveCatalystInstance();
+    }
+  }
+}
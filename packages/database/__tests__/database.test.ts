@@ -45,4 +45,89 @@ describe('Database', function () {
       expect(bar).toEqual(['10.0.2.2', 9000]);
     });
   });
+
+  describe('setTransactionTimeout()', function () {
+    it('throws if timeoutMs is not a positive number', function () {
+      expect(() => database().setTransactionTimeout(0)).toThrow(
+        "'timeoutMs' must be a number greater than 0",
+      );
+    });
+  });
+
+  describe('ref().set()', function () {
+    it('throws if coalesceMs is negative', function () {
+      expect(() => database().ref('foo').set(1, undefined, { coalesceMs: -1 })).toThrow(
+        "'options.coalesceMs' must be a number greater than or equal to 0",
+      );
+    });
+  });
+
+  describe('ref().update()', function () {
+    it('throws if maxChunkBytes is not a positive number', function () {
+      expect(() =>
+        database().ref('foo').update({ bar: 1 }, undefined, { atomic: false, maxChunkBytes: 0 }),
+      ).toThrow("'options.maxChunkBytes' must be a number greater than 0");
+    });
+  });
+
+  describe('ref().transactionOp()', function () {
+    it('throws if the op type is unknown', function () {
+      expect(() =>
+        // @ts-ignore because we pass an invalid argument...
+        database().ref('foo').transactionOp({ type: 'multiply' }),
+      ).toThrow("'op.type' must be one of");
+    });
+
+    it('throws if maxLength is not a positive integer', function () {
+      expect(() =>
+        database().ref('foo').transactionOp({ type: 'appendToList', value: 1, maxLength: 0 }),
+      ).toThrow("'op.maxLength' must be an integer greater than 0");
+    });
+
+    it('throws if expected is not a primitive', function () {
+      expect(() =>
+        database()
+          .ref('foo')
+          // @ts-ignore because we pass an invalid argument...
+          .transactionOp({ type: 'compareAndSet', expected: { a: 1 }, value: 1 }),
+      ).toThrow("'op.expected' must be a string, number, boolean or null value");
+    });
+  });
+
+  describe('ref().on()', function () {
+    it('throws if throttleMs is not a number', function () {
+      expect(() =>
+        // @ts-ignore because we pass an invalid argument...
+        database().ref('foo').on('value', () => {}, undefined, undefined, { throttleMs: 'foo' }),
+      ).toThrow("'options.throttleMs' must be a number greater than or equal to 0");
+    });
+
+    it('throws if debounceMs is used with a child event', function () {
+      expect(() =>
+        database().ref('foo').on('child_added', () => {}, undefined, undefined, { debounceMs: 100 }),
+      ).toThrow("are only supported for 'value' events");
+    });
+
+    it('throws if batchSize is used with a value event', function () {
+      expect(() =>
+        database().ref('foo').on('value', () => {}, undefined, undefined, { batchSize: 100 }),
+      ).toThrow('are only supported for child events');
+    });
+
+    it('throws if shallow is not a boolean', function () {
+      expect(() =>
+        // @ts-ignore because we pass an invalid argument...
+        database().ref('foo').on('value', () => {}, undefined, undefined, { shallow: 'yes' }),
+      ).toThrow("'options.shallow' must be a boolean");
+    });
+  });
+
+  describe('ref().once()', function () {
+    it('throws if omitChildKeys is not a boolean', function () {
+      expect(() =>
+        // @ts-ignore because we pass an invalid argument...
+        database().ref('foo').once('value', undefined, undefined, undefined, { omitChildKeys: 1 }),
+      ).toThrow("'options.omitChildKeys' must be a boolean");
+    });
+  });
 });
@@ -0,0 +1,238 @@
+package io.invertase.firebase.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.MutableData;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import javax.annotation.Nullable;
+
+/**
+ * Checks that castValue(DataSnapshot) and castValue(MutableData) convert random trees to the same
+ * value, and that both match expectedValue, a plain implementation of the rules JS relies on.
+ *
+ * <p>Trees mix sequential, sparse, unordered, negative and non numeric keys, nested up to
+ * MAX_DEPTH, with supported and unsupported leaf types. Exits with status 1 on the first
+ * mismatch, printing the seed and tree so it can be reproduced.
+ *
+ * <p>Run from the benchmark directory: gradle fuzz, or gradle fuzz -PfuzzArgs="iterations seed"
+ */
+public final class DatabaseValueEquivalenceFuzz {
+  private static final int DEFAULT_ITERATIONS = 20000;
+  private static final int MAX_DEPTH = 4;
+  private static final int MAX_CHILDREN = 8;
+
+  private DatabaseValueEquivalenceFuzz() {}
+
+  public static void main(String[] args) {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+    Random random = new Random(seed);
+
+    for (int i = 0; i < iterations; i++) {
+      Object tree = node(random, 0);
+      Object expected = expectedValue(tree);
+      Object fromSnapshot =
+          toJava(ReactNativeFirebaseDatabaseCommon.castValue(new DataSnapshot("fuzz", tree, null)));
+      Object fromMutableData =
+          toJava(ReactNativeFirebaseDatabaseCommon.castValue(new MutableData("fuzz", tree)));
+
+      if (!equal(expected, fromSnapshot) || !equal(expected, fromMutableData)) {
+        System.err.println("Mismatch at iteration " + i + " of seed " + seed);
+        System.err.println("tree:         " + tree);
+        System.err.println("expected:     " + expected);
+        System.err.println("DataSnapshot: " + fromSnapshot);
+        System.err.println("MutableData:  " + fromMutableData);
+        System.exit(1);
+      }
+    }
+
+    System.out.println(iterations + " trees converted identically, seed " + seed);
+  }
+
+  @Nullable
+  private static Object node(Random random, int depth) {
+    if (depth == MAX_DEPTH || random.nextInt(3) == 0) {
+      return leaf(random);
+    }
+
+    int childCount = random.nextInt(MAX_CHILDREN + 1);
+    List<String> keys = keys(random, childCount);
+    Map<String, Object> children = new LinkedHashMap<>();
+    for (String key : keys) {
+      children.put(key, node(random, depth + 1));
+    }
+    return children;
+  }
+
+  private static List<String> keys(Random random, int count) {
+    List<String> keys = new ArrayList<>(count);
+    long index = 0;
+
+    switch (random.nextInt(6)) {
+      case 0:
+        // an array without gaps
+        for (int i = 0; i < count; i++) {
+          keys.add(Long.toString(i));
+        }
+        break;
+      case 1:
+        // increasing, with gaps that may pass the 2 * count - 1 limit
+        for (int i = 0; i < count; i++) {
+          index += random.nextInt(3);
+          keys.add(Long.toString(index++));
+        }
+        break;
+      case 2:
+        // integers in any order
+        for (int i = 0; i < count; i++) {
+          keys.add(Long.toString(random.nextInt(count * 2 + 1)));
+        }
+        Collections.shuffle(keys, random);
+        break;
+      case 3:
+        // integer-like keys Long.parseLong reads differently from their text
+        String[] oddKeys = {"-0", "+1", "02", "-1", "1.0", " 3", "9223372036854775808", ""};
+        for (int i = 0; i < count; i++) {
+          keys.add(random.nextBoolean() ? Long.toString(i) : oddKeys[random.nextInt(8)]);
+        }
+        break;
+      case 4:
+        // push ids
+        for (int i = 0; i < count; i++) {
+          keys.add(String.format("-N%09dAbCd", i));
+        }
+        break;
+      default:
+        // integers followed by names, in the order the database sorts them
+        for (int i = 0; i < count; i++) {
+          keys.add(random.nextBoolean() ? Long.toString(i) : "name" + i);
+        }
+        break;
+    }
+
+    // duplicate keys can't exist in a node, the map keeps the last one
+    return keys;
+  }
+
+  @Nullable
+  private static Object leaf(Random random) {
+    switch (random.nextInt(7)) {
+      case 0:
+        return "value-" + random.nextInt(100);
+      case 1:
+        return random.nextBoolean() ? "" : "1";
+      case 2:
+        return (long) random.nextInt();
+      case 3:
+        return random.nextDouble() * 1000;
+      case 4:
+        return random.nextBoolean();
+      case 5:
+        // not a type the database returns, converted to null
+        return random.nextInt();
+      default:
+        return new LinkedHashMap<String, Object>();
+    }
+  }
+
+  /**
+   * Children make an array if every key parses as a long, each greater than the previous one and at
+   * most 2 * childCount - 1. Array gaps are null, maps leave out null values, numbers are doubles,
+   * and unsupported leaves and empty nodes are null.
+   */
+  @Nullable
+  private static Object expectedValue(@Nullable Object node) {
+    if (!(node instanceof Map)) {
+      if (node instanceof Long || node instanceof Double) {
+        return ((Number) node).doubleValue();
+      }
+      return node instanceof String || node instanceof Boolean ? node : null;
+    }
+
+    Map<?, ?> children = (Map<?, ?>) node;
+    if (children.isEmpty()) {
+      return null;
+    }
+
+    long maxAllowedKey = children.size() * 2L - 1;
+    long lastIndex = -1;
+    boolean isArray = true;
+    for (Object key : children.keySet()) {
+      long index;
+      try {
+        index = Long.parseLong((String) key);
+      } catch (NumberFormatException e) {
+        isArray = false;
+        break;
+      }
+      if (index <= lastIndex || index > maxAllowedKey) {
+        isArray = false;
+        break;
+      }
+      lastIndex = index;
+    }
+
+    if (isArray) {
+      List<Object> array = new ArrayList<>();
+      for (Map.Entry<?, ?> child : children.entrySet()) {
+        long index = Long.parseLong((String) child.getKey());
+        while (array.size() < index) {
+          array.add(null);
+        }
+        array.add(expectedValue(child.getValue()));
+      }
+      return array;
+    }
+
+    Map<String, Object> map = new LinkedHashMap<>();
+    for (Map.Entry<?, ?> child : children.entrySet()) {
+      Object value = expectedValue(child.getValue());
+      if (value != null) {
+        map.put((String) child.getKey(), value);
+      }
+    }
+    return map;
+  }
+
+  /** Converts a castValue result the way the bridge does, a leaf at the root is returned as is. */
+  @Nullable
+  private static Object toJava(@Nullable Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    if (value instanceof ReadableMap) {
+      return ((ReadableMap) value).toHashMap();
+    }
+    if (value instanceof ReadableArray) {
+      return ((ReadableArray) value).toArrayList();
+    }
+    return value;
+  }
+
+  private static boolean equal(@Nullable Object expected, @Nullable Object actual) {
+    return expected == null ? actual == null : expected.equals(actual);
+  }
+}
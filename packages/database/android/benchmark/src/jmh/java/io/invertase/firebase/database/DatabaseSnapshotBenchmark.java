@@ -0,0 +1,91 @@
+package io.invertase.firebase.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.facebook.react.bridge.WritableMap;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.MutableData;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of the DataSnapshots sent to JS by listeners and once(), and of the MutableData
+ * sent by transaction updates. Run with the gc profiler (the default for the jmh task) to report
+ * gc.alloc.rate.norm bytes allocated per op.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DatabaseSnapshotBenchmark {
+  @Param({"leaves", "objects", "array"})
+  public String shape;
+
+  @Param({"100", "10000"})
+  public int childCount;
+
+  private DataSnapshot dataSnapshot;
+  private MutableData mutableData;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    dataSnapshot = DatabaseSnapshotFixtures.dataSnapshot(shape, childCount);
+    mutableData = DatabaseSnapshotFixtures.mutableData(shape, childCount);
+  }
+
+  /** snapshotToMap, which covers the child keys and value conversion. */
+  @Benchmark
+  public WritableMap snapshotToMap() {
+    return ReactNativeFirebaseDatabaseCommon.snapshotToMap(dataSnapshot);
+  }
+
+  /** snapshotToMap with the omitChildKeys option. */
+  @Benchmark
+  public WritableMap snapshotToMapOmitChildKeys() {
+    return ReactNativeFirebaseDatabaseCommon.snapshotToMap(
+        dataSnapshot, ReactNativeFirebaseDatabaseCommon.SNAPSHOT_OMIT_CHILD_KEYS);
+  }
+
+  /** snapshotToMap with the omitChildKeys and shallow options. */
+  @Benchmark
+  public WritableMap snapshotToMapShallow() {
+    return ReactNativeFirebaseDatabaseCommon.snapshotToMap(
+        dataSnapshot,
+        ReactNativeFirebaseDatabaseCommon.SNAPSHOT_OMIT_CHILD_KEYS
+            | ReactNativeFirebaseDatabaseCommon.SNAPSHOT_SHALLOW);
+  }
+
+  /** castValue of the MutableData a transaction update sends to JS. */
+  @Benchmark
+  public Object castMutableData() {
+    return ReactNativeFirebaseDatabaseCommon.castValue(mutableData);
+  }
+}
@@ -0,0 +1,137 @@
+package io.invertase.firebase.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.MutableData;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/** Deterministic snapshot fixtures for the serialization benchmarks. */
+final class DatabaseSnapshotFixtures {
+  private DatabaseSnapshotFixtures() {}
+
+  static DataSnapshot dataSnapshot(String shape, int childCount) {
+    return new DataSnapshot("benchmark", node(shape, childCount), null);
+  }
+
+  static MutableData mutableData(String shape, int childCount) {
+    return new MutableData("benchmark", node(shape, childCount));
+  }
+
+  /**
+   * Returns the props update() receives from JS for a fan-out of pathCount "messages/..." paths,
+   * holding the children of node(shape, pathCount).
+   */
+  static ReadableMap updateProps(String shape, int pathCount) {
+    JavaOnlyMap values = new JavaOnlyMap();
+    for (Map.Entry<String, Object> child : node(shape, pathCount).entrySet()) {
+      putValue(values, "messages/" + child.getKey(), child.getValue());
+    }
+
+    JavaOnlyMap props = new JavaOnlyMap();
+    props.putMap("values", values);
+    return props;
+  }
+
+  /**
+   * Returns a node with childCount children, in the order the database would return them.
+   *
+   * <ul>
+   *   <li>leaves: push id keys holding strings, numbers and booleans in rotation
+   *   <li>objects: push id keys holding small objects, e.g. chat messages
+   *   <li>array: integer keys 0..childCount-1 holding numbers, sent to JS as an array
+   * </ul>
+   */
+  static Map<String, Object> node(String shape, int childCount) {
+    Random random = new Random(childCount);
+    Map<String, Object> children = new LinkedHashMap<>();
+
+    for (int i = 0; i < childCount; i++) {
+      switch (shape) {
+        case "leaves":
+          children.put(pushId(i), leaf(random, i));
+          break;
+        case "objects":
+          Map<String, Object> message = new LinkedHashMap<>();
+          message.put("author", "user-" + random.nextInt(100));
+          message.put("sentAt", 1700000000000L + i);
+          message.put("read", random.nextBoolean());
+          message.put("text", "message " + random.nextInt(1000000));
+          children.put(pushId(i), message);
+          break;
+        case "array":
+          children.put(Integer.toString(i), random.nextDouble());
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown fixture shape: " + shape);
+      }
+    }
+
+    return children;
+  }
+
+  private static Object leaf(Random random, int i) {
+    switch (i % 3) {
+      case 0:
+        return "value-" + random.nextInt(1000000);
+      case 1:
+        return (long) random.nextInt();
+      default:
+        return random.nextBoolean();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void putValue(JavaOnlyMap map, String key, Object value) {
+    if (value instanceof Map) {
+      JavaOnlyMap child = new JavaOnlyMap();
+      for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+        putValue(child, entry.getKey(), entry.getValue());
+      }
+      map.putMap(key, child);
+    } else if (value instanceof List) {
+      JavaOnlyArray child = new JavaOnlyArray();
+      for (Object item : (List<Object>) value) {
+        if (item instanceof Number) {
+          child.pushDouble(((Number) item).doubleValue());
+        } else {
+          child.pushString(String.valueOf(item));
+        }
+      }
+      map.putArray(key, child);
+    } else if (value instanceof Number) {
+      // numbers arrive from JS as doubles
+      map.putDouble(key, ((Number) value).doubleValue());
+    } else if (value instanceof Boolean) {
+      map.putBoolean(key, (Boolean) value);
+    } else {
+      map.putString(key, (String) value);
+    }
+  }
+
+  /** A sortable, non numeric key like the ones push() generates. */
+  private static String pushId(int i) {
+    return String.format("-N%09dAbCdEfGhIj", i);
+  }
+}
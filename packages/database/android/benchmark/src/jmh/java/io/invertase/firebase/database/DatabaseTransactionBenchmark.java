@@ -0,0 +1,96 @@
+package io.invertase.firebase.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Latency of the handshake between a transaction attempt on the database thread and the JS reply
+ * with its updates, excluding the bridge and the update function itself. The benchmark thread plays
+ * the database thread and a single thread executor plays the JS thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DatabaseTransactionBenchmark {
+  private static final long TIMEOUT_MS = 5000;
+  private static final long REPLY_DELAY_TOKENS = 5000;
+
+  private ExecutorService jsThread;
+  private WritableMap updates;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    jsThread = Executors.newSingleThreadExecutor();
+    updates = Arguments.createMap();
+    updates.putDouble("value", 1);
+    updates.putBoolean("abort", false);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    jsThread.shutdownNow();
+  }
+
+  /** An attempt whose updates JS sends while the database thread is already waiting. */
+  @Benchmark
+  public Object replyAfterAwait() throws InterruptedException {
+    ReactNativeFirebaseDatabaseTransactionHandler handler = newHandler();
+    jsThread.execute(
+        () -> {
+          // give the database thread time to start waiting, like the update function would
+          Blackhole.consumeCPU(REPLY_DELAY_TOKENS);
+          handler.signalUpdateReceived(updates);
+        });
+    handler.await(TIMEOUT_MS);
+    return handler.value;
+  }
+
+  /** An attempt whose updates JS sends before the database thread starts waiting. */
+  @Benchmark
+  public Object replyBeforeAwait() throws InterruptedException {
+    ReactNativeFirebaseDatabaseTransactionHandler handler = newHandler();
+    handler.signalUpdateReceived(updates);
+    handler.await(TIMEOUT_MS);
+    return handler.value;
+  }
+
+  private static ReactNativeFirebaseDatabaseTransactionHandler newHandler() {
+    return new ReactNativeFirebaseDatabaseTransactionHandler(0, "[DEFAULT]", "");
+  }
+}
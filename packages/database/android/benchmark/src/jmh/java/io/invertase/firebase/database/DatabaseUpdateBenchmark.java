@@ -0,0 +1,82 @@
+package io.invertase.firebase.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import static io.invertase.firebase.common.RCTConvertFirebase.toHashMap;
+
+import com.facebook.react.bridge.ReadableMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Conversion of the fan-out values sent by update() into the maps passed to updateChildren. The
+ * stand-in ReadableMap already holds Java values, so this excludes reading them over JNI.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DatabaseUpdateBenchmark {
+  @Param({"leaves", "objects"})
+  public String shape;
+
+  @Param({"100", "10000"})
+  public int pathCount;
+
+  private ReadableMap props;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    props = DatabaseSnapshotFixtures.updateProps(shape, pathCount);
+  }
+
+  /** The generic conversion update() used before the parser. */
+  @Benchmark
+  public Object toHashMapValues() {
+    return toHashMap(props).get("values");
+  }
+
+  /** The parser, for an atomic update. */
+  @Benchmark
+  public Object parse() {
+    return ReactNativeFirebaseDatabaseUpdateParser.parse(props.getMap("values"));
+  }
+
+  /** The parser, for a non-atomic update in chunks of the default size. */
+  @Benchmark
+  public void parseChunks(Blackhole blackhole) {
+    ReactNativeFirebaseDatabaseUpdateParser.parseChunks(
+        props.getMap("values"),
+        ReactNativeFirebaseDatabaseUpdateParser.DEFAULT_MAX_CHUNK_BYTES,
+        blackhole::consume);
+  }
+}
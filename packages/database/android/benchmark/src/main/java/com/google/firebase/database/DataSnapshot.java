@@ -0,0 +1,108 @@
+package com.google.firebase.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Stand-in for the Realtime Database DataSnapshot, backed by an in-memory tree where a node is
+ * either a leaf value or a Map of children in query order. Like the real snapshot, every
+ * getChildren() iteration creates a snapshot per child and getValue() on a node with children
+ * builds a new Map.
+ */
+public class DataSnapshot {
+  @Nullable private final String key;
+  @Nullable private final Object node;
+  @Nullable private final Object priority;
+
+  public DataSnapshot(@Nullable String key, @Nullable Object node, @Nullable Object priority) {
+    this.key = key;
+    this.node = node;
+    this.priority = priority;
+  }
+
+  @Nullable
+  public String getKey() {
+    return key;
+  }
+
+  public boolean exists() {
+    return node != null;
+  }
+
+  public boolean hasChildren() {
+    return node instanceof Map && !((Map<?, ?>) node).isEmpty();
+  }
+
+  public long getChildrenCount() {
+    return node instanceof Map ? ((Map<?, ?>) node).size() : 0;
+  }
+
+  public Iterable<DataSnapshot> getChildren() {
+    if (!(node instanceof Map)) {
+      return new ArrayList<>();
+    }
+
+    @SuppressWarnings("unchecked")
+    Map<String, Object> children = (Map<String, Object>) node;
+    return () ->
+        new Iterator<DataSnapshot>() {
+          private final Iterator<Map.Entry<String, Object>> entries =
+              children.entrySet().iterator();
+
+          @Override
+          public boolean hasNext() {
+            return entries.hasNext();
+          }
+
+          @Override
+          public DataSnapshot next() {
+            Map.Entry<String, Object> entry = entries.next();
+            return new DataSnapshot(entry.getKey(), entry.getValue(), null);
+          }
+        };
+  }
+
+  @Nullable
+  public Object getValue() {
+    return toValue(node);
+  }
+
+  @Nullable
+  public Object getPriority() {
+    return priority;
+  }
+
+  @Nullable
+  static Object toValue(@Nullable Object node) {
+    if (!(node instanceof Map)) {
+      return node;
+    }
+
+    Map<?, ?> children = (Map<?, ?>) node;
+    Map<String, Object> value = new HashMap<>();
+    for (Map.Entry<?, ?> entry : children.entrySet()) {
+      value.put((String) entry.getKey(), toValue(entry.getValue()));
+    }
+    return value;
+  }
+}
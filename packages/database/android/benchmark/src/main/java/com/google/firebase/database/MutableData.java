@@ -0,0 +1,62 @@
+package com.google.firebase.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/** Stand-in for the Realtime Database MutableData, backed by the same tree as DataSnapshot. */
+public class MutableData {
+  @Nullable private final String key;
+  @Nullable private final Object node;
+
+  public MutableData(@Nullable String key, @Nullable Object node) {
+    this.key = key;
+    this.node = node;
+  }
+
+  @Nullable
+  public String getKey() {
+    return key;
+  }
+
+  public boolean hasChildren() {
+    return node instanceof Map && !((Map<?, ?>) node).isEmpty();
+  }
+
+  public long getChildrenCount() {
+    return node instanceof Map ? ((Map<?, ?>) node).size() : 0;
+  }
+
+  public Iterable<MutableData> getChildren() {
+    List<MutableData> children = new ArrayList<>();
+    if (node instanceof Map) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) node).entrySet()) {
+        children.add(new MutableData((String) entry.getKey(), entry.getValue()));
+      }
+    }
+    return children;
+  }
+
+  @Nullable
+  public Object getValue() {
+    return DataSnapshot.toValue(node);
+  }
+}
@@ -0,0 +1,34 @@
+package io.invertase.firebase.common;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/** Stand-in for the subset of RCTConvertFirebase used by the transaction handler. */
+public class RCTConvertFirebase {
+  public static Map<String, Object> toHashMap(ReadableMap readableMap) {
+    return readableMap.toHashMap();
+  }
+
+  public static void mapPutValue(String key, @Nullable Object value, WritableMap map) {
+    SharedUtils.mapPutValue(key, value, map);
+  }
+}
@@ -0,0 +1,50 @@
+package io.invertase.firebase.common;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.facebook.react.bridge.WritableMap;
+import javax.annotation.Nullable;
+
+/** Stand-in for SharedUtils.mapPutValue, limited to the values a DataSnapshot leaf can hold. */
+public class SharedUtils {
+  public static void mapPutValue(String key, @Nullable Object value, WritableMap map) {
+    if (value == null) {
+      map.putNull(key);
+      return;
+    }
+
+    String type = value.getClass().getName();
+    switch (type) {
+      case "java.lang.Boolean":
+        map.putBoolean(key, (Boolean) value);
+        break;
+      case "java.lang.Long":
+        Long longVal = (Long) value;
+        map.putDouble(key, (double) longVal);
+        break;
+      case "java.lang.Double":
+        map.putDouble(key, (double) value);
+        break;
+      case "java.lang.String":
+        map.putString(key, (String) value);
+        break;
+      default:
+        map.putString(key, value.toString());
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package io.invertase.firebase.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+/** Stand-in for UniversalDatabaseException, benchmarks never reject. */
+public class UniversalDatabaseException extends Exception {
+  private final String code;
+
+  public UniversalDatabaseException(String code, String message) {
+    super(message);
+    this.code = code;
+  }
+
+  public UniversalDatabaseException(int code, String message, Throwable cause) {
+    super(message, cause);
+    this.code = "unknown";
+  }
+
+  public String getCode() {
+    return code;
+  }
+}
@@ -29,6 +29,15 @@ import javax.annotation.Nullable;
 public class ReactNativeFirebaseDatabaseCommon {
   private static final String TAG = "DatabaseCommon";
 
+  /** Leaves childKeys out of serialized snapshots, JS derives them from the value instead. */
+  public static final int SNAPSHOT_OMIT_CHILD_KEYS = 1;
+
+  /**
+   * Serializes only the first level of a snapshot: children with children of their own are sent as
+   * true, like the REST API's shallow queries, so large nodes can be browsed cheaply.
+   */
+  public static final int SNAPSHOT_SHALLOW = 2;
+
   /**
    * @param promise
    * @param exception
@@ -47,36 +56,80 @@ public class ReactNativeFirebaseDatabaseCommon {
    */
   public static WritableMap snapshotWithPreviousChildToMap(
       DataSnapshot dataSnapshot, @Nullable String previousChildName) {
+    return snapshotWithPreviousChildToMap(dataSnapshot, previousChildName, 0);
+  }
+
+  /**
+   * @param dataSnapshot
+   * @param previousChildName
+   * @param flags SNAPSHOT_* flags, see getSnapshotFlags
+   * @return
+   */
+  public static WritableMap snapshotWithPreviousChildToMap(
+      DataSnapshot dataSnapshot, @Nullable String previousChildName, int flags) {
     WritableMap result = Arguments.createMap();
-    WritableMap snapshot = snapshotToMap(dataSnapshot);
+    WritableMap snapshot = snapshotToMap(dataSnapshot, flags);
 
     result.putMap("snapshot", snapshot);
     result.putString("previousChildName", previousChildName);
     return result;
   }
 
+  /**
+   * Returns the SNAPSHOT_* flags for the "omitChildKeys" and "shallow" keys of listener options.
+   */
+  public static int getSnapshotFlags(@Nullable ReadableMap options) {
+    int flags = 0;
+
+    if (options != null) {
+      if (options.hasKey("omitChildKeys") && options.getBoolean("omitChildKeys")) {
+        flags |= SNAPSHOT_OMIT_CHILD_KEYS;
+      }
+      if (options.hasKey("shallow") && options.getBoolean("shallow")) {
+        flags |= SNAPSHOT_SHALLOW;
+      }
+    }
+
+    return flags;
+  }
+
   /**
    * @param dataSnapshot
    * @return
    */
   public static WritableMap snapshotToMap(DataSnapshot dataSnapshot) {
+    return snapshotToMap(dataSnapshot, 0);
+  }
+
+  /**
+   * @param dataSnapshot
+   * @param flags SNAPSHOT_* flags, see getSnapshotFlags
+   * @return
+   */
+  public static WritableMap snapshotToMap(DataSnapshot dataSnapshot, int flags) {
     WritableMap snapshot = Arguments.createMap();
+    boolean hasChildren = dataSnapshot.hasChildren();
+    boolean includeChildKeys = (flags & SNAPSHOT_OMIT_CHILD_KEYS) == 0;
 
     snapshot.putString("key", dataSnapshot.getKey());
     snapshot.putBoolean("exists", dataSnapshot.exists());
-    snapshot.putBoolean("hasChildren", dataSnapshot.hasChildren());
+    snapshot.putBoolean("hasChildren", hasChildren);
     snapshot.putDouble("childrenCount", dataSnapshot.getChildrenCount());
-    snapshot.putArray("childKeys", getChildKeys(dataSnapshot));
     mapPutValue("priority", dataSnapshot.getPriority(), snapshot);
 
-    if (!dataSnapshot.hasChildren()) {
+    if (!hasChildren) {
+      if (includeChildKeys) {
+        snapshot.putArray("childKeys", Arguments.createArray());
+      }
       mapPutValue("value", dataSnapshot.getValue(), snapshot);
     } else {
-      Object value = castValue(dataSnapshot);
-      if (value instanceof WritableNativeArray) {
-        snapshot.putArray("value", (WritableArray) value);
-      } else {
-        snapshot.putMap("value", (WritableMap) value);
+      // the child keys are collected by the same pass that converts the value
+      WritableArray childKeys = includeChildKeys ? Arguments.createArray() : null;
+      boolean shallow = (flags & SNAPSHOT_SHALLOW) != 0;
+      putValue(
+          snapshot, "value", childrenToValue(DATA_SNAPSHOT, dataSnapshot, childKeys, shallow));
+      if (childKeys != null) {
+        snapshot.putArray("childKeys", childKeys);
       }
     }
 
@@ -89,28 +142,7 @@ public class ReactNativeFirebaseDatabaseCommon {
    * @return
    */
   public static <Any> Any castValue(DataSnapshot snapshot) {
-    if (snapshot.hasChildren()) {
-      if (isArray(snapshot)) {
-        return (Any) buildArray(snapshot);
-      } else {
-        return (Any) buildMap(snapshot);
-      }
-    } else {
-      if (snapshot.getValue() != null) {
-        String type = snapshot.getValue().getClass().getName();
-        switch (type) {
-          case "java.lang.Boolean":
-          case "java.lang.Long":
-          case "java.lang.Double":
-          case "java.lang.String":
-            return (Any) (snapshot.getValue());
-          default:
-            Log.w(TAG, "Invalid type: " + type);
-            return null;
-        }
-      }
-      return null;
-    }
+    return (Any) nodeToValue(DATA_SNAPSHOT, snapshot);
   }
 
   /**
@@ -119,250 +151,187 @@ public class ReactNativeFirebaseDatabaseCommon {
    * @return
    */
   public static <Any> Any castValue(MutableData mutableData) {
-    if (mutableData.hasChildren()) {
-      if (isArray(mutableData)) {
-        return (Any) buildArray(mutableData);
-      } else {
-        return (Any) buildMap(mutableData);
-      }
-    } else {
-      if (mutableData.getValue() != null) {
-        String type = mutableData.getValue().getClass().getName();
-        switch (type) {
-          case "java.lang.Boolean":
-          case "java.lang.Long":
-          case "java.lang.Double":
-          case "java.lang.String":
-            return (Any) (mutableData.getValue());
-          default:
-            Log.w(TAG, "Invalid type: " + type);
-            return null;
-        }
-      }
-      return null;
-    }
+    return (Any) nodeToValue(MUTABLE_DATA, mutableData);
   }
 
-  /**
-   * Data should be treated as an array if: 1) All the keys are integers 2) More than half the keys
-   * between 0 and the maximum key in the object have non-empty values
-   *
-   * <p>Definition from:
-   * https://firebase.googleblog.com/2014/04/best-practices-arrays-in-firebase.html
-   *
-   * @param snapshot
-   * @return
-   */
-  private static boolean isArray(DataSnapshot snapshot) {
-    long expectedKey = -1;
-    long maxAllowedKey = (snapshot.getChildrenCount() * 2) - 1;
-    for (DataSnapshot child : snapshot.getChildren()) {
-      try {
-        long key = Long.parseLong(child.getKey());
-        if (key > expectedKey && key <= maxAllowedKey) {
-          expectedKey = key;
-        } else {
-          return false;
-        }
-      } catch (NumberFormatException ex) {
-        return false;
-      }
+  @Nullable
+  private static <T> Object nodeToValue(TreeAdapter<T> adapter, T node) {
+    if (adapter.hasChildren(node)) {
+      return childrenToValue(adapter, node, null, false);
     }
-    return true;
+
+    return leafValue(adapter.getValue(node));
   }
 
   /**
-   * Data should be treated as an array if: 1) All the keys are integers 2) More than half the keys
-   * between 0 and the maximum key in the object have non-empty values
+   * Converts the children of a node to a WritableArray or WritableMap in a single pass over them:
+   * each child is converted (recursively) while its key is checked for the array shape, and the
+   * values are only written once the shape is known. Children make an array if their keys are
+   * increasing integers, none greater than twice the number of children.
    *
    * <p>Definition from:
    * https://firebase.googleblog.com/2014/04/best-practices-arrays-in-firebase.html
    *
-   * @param mutableData
-   * @return
+   * @param node a DataSnapshot or MutableData with children
+   * @param childKeys if not null, the key of every child is pushed to it in order
+   * @param shallow whether to convert children with children of their own to true
    */
-  private static boolean isArray(MutableData mutableData) {
-    long expectedKey = -1;
-    long maxAllowedKey = (mutableData.getChildrenCount() * 2) - 1;
-    for (MutableData child : mutableData.getChildren()) {
-      try {
-        long key = Long.parseLong(child.getKey());
-        if (key > expectedKey && key <= maxAllowedKey) {
-          expectedKey++;
+  private static <T> Object childrenToValue(
+      TreeAdapter<T> adapter, T node, @Nullable WritableArray childKeys, boolean shallow) {
+    long childrenCount = adapter.getChildrenCount(node);
+    long maxAllowedKey = (childrenCount * 2) - 1;
+    String[] keys = new String[(int) childrenCount];
+    Object[] values = new Object[(int) childrenCount];
+    long[] indexes = new long[(int) childrenCount];
+    boolean isArray = true;
+    long lastIndex = -1;
+    int size = 0;
+
+    for (T child : adapter.getChildren(node)) {
+      String key = adapter.getKey(child);
+      if (childKeys != null) {
+        childKeys.pushString(key);
+      }
+
+      if (isArray) {
+        long index = parseArrayIndex(key);
+        if (index > lastIndex && index <= maxAllowedKey) {
+          indexes[size] = index;
+          lastIndex = index;
         } else {
-          return false;
+          isArray = false;
         }
-      } catch (NumberFormatException ex) {
-        return false;
       }
+
+      keys[size] = key;
+      if (!adapter.hasChildren(child)) {
+        values[size] = leafValue(adapter.getValue(child));
+      } else {
+        values[size] = shallow ? Boolean.TRUE : childrenToValue(adapter, child, null, false);
+      }
+      size++;
     }
-    return true;
-  }
 
-  /**
-   * @param snapshot
-   * @param <Any>
-   * @return
-   */
-  private static <Any> WritableArray buildArray(DataSnapshot snapshot) {
-    long expectedKey = 0;
-    WritableArray array = Arguments.createArray();
-    for (DataSnapshot child : snapshot.getChildren()) {
-      long key = Long.parseLong(child.getKey());
-      if (key > expectedKey) {
-        for (long i = expectedKey; i < key; i++) {
+    if (isArray) {
+      WritableArray array = Arguments.createArray();
+      long expectedIndex = 0;
+      for (int i = 0; i < size; i++) {
+        for (; expectedIndex < indexes[i]; expectedIndex++) {
           array.pushNull();
         }
-        expectedKey = key;
+        pushValue(array, values[i]);
+        expectedIndex++;
       }
-      Any castedChild = castValue(child);
-      switch (castedChild.getClass().getName()) {
-        case "java.lang.Boolean":
-          array.pushBoolean((Boolean) castedChild);
-          break;
-        case "java.lang.Long":
-          Long longVal = (Long) castedChild;
-          array.pushDouble((double) longVal);
-          break;
-        case "java.lang.Double":
-          array.pushDouble((Double) castedChild);
-          break;
-        case "java.lang.String":
-          array.pushString((String) castedChild);
-          break;
-        case "com.facebook.react.bridge.WritableNativeMap":
-          array.pushMap((WritableMap) castedChild);
-          break;
-        case "com.facebook.react.bridge.WritableNativeArray":
-          array.pushArray((WritableArray) castedChild);
-          break;
-        default:
-          Log.w(TAG, "Invalid type: " + castedChild.getClass().getName());
-          break;
+      return array;
+    }
+
+    WritableMap map = Arguments.createMap();
+    for (int i = 0; i < size; i++) {
+      if (values[i] != null) {
+        putValue(map, keys[i], values[i]);
       }
-      expectedKey++;
     }
-    return array;
+    return map;
   }
 
   /**
-   * @param mutableData
-   * @param <Any>
-   * @return
+   * Returns the array index a child key stands for, or -1 if it is not an integer. Equivalent to
+   * Long.parseLong, without throwing for the common case of non numeric keys.
    */
-  private static <Any> WritableArray buildArray(MutableData mutableData) {
-    long expectedKey = 0;
-    WritableArray array = Arguments.createArray();
-    for (MutableData child : mutableData.getChildren()) {
-      long key = Long.parseLong(child.getKey());
-      if (key > expectedKey) {
-        for (long i = expectedKey; i < key; i++) {
-          array.pushNull();
-        }
-        expectedKey = key;
+  private static long parseArrayIndex(@Nullable String key) {
+    if (key == null || key.isEmpty()) {
+      return -1;
+    }
+
+    int length = key.length();
+    if (length > 18) {
+      // may overflow, let Long.parseLong decide
+      try {
+        return Long.parseLong(key);
+      } catch (NumberFormatException e) {
+        return -1;
       }
-      Any castedChild = castValue(child);
-      switch (castedChild.getClass().getName()) {
-        case "java.lang.Boolean":
-          array.pushBoolean((Boolean) castedChild);
-          break;
-        case "java.lang.Long":
-          Long longVal = (Long) castedChild;
-          array.pushDouble((double) longVal);
-          break;
-        case "java.lang.Double":
-          array.pushDouble((Double) castedChild);
-          break;
-        case "java.lang.String":
-          array.pushString((String) castedChild);
-          break;
-        case "com.facebook.react.bridge.WritableNativeMap":
-          array.pushMap((WritableMap) castedChild);
-          break;
-        case "com.facebook.react.bridge.WritableNativeArray":
-          array.pushArray((WritableArray) castedChild);
-          break;
-        default:
-          Log.w(TAG, "Invalid type: " + castedChild.getClass().getName());
-          break;
+    }
+
+    int start = key.charAt(0) == '+' || key.charAt(0) == '-' ? 1 : 0;
+    if (start == length) {
+      return -1;
+    }
+
+    long value = 0;
+    for (int i = start; i < length; i++) {
+      char c = key.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
       }
-      expectedKey++;
+      value = value * 10 + (c - '0');
     }
-    return array;
+
+    // negative keys never make an array, keep -0 as Long.parseLong does
+    return key.charAt(0) == '-' && value != 0 ? -1 : value;
   }
 
-  /**
-   * @param snapshot
-   * @param <Any>
-   * @return
-   */
-  private static <Any> WritableMap buildMap(DataSnapshot snapshot) {
-    WritableMap map = Arguments.createMap();
-    for (DataSnapshot child : snapshot.getChildren()) {
-      Any castedChild = castValue(child);
-
-      switch (castedChild.getClass().getName()) {
-        case "java.lang.Boolean":
-          map.putBoolean(child.getKey(), (Boolean) castedChild);
-          break;
-        case "java.lang.Long":
-          map.putDouble(child.getKey(), (double) ((Long) castedChild));
-          break;
-        case "java.lang.Double":
-          map.putDouble(child.getKey(), (Double) castedChild);
-          break;
-        case "java.lang.String":
-          map.putString(child.getKey(), (String) castedChild);
-          break;
-        case "com.facebook.react.bridge.WritableNativeMap":
-          map.putMap(child.getKey(), (WritableMap) castedChild);
-          break;
-        case "com.facebook.react.bridge.WritableNativeArray":
-          map.putArray(child.getKey(), (WritableArray) castedChild);
-          break;
-        default:
-          Log.w(TAG, "Invalid type: " + castedChild.getClass().getName());
-          break;
-      }
+  /** Returns a leaf value if it is of a type JS supports, comparing classes rather than names. */
+  @Nullable
+  private static Object leafValue(@Nullable Object value) {
+    if (value == null) {
+      return null;
     }
-    return map;
+
+    Class<?> type = value.getClass();
+    if (type == String.class
+        || type == Long.class
+        || type == Double.class
+        || type == Boolean.class) {
+      return value;
+    }
+
+    Log.w(TAG, "Invalid type: " + type.getName());
+    return null;
   }
 
-  /**
-   * @param mutableData
-   * @param <Any>
-   * @return
-   */
-  private static <Any> WritableMap buildMap(MutableData mutableData) {
-    WritableMap map = Arguments.createMap();
-    for (MutableData child : mutableData.getChildren()) {
-      Any castedChild = castValue(child);
-
-      switch (castedChild.getClass().getName()) {
-        case "java.lang.Boolean":
-          map.putBoolean(child.getKey(), (Boolean) castedChild);
-          break;
-        case "java.lang.Long":
-          map.putDouble(child.getKey(), (double) ((Long) castedChild));
-          break;
-        case "java.lang.Double":
-          map.putDouble(child.getKey(), (Double) castedChild);
-          break;
-        case "java.lang.String":
-          map.putString(child.getKey(), (String) castedChild);
-          break;
-        case "com.facebook.react.bridge.WritableNativeMap":
-          map.putMap(child.getKey(), (WritableMap) castedChild);
-          break;
-        case "com.facebook.react.bridge.WritableNativeArray":
-          map.putArray(child.getKey(), (WritableArray) castedChild);
-          break;
-        default:
-          Log.w(TAG, "Invalid type: " + castedChild.getClass().getName());
-          break;
-      }
+  private static void putValue(WritableMap map, String key, Object value) {
+    Class<?> type = value.getClass();
+    if (type == String.class) {
+      map.putString(key, (String) value);
+    } else if (type == Long.class) {
+      map.putDouble(key, (double) (Long) value);
+    } else if (type == Double.class) {
+      map.putDouble(key, (Double) value);
+    } else if (type == Boolean.class) {
+      map.putBoolean(key, (Boolean) value);
+    } else if (value instanceof WritableMap) {
+      map.putMap(key, (WritableMap) value);
+    } else if (value instanceof WritableArray) {
+      map.putArray(key, (WritableArray) value);
+    } else {
+      Log.w(TAG, "Invalid type: " + type.getName());
+    }
+  }
+
+  private static void pushValue(WritableArray array, @Nullable Object value) {
+    if (value == null) {
+      array.pushNull();
+      return;
+    }
+
+    Class<?> type = value.getClass();
+    if (type == String.class) {
+      array.pushString((String) value);
+    } else if (type == Long.class) {
+      array.pushDouble((double) (Long) value);
+    } else if (type == Double.class) {
+      array.pushDouble((Double) value);
+    } else if (type == Boolean.class) {
+      array.pushBoolean((Boolean) value);
+    } else if (value instanceof WritableMap) {
+      array.pushMap((WritableMap) value);
+    } else if (value instanceof WritableArray) {
+      array.pushArray((WritableArray) value);
+    } else {
+      Log.w(TAG, "Invalid type: " + type.getName());
+      array.pushNull();
     }
-    return map;
   }
 
   /**
@@ -380,4 +349,75 @@ public class ReactNativeFirebaseDatabaseCommon {
 
     return childKeys;
   }
+
+  /** Reads a tree of DataSnapshot or MutableData nodes, so both share one serializer. */
+  private interface TreeAdapter<T> {
+    @Nullable
+    String getKey(T node);
+
+    boolean hasChildren(T node);
+
+    long getChildrenCount(T node);
+
+    Iterable<T> getChildren(T node);
+
+    @Nullable
+    Object getValue(T node);
+  }
+
+  private static final TreeAdapter<DataSnapshot> DATA_SNAPSHOT =
+      new TreeAdapter<DataSnapshot>() {
+        @Override
+        public String getKey(DataSnapshot node) {
+          return node.getKey();
+        }
+
+        @Override
+        public boolean hasChildren(DataSnapshot node) {
+          return node.hasChildren();
+        }
+
+        @Override
+        public long getChildrenCount(DataSnapshot node) {
+          return node.getChildrenCount();
+        }
+
+        @Override
+        public Iterable<DataSnapshot> getChildren(DataSnapshot node) {
+          return node.getChildren();
+        }
+
+        @Override
+        public Object getValue(DataSnapshot node) {
+          return node.getValue();
+        }
+      };
+
+  private static final TreeAdapter<MutableData> MUTABLE_DATA =
+      new TreeAdapter<MutableData>() {
+        @Override
+        public String getKey(MutableData node) {
+          return node.getKey();
+        }
+
+        @Override
+        public boolean hasChildren(MutableData node) {
+          return node.hasChildren();
+        }
+
+        @Override
+        public long getChildrenCount(MutableData node) {
+          return node.getChildrenCount();
+        }
+
+        @Override
+        public Iterable<MutableData> getChildren(MutableData node) {
+          return node.getChildren();
+        }
+
+        @Override
+        public Object getValue(MutableData node) {
+          return node.getValue();
+        }
+      };
 }
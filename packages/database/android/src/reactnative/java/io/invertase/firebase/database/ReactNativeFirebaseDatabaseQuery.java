@@ -20,25 +20,54 @@ package io.invertase.firebase.database;
 import static io.invertase.firebase.common.RCTConvertFirebase.toArrayList;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.facebook.react.bridge.ReadableArray;
 import com.google.firebase.database.ChildEventListener;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.Query;
 import com.google.firebase.database.ValueEventListener;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ReactNativeFirebaseDatabaseQuery {
+  private static final int MAX_CACHED_QUERIES = 100;
+
+  // query signature -> the Query built for it, least recently used first
+  private static final LinkedHashMap<String, Query> queryCache =
+      new LinkedHashMap<>(16, 0.75f, true);
 
   public Query query;
-  private HashMap<String, ChildEventListener> childEventListeners = new HashMap<>();
-  private HashMap<String, ValueEventListener> valueEventListeners = new HashMap<>();
+  private ConcurrentHashMap<String, ChildEventListener> childEventListeners =
+      new ConcurrentHashMap<>();
+  private ConcurrentHashMap<String, ValueEventListener> valueEventListeners =
+      new ConcurrentHashMap<>();
 
+  /**
+   * Builds the query for the reference and modifiers, or reuses the Query built for an identical
+   * query (same app, location and modifiers in any order), e.g. by once() and on() on the same ref.
+   */
   ReactNativeFirebaseDatabaseQuery(DatabaseReference reference, ReadableArray modifiers) {
+    List<Object> modifierList = toArrayList(modifiers);
+    String signature = getSignature(reference, modifierList);
+
+    synchronized (queryCache) {
+      Query cached = queryCache.get(signature);
+      if (cached != null) {
+        this.query = cached;
+        return;
+      }
+    }
+
     this.query = reference;
 
-    for (Object m : toArrayList(modifiers)) {
+    for (Object m : modifierList) {
       Map modifier = (Map) m;
       String type = (String) modifier.get("type");
       String name = (String) modifier.get("name");
@@ -51,6 +80,44 @@ public class ReactNativeFirebaseDatabaseQuery {
         applyFilterModifier(name, modifier);
       }
     }
+
+    synchronized (queryCache) {
+      queryCache.put(signature, query);
+      if (queryCache.size() > MAX_CACHED_QUERIES) {
+        queryCache.remove(queryCache.keySet().iterator().next());
+      }
+    }
+  }
+
+  /**
+   * Returns a string identifying the query: the app and URL of the reference, then every modifier
+   * with the type of its value, sorted so the order modifiers were applied in doesn't matter.
+   */
+  private static String getSignature(DatabaseReference reference, List<Object> modifiers) {
+    List<String> modifierSignatures = new ArrayList<>(modifiers.size());
+    for (Object m : modifiers) {
+      Map modifier = (Map) m;
+      modifierSignatures.add(
+          modifier.get("type")
+              + ":"
+              + modifier.get("name")
+              + ":"
+              + modifier.get("key")
+              + ":"
+              + modifier.get("valueType")
+              + ":"
+              + modifier.get("value"));
+    }
+    Collections.sort(modifierSignatures);
+
+    StringBuilder signature =
+        new StringBuilder(reference.getDatabase().getApp().getName())
+            .append('$')
+            .append(reference.toString());
+    for (String modifierSignature : modifierSignatures) {
+      signature.append('$').append(modifierSignature);
+    }
+    return signature.toString();
   }
 
   /**
@@ -72,14 +139,28 @@ public class ReactNativeFirebaseDatabaseQuery {
   }
 
   /**
-   * Adds a value event listener and stores the query key
+   * Adds a value event listener and stores the query key. A listener already added under another
+   * key is shared: it is only added to the query once, and removed once no key refers to it.
    *
    * @param eventRegistrationKey
    * @param listener
    */
   public void addEventListener(String eventRegistrationKey, ValueEventListener listener) {
+    boolean added = valueEventListeners.containsValue(listener);
     valueEventListeners.put(eventRegistrationKey, listener);
-    query.addValueEventListener(listener);
+    if (!added) {
+      query.addValueEventListener(listener);
+    }
+  }
+
+  /**
+   * Returns the value event listener stored for the key, if any.
+   *
+   * @param eventRegistrationKey
+   */
+  @Nullable
+  public ValueEventListener getValueEventListener(String eventRegistrationKey) {
+    return valueEventListeners.get(eventRegistrationKey);
   }
 
   /**
@@ -117,27 +198,25 @@ public class ReactNativeFirebaseDatabaseQuery {
    * @param eventRegistrationKey
    */
   public void removeEventListener(String eventRegistrationKey) {
-    if (valueEventListeners.containsKey(eventRegistrationKey)) {
-      query.removeEventListener(valueEventListeners.get(eventRegistrationKey));
-      valueEventListeners.remove(eventRegistrationKey);
+    ValueEventListener valueEventListener = valueEventListeners.remove(eventRegistrationKey);
+    if (valueEventListener != null && !valueEventListeners.containsValue(valueEventListener)) {
+      query.removeEventListener(valueEventListener);
     }
 
-    if (childEventListeners.containsKey(eventRegistrationKey)) {
-      query.removeEventListener(childEventListeners.get(eventRegistrationKey));
-      childEventListeners.remove(eventRegistrationKey);
+    ChildEventListener childEventListener = childEventListeners.remove(eventRegistrationKey);
+    if (childEventListener != null) {
+      query.removeEventListener(childEventListener);
     }
   }
 
   /** Iterates over all current event listeners on the current query and removes each one */
   public void removeAllEventListeners() {
     if (hasListeners()) {
-      Iterator valueIterator = valueEventListeners.entrySet().iterator();
-
-      while (valueIterator.hasNext()) {
-        Map.Entry pair = (Map.Entry) valueIterator.next();
-        ValueEventListener valueEventListener = (ValueEventListener) pair.getValue();
+      // shared value listeners are stored under several keys
+      Set<ValueEventListener> valueListeners = new HashSet<>(valueEventListeners.values());
+      valueEventListeners.clear();
+      for (ValueEventListener valueEventListener : valueListeners) {
         query.removeEventListener(valueEventListener);
-        valueIterator.remove();
       }
 
       Iterator childIterator = childEventListeners.entrySet().iterator();
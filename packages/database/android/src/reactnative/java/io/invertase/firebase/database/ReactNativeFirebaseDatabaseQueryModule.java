@@ -17,25 +17,43 @@ package io.invertase.firebase.database;
  *
  */
 
-import static io.invertase.firebase.common.RCTConvertFirebase.readableMapToWritableMap;
 import static io.invertase.firebase.database.ReactNativeFirebaseDatabaseCommon.*;
 import static io.invertase.firebase.database.UniversalFirebaseDatabaseCommon.getDatabaseForApp;
 
 import com.facebook.react.bridge.*;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.database.*;
+import io.invertase.firebase.common.ReactNativeFirebaseEventBatcher;
 import io.invertase.firebase.common.ReactNativeFirebaseEventEmitter;
+import io.invertase.firebase.common.ReactNativeFirebaseEventThrottle;
+import io.invertase.firebase.common.ReactNativeFirebaseListenerRegistry;
 import io.invertase.firebase.common.ReactNativeFirebaseModule;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseModule {
   private static final String SERVICE_NAME = "DatabaseQuery";
-  private HashMap<String, ReactNativeFirebaseDatabaseQuery> queryMap = new HashMap<>();
+  // eventRegistrationKey -> query key, across every React context
+  private static final ReactNativeFirebaseListenerRegistry<String, String> eventListeners =
+      new ReactNativeFirebaseListenerRegistry<>("database");
+  private final ConcurrentHashMap<String, ReactNativeFirebaseDatabaseQuery> queryMap =
+      new ConcurrentHashMap<>();
+  // eventRegistrationKey -> throttle of a ref().on('value') listener with throttleMs/debounceMs
+  private final ConcurrentHashMap<String, ReactNativeFirebaseEventThrottle<DataSnapshot>>
+      eventThrottles = new ConcurrentHashMap<>();
+  // query key and snapshot flags -> value listener shared by unthrottled ref().on('value')
+  private final Map<String, SharedValueEventListener> sharedValueListeners = new HashMap<>();
+  // eventRegistrationKey -> batcher of a ref().on('child_*') listener with batchSize/batchMs
+  private final ConcurrentHashMap<String, ReactNativeFirebaseEventBatcher<ChildEvent>>
+      eventBatchers = new ConcurrentHashMap<>();
 
   ReactNativeFirebaseDatabaseQueryModule(ReactApplicationContext reactContext) {
     super(reactContext, SERVICE_NAME);
@@ -44,15 +62,30 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
   @Override
   public void onCatalystInstanceDestroy() {
     super.onCatalystInstanceDestroy();
+    eventListeners.reportLeaks(getReactApplicationContext());
 
-    Iterator refIterator = queryMap.entrySet().iterator();
+    Iterator<Map.Entry<String, ReactNativeFirebaseDatabaseQuery>> refIterator =
+        queryMap.entrySet().iterator();
     while (refIterator.hasNext()) {
-      Map.Entry pair = (Map.Entry) refIterator.next();
-      ReactNativeFirebaseDatabaseQuery databaseQuery =
-          (ReactNativeFirebaseDatabaseQuery) pair.getValue();
-      databaseQuery.removeAllEventListeners();
-      refIterator.remove(); // avoids a ConcurrentModificationException
+      refIterator.next().getValue().removeAllEventListeners();
+      refIterator.remove();
     }
+
+    for (ReactNativeFirebaseEventThrottle<DataSnapshot> throttle : eventThrottles.values()) {
+      throttle.cancel();
+    }
+    eventThrottles.clear();
+
+    for (ReactNativeFirebaseEventBatcher<ChildEvent> batcher : eventBatchers.values()) {
+      batcher.cancel();
+    }
+    eventBatchers.clear();
+
+    synchronized (sharedValueListeners) {
+      sharedValueListeners.clear();
+    }
+
+    eventListeners.removeAllOwnedBy(getReactApplicationContext());
   }
 
   /**
@@ -85,23 +118,24 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
     ReactNativeFirebaseDatabaseQuery databaseQuery =
         new ReactNativeFirebaseDatabaseQuery(reference, modifiers);
 
-    queryMap.put(key, databaseQuery);
-    return databaseQuery;
+    cachedDatabaseQuery = queryMap.putIfAbsent(key, databaseQuery);
+    return cachedDatabaseQuery != null ? cachedDatabaseQuery : databaseQuery;
   }
 
   /**
    * ref().once('value')
    *
    * @param databaseQuery
+   * @param snapshotFlags SNAPSHOT_* flags to serialize the snapshot with
    * @param promise
    */
   private void addOnceValueEventListener(
-      ReactNativeFirebaseDatabaseQuery databaseQuery, Promise promise) {
+      ReactNativeFirebaseDatabaseQuery databaseQuery, int snapshotFlags, Promise promise) {
     ValueEventListener onceValueEventListener =
         new ValueEventListener() {
           @Override
           public void onDataChange(@Nonnull DataSnapshot dataSnapshot) {
-            Tasks.call(getExecutor(), () -> snapshotToMap(dataSnapshot))
+            Tasks.call(getExecutor(), () -> snapshotToMap(dataSnapshot, snapshotFlags))
                 .addOnCompleteListener(
                     task -> {
                       if (task.isSuccessful()) {
@@ -129,10 +163,14 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
    *
    * @param eventType
    * @param databaseQuery
+   * @param snapshotFlags SNAPSHOT_* flags to serialize the snapshot with
    * @param promise
    */
   private void addChildOnceEventListener(
-      String eventType, ReactNativeFirebaseDatabaseQuery databaseQuery, Promise promise) {
+      String eventType,
+      ReactNativeFirebaseDatabaseQuery databaseQuery,
+      int snapshotFlags,
+      Promise promise) {
     ChildEventListener childEventListener =
         new ChildEventListener() {
           @Override
@@ -141,7 +179,9 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
               databaseQuery.removeEventListener(this);
               Tasks.call(
                       getExecutor(),
-                      () -> snapshotWithPreviousChildToMap(dataSnapshot, previousChildName))
+                      () ->
+                          snapshotWithPreviousChildToMap(
+                              dataSnapshot, previousChildName, snapshotFlags))
                   .addOnCompleteListener(
                       task -> {
                         if (task.isSuccessful()) {
@@ -159,7 +199,9 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
               databaseQuery.removeEventListener(this);
               Tasks.call(
                       getExecutor(),
-                      () -> snapshotWithPreviousChildToMap(dataSnapshot, previousChildName))
+                      () ->
+                          snapshotWithPreviousChildToMap(
+                              dataSnapshot, previousChildName, snapshotFlags))
                   .addOnCompleteListener(
                       task -> {
                         if (task.isSuccessful()) {
@@ -175,7 +217,9 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
           public void onChildRemoved(@Nonnull DataSnapshot dataSnapshot) {
             if ("child_removed".equals(eventType)) {
               databaseQuery.removeEventListener(this);
-              Tasks.call(getExecutor(), () -> snapshotWithPreviousChildToMap(dataSnapshot, null))
+              Tasks.call(
+                      getExecutor(),
+                      () -> snapshotWithPreviousChildToMap(dataSnapshot, null, snapshotFlags))
                   .addOnCompleteListener(
                       task -> {
                         if (task.isSuccessful()) {
@@ -193,7 +237,9 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
               databaseQuery.removeEventListener(this);
               Tasks.call(
                       getExecutor(),
-                      () -> snapshotWithPreviousChildToMap(dataSnapshot, previousChildName))
+                      () ->
+                          snapshotWithPreviousChildToMap(
+                              dataSnapshot, previousChildName, snapshotFlags))
                   .addOnCompleteListener(
                       task -> {
                         if (task.isSuccessful()) {
@@ -224,79 +270,178 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
    * @param key
    * @param databaseQuery
    * @param registration
+   * @param options optional throttleMs/debounceMs, applied before snapshots are serialized
+   * @param snapshotFlags SNAPSHOT_* flags to serialize snapshots with
    */
   private void addValueEventListener(
-      String key, ReactNativeFirebaseDatabaseQuery databaseQuery, ReadableMap registration) {
-    final String eventRegistrationKey = registration.getString("eventRegistrationKey");
+      String key,
+      ReactNativeFirebaseDatabaseQuery databaseQuery,
+      EventRegistration registration,
+      @Nullable ReadableMap options,
+      int snapshotFlags) {
+    final String eventRegistrationKey = registration.eventRegistrationKey;
 
     if (!databaseQuery.hasEventListener(eventRegistrationKey)) {
+      ReactNativeFirebaseEventThrottle<DataSnapshot> throttle =
+          ReactNativeFirebaseEventThrottle.fromOptions(
+              options,
+              dataSnapshot ->
+                  handleDatabaseEvent(
+                      key, "value", registration, dataSnapshot, null, snapshotFlags));
+
+      if (throttle == null) {
+        addSharedValueEventListener(key, databaseQuery, registration, snapshotFlags);
+        return;
+      }
+
+      eventThrottles.put(eventRegistrationKey, throttle);
+
       ValueEventListener valueEventListener =
           new ValueEventListener() {
             @Override
             public void onDataChange(@Nonnull DataSnapshot dataSnapshot) {
-              handleDatabaseEvent(key, "value", registration, dataSnapshot, null);
+              throttle.offer(dataSnapshot);
             }
 
             @Override
             public void onCancelled(@Nonnull DatabaseError error) {
               databaseQuery.removeEventListener(eventRegistrationKey);
+              eventListeners.remove(eventRegistrationKey);
+              cancelEventThrottle(eventRegistrationKey);
               handleDatabaseEventError(key, registration, error);
             }
           };
 
+      eventListeners.putIfAbsent(eventRegistrationKey, key, getReactApplicationContext());
       databaseQuery.addEventListener(eventRegistrationKey, valueEventListener);
     }
   }
 
+  /**
+   * Adds the registration to the value listener shared by every unthrottled ref().on('value') of
+   * the same query and snapshot flags, so the query is listened to and each snapshot serialized
+   * once however many registrations there are. A registration joining a listener which already
+   * received a snapshot is sent that snapshot, as a new SDK listener would have been.
+   *
+   * @param key
+   * @param databaseQuery
+   * @param registration
+   * @param snapshotFlags SNAPSHOT_* flags to serialize snapshots with
+   */
+  private void addSharedValueEventListener(
+      String key,
+      ReactNativeFirebaseDatabaseQuery databaseQuery,
+      EventRegistration registration,
+      int snapshotFlags) {
+    String sharedKey = key + "$" + snapshotFlags;
+    SharedValueEventListener listener;
+
+    eventListeners.putIfAbsent(
+        registration.eventRegistrationKey, key, getReactApplicationContext());
+
+    synchronized (sharedValueListeners) {
+      listener = sharedValueListeners.get(sharedKey);
+      if (listener == null || listener.databaseQuery != databaseQuery) {
+        listener = new SharedValueEventListener(key, sharedKey, databaseQuery, snapshotFlags);
+        sharedValueListeners.put(sharedKey, listener);
+      }
+      listener.registrations.add(registration);
+
+      // queued under the lock, so it can't be sent after a newer snapshot
+      if (listener.lastSnapshot != null) {
+        handleDatabaseEvent(
+            key,
+            "value",
+            Collections.singletonList(registration),
+            sharedKey,
+            listener.lastSnapshot,
+            null,
+            snapshotFlags);
+      }
+    }
+
+    databaseQuery.addEventListener(registration.eventRegistrationKey, listener);
+  }
+
+  /**
+   * ref().on('child_*') handler
+   *
+   * @param key
+   * @param eventType
+   * @param databaseQuery
+   * @param registration
+   * @param options optional batchSize/batchMs, to send child events to JS in batches
+   * @param snapshotFlags SNAPSHOT_* flags to serialize snapshots with
+   */
   private void addChildEventListener(
       String key,
       String eventType,
       ReactNativeFirebaseDatabaseQuery databaseQuery,
-      ReadableMap registration) {
-    final String eventRegistrationKey = registration.getString("eventRegistrationKey");
+      EventRegistration registration,
+      @Nullable ReadableMap options,
+      int snapshotFlags) {
+    final String eventRegistrationKey = registration.eventRegistrationKey;
 
     if (!databaseQuery.hasEventListener(eventRegistrationKey)) {
+      ReactNativeFirebaseEventBatcher<ChildEvent> batcher =
+          ReactNativeFirebaseEventBatcher.fromOptions(
+              options,
+              childEvents ->
+                  handleDatabaseEvents(key, eventType, registration, childEvents, snapshotFlags));
+
+      if (batcher != null) {
+        eventBatchers.put(eventRegistrationKey, batcher);
+      }
+
       ChildEventListener childEventListener =
           new ChildEventListener() {
             @Override
             public void onChildAdded(@Nonnull DataSnapshot dataSnapshot, String previousChildName) {
-              if ("child_added".equals(eventType)) {
-                handleDatabaseEvent(
-                    key, "child_added", registration, dataSnapshot, previousChildName);
-              }
+              onChildEvent("child_added", dataSnapshot, previousChildName);
             }
 
             @Override
             public void onChildChanged(
                 @Nonnull DataSnapshot dataSnapshot, String previousChildName) {
-              if ("child_changed".equals(eventType)) {
-                handleDatabaseEvent(
-                    key, "child_changed", registration, dataSnapshot, previousChildName);
-              }
+              onChildEvent("child_changed", dataSnapshot, previousChildName);
             }
 
             @Override
             public void onChildRemoved(@Nonnull DataSnapshot dataSnapshot) {
-              if ("child_removed".equals(eventType)) {
-                handleDatabaseEvent(key, "child_removed", registration, dataSnapshot, null);
-              }
+              onChildEvent("child_removed", dataSnapshot, null);
             }
 
             @Override
             public void onChildMoved(@Nonnull DataSnapshot dataSnapshot, String previousChildName) {
-              if ("child_moved".equals(eventType)) {
-                handleDatabaseEvent(
-                    key, "child_moved", registration, dataSnapshot, previousChildName);
-              }
+              onChildEvent("child_moved", dataSnapshot, previousChildName);
             }
 
             @Override
             public void onCancelled(@Nonnull DatabaseError error) {
               databaseQuery.removeEventListener(eventRegistrationKey);
+              eventListeners.remove(eventRegistrationKey);
+              cancelEventBatcher(eventRegistrationKey);
               handleDatabaseEventError(key, registration, error);
             }
+
+            private void onChildEvent(
+                String childEventType,
+                DataSnapshot dataSnapshot,
+                @Nullable String previousChildName) {
+              if (!eventType.equals(childEventType)) {
+                return;
+              }
+
+              if (batcher != null) {
+                batcher.offer(new ChildEvent(dataSnapshot, previousChildName));
+              } else {
+                handleDatabaseEvent(
+                    key, eventType, registration, dataSnapshot, previousChildName, snapshotFlags);
+              }
+            }
           };
 
+      eventListeners.putIfAbsent(eventRegistrationKey, key, getReactApplicationContext());
       databaseQuery.addEventListener(eventRegistrationKey, childEventListener);
     }
   }
@@ -307,33 +452,123 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
    * @param eventType
    * @param dataSnapshot
    * @param previousChildName
+   * @param snapshotFlags SNAPSHOT_* flags to serialize the snapshot with
    */
   private void handleDatabaseEvent(
       final String key,
       final String eventType,
-      final ReadableMap registration,
+      final EventRegistration registration,
       DataSnapshot dataSnapshot,
-      @Nullable String previousChildName) {
-    final String eventRegistrationKey = registration.getString("eventRegistrationKey");
+      @Nullable String previousChildName,
+      int snapshotFlags) {
+    handleDatabaseEvent(
+        key,
+        eventType,
+        Collections.singletonList(registration),
+        registration.eventRegistrationKey,
+        dataSnapshot,
+        previousChildName,
+        snapshotFlags);
+  }
+
+  /**
+   * Handles value/child update events for one or more registrations, serializing the snapshot
+   * once. The event carries "eventRegistrationKeys" rather than "eventRegistrationKey" if there
+   * are several registrations.
+   *
+   * @param registrations
+   * @param executorKey identifies the executor which serializes the events of the listener in order
+   */
+  private void handleDatabaseEvent(
+      final String key,
+      final String eventType,
+      final List<EventRegistration> registrations,
+      final String executorKey,
+      DataSnapshot dataSnapshot,
+      @Nullable String previousChildName,
+      int snapshotFlags) {
     Tasks.call(
-            getTransactionalExecutor(eventRegistrationKey),
+            getTransactionalExecutor(executorKey),
             () -> {
               if (eventType.equals("value")) {
-                return snapshotToMap(dataSnapshot);
+                return snapshotToMap(dataSnapshot, snapshotFlags);
               } else {
-                return snapshotWithPreviousChildToMap(dataSnapshot, previousChildName);
+                return snapshotWithPreviousChildToMap(
+                    dataSnapshot, previousChildName, snapshotFlags);
               }
             })
         .addOnCompleteListener(
             getExecutor(),
             task -> {
               if (task.isSuccessful()) {
+                long count = eventType.equals("value") ? dataSnapshot.getChildrenCount() : 1;
+                for (EventRegistration registration : registrations) {
+                  eventListeners.recordEvent(registration.eventRegistrationKey, count);
+                }
+
                 WritableMap data = task.getResult();
                 WritableMap event = Arguments.createMap();
                 event.putMap("data", data);
                 event.putString("key", key);
                 event.putString("eventType", eventType);
-                event.putMap("registration", readableMapToWritableMap(registration));
+                if (registrations.size() == 1) {
+                  event.putString(
+                      "eventRegistrationKey", registrations.get(0).eventRegistrationKey);
+                } else {
+                  WritableArray eventRegistrationKeys = Arguments.createArray();
+                  for (EventRegistration registration : registrations) {
+                    eventRegistrationKeys.pushString(registration.eventRegistrationKey);
+                  }
+                  event.putArray("eventRegistrationKeys", eventRegistrationKeys);
+                }
+
+                ReactNativeFirebaseEventEmitter emitter =
+                    ReactNativeFirebaseEventEmitter.getSharedInstance();
+
+                emitter.sendEvent(
+                    new ReactNativeFirebaseDatabaseEvent(
+                        ReactNativeFirebaseDatabaseEvent.EVENT_SYNC, event));
+              }
+            });
+  }
+
+  /**
+   * Handles a batch of child events, sent to JS as a single event whose "batch" holds the data of
+   * every child event in order.
+   *
+   * @param eventType
+   * @param childEvents
+   * @param snapshotFlags SNAPSHOT_* flags to serialize the snapshots with
+   */
+  private void handleDatabaseEvents(
+      final String key,
+      final String eventType,
+      final EventRegistration registration,
+      List<ChildEvent> childEvents,
+      int snapshotFlags) {
+    final String eventRegistrationKey = registration.eventRegistrationKey;
+    Tasks.call(
+            getTransactionalExecutor(eventRegistrationKey),
+            () -> {
+              WritableArray batch = Arguments.createArray();
+              for (ChildEvent childEvent : childEvents) {
+                batch.pushMap(
+                    snapshotWithPreviousChildToMap(
+                        childEvent.dataSnapshot, childEvent.previousChildName, snapshotFlags));
+              }
+              return batch;
+            })
+        .addOnCompleteListener(
+            getExecutor(),
+            task -> {
+              if (task.isSuccessful()) {
+                eventListeners.recordEvent(eventRegistrationKey, childEvents.size());
+
+                WritableMap event = Arguments.createMap();
+                event.putArray("batch", task.getResult());
+                event.putString("key", key);
+                event.putString("eventType", eventType);
+                event.putString("eventRegistrationKey", eventRegistrationKey);
 
                 ReactNativeFirebaseEventEmitter emitter =
                     ReactNativeFirebaseEventEmitter.getSharedInstance();
@@ -345,13 +580,30 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
             });
   }
 
+  private void cancelEventThrottle(String eventRegistrationKey) {
+    ReactNativeFirebaseEventThrottle<DataSnapshot> throttle =
+        eventThrottles.remove(eventRegistrationKey);
+    if (throttle != null) {
+      throttle.cancel();
+    }
+  }
+
+  private void cancelEventBatcher(String eventRegistrationKey) {
+    ReactNativeFirebaseEventBatcher<ChildEvent> batcher =
+        eventBatchers.remove(eventRegistrationKey);
+    if (batcher != null) {
+      batcher.cancel();
+    }
+  }
+
   /**
    * Handles a database listener cancellation error.
    *
    * @param registration
    * @param error
    */
-  private void handleDatabaseEventError(String key, ReadableMap registration, DatabaseError error) {
+  private void handleDatabaseEventError(
+      String key, EventRegistration registration, DatabaseError error) {
     WritableMap event = Arguments.createMap();
     UniversalDatabaseException databaseException =
         new UniversalDatabaseException(error.getCode(), error.getMessage(), error.toException());
@@ -362,7 +614,8 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
 
     event.putString("key", key);
     event.putMap("error", errorMap);
-    event.putMap("registration", readableMapToWritableMap(registration));
+    event.putString("eventRegistrationKey", registration.eventRegistrationKey);
+    event.putString("registrationCancellationKey", registration.registrationCancellationKey);
 
     ReactNativeFirebaseEventEmitter emitter = ReactNativeFirebaseEventEmitter.getSharedInstance();
 
@@ -378,6 +631,7 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
    * @param path
    * @param modifiers
    * @param eventType
+   * @param options optional omitChildKeys/shallow
    * @param promise
    */
   @ReactMethod
@@ -387,13 +641,17 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
       String path,
       ReadableArray modifiers,
       String eventType,
+      @Nullable ReadableMap options,
       Promise promise) {
     DatabaseReference reference = getDatabaseForApp(app, dbURL).getReference(path);
+    int snapshotFlags = getSnapshotFlags(options);
 
     if (eventType.equals("value")) {
-      addOnceValueEventListener(getDatabaseQueryInstance(reference, modifiers), promise);
+      addOnceValueEventListener(
+          getDatabaseQueryInstance(reference, modifiers), snapshotFlags, promise);
     } else {
-      addChildOnceEventListener(eventType, getDatabaseQueryInstance(reference, modifiers), promise);
+      addChildOnceEventListener(
+          eventType, getDatabaseQueryInstance(reference, modifiers), snapshotFlags, promise);
     }
   }
 
@@ -410,15 +668,28 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
     ReadableArray modifiers = props.getArray("modifiers");
     String path = Objects.requireNonNull(props.getString("path"));
     String eventType = Objects.requireNonNull(props.getString("eventType"));
-    ReadableMap registration = Objects.requireNonNull(props.getMap("registration"));
+    EventRegistration registration =
+        new EventRegistration(Objects.requireNonNull(props.getMap("registration")));
+    ReadableMap options = props.hasKey("options") ? props.getMap("options") : null;
 
     DatabaseReference reference = getDatabaseForApp(app, dbURL).getReference(path);
+    int snapshotFlags = getSnapshotFlags(options);
 
     if (eventType.equals("value")) {
-      addValueEventListener(key, getDatabaseQueryInstance(key, reference, modifiers), registration);
+      addValueEventListener(
+          key,
+          getDatabaseQueryInstance(key, reference, modifiers),
+          registration,
+          options,
+          snapshotFlags);
     } else {
       addChildEventListener(
-          key, eventType, getDatabaseQueryInstance(key, reference, modifiers), registration);
+          key,
+          eventType,
+          getDatabaseQueryInstance(key, reference, modifiers),
+          registration,
+          options,
+          snapshotFlags);
     }
   }
 
@@ -427,16 +698,41 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
   public void off(String queryKey, String eventRegistrationKey) {
     ReactNativeFirebaseDatabaseQuery databaseQuery = queryMap.get(queryKey);
 
+    eventListeners.remove(eventRegistrationKey);
+    cancelEventThrottle(eventRegistrationKey);
+    cancelEventBatcher(eventRegistrationKey);
+
     if (databaseQuery != null) {
+      ValueEventListener valueEventListener =
+          databaseQuery.getValueEventListener(eventRegistrationKey);
+      if (valueEventListener instanceof SharedValueEventListener) {
+        ((SharedValueEventListener) valueEventListener).removeRegistration(eventRegistrationKey);
+      }
+
       databaseQuery.removeEventListener(eventRegistrationKey);
       removeEventListeningExecutor(eventRegistrationKey);
 
       if (!databaseQuery.hasListeners()) {
-        queryMap.remove(queryKey);
+        queryMap.remove(queryKey, databaseQuery);
       }
     }
   }
 
+  /**
+   * Returns stats for every ref().on('*') listener registered natively, flagging any which have
+   * outlived the React context that registered them.
+   *
+   * @param app
+   * @param dbURL
+   * @param promise
+   */
+  @ReactMethod
+  public void listenerStats(String app, String dbURL, Promise promise) {
+    WritableArray stats = Arguments.createArray();
+    eventListeners.addStats(stats);
+    promise.resolve(stats);
+  }
+
   /**
    * ref().keepSynced('*')
    *
@@ -460,4 +756,107 @@ public class ReactNativeFirebaseDatabaseQueryModule extends ReactNativeFirebaseM
     getDatabaseQueryInstance(key, reference, modifiers).query.keepSynced(bool);
     promise.resolve(null);
   }
+
+  private static class ChildEvent {
+    final DataSnapshot dataSnapshot;
+    @Nullable final String previousChildName;
+
+    ChildEvent(DataSnapshot dataSnapshot, @Nullable String previousChildName) {
+      this.dataSnapshot = dataSnapshot;
+      this.previousChildName = previousChildName;
+    }
+  }
+
+  /**
+   * The keys JS registered a ref().on() listener with, read once from the registration map so
+   * events only carry the eventRegistrationKey rather than a copy of the map.
+   */
+  private static final class EventRegistration {
+    final String eventRegistrationKey;
+    final String registrationCancellationKey;
+
+    EventRegistration(ReadableMap registration) {
+      eventRegistrationKey = Objects.requireNonNull(registration.getString("eventRegistrationKey"));
+      registrationCancellationKey =
+          Objects.requireNonNull(registration.getString("registrationCancellationKey"));
+    }
+  }
+
+  /** A value listener sending each snapshot to every registration it is shared by. */
+  private class SharedValueEventListener implements ValueEventListener {
+    final String key;
+    final String sharedKey;
+    final ReactNativeFirebaseDatabaseQuery databaseQuery;
+    final int snapshotFlags;
+    // guarded by sharedValueListeners
+    final List<EventRegistration> registrations = new ArrayList<>();
+    @Nullable DataSnapshot lastSnapshot;
+
+    SharedValueEventListener(
+        String key,
+        String sharedKey,
+        ReactNativeFirebaseDatabaseQuery databaseQuery,
+        int snapshotFlags) {
+      this.key = key;
+      this.sharedKey = sharedKey;
+      this.databaseQuery = databaseQuery;
+      this.snapshotFlags = snapshotFlags;
+    }
+
+    @Override
+    public void onDataChange(@Nonnull DataSnapshot dataSnapshot) {
+      synchronized (sharedValueListeners) {
+        lastSnapshot = dataSnapshot;
+        if (!registrations.isEmpty()) {
+          handleDatabaseEvent(
+              key,
+              "value",
+              new ArrayList<>(registrations),
+              sharedKey,
+              dataSnapshot,
+              null,
+              snapshotFlags);
+        }
+      }
+    }
+
+    @Override
+    public void onCancelled(@Nonnull DatabaseError error) {
+      List<EventRegistration> targets;
+      synchronized (sharedValueListeners) {
+        targets = new ArrayList<>(registrations);
+        registrations.clear();
+        if (sharedValueListeners.get(sharedKey) == this) {
+          sharedValueListeners.remove(sharedKey);
+        }
+      }
+
+      for (EventRegistration registration : targets) {
+        databaseQuery.removeEventListener(registration.eventRegistrationKey);
+        eventListeners.remove(registration.eventRegistrationKey);
+        handleDatabaseEventError(key, registration, error);
+      }
+      removeEventListeningExecutor(sharedKey);
+    }
+
+    void removeRegistration(String eventRegistrationKey) {
+      boolean removed;
+      synchronized (sharedValueListeners) {
+        for (int i = 0; i < registrations.size(); i++) {
+          if (registrations.get(i).eventRegistrationKey.equals(eventRegistrationKey)) {
+            registrations.remove(i);
+            break;
+          }
+        }
+        removed = registrations.isEmpty() && sharedValueListeners.get(sharedKey) == this;
+        if (removed) {
+          sharedValueListeners.remove(sharedKey);
+        }
+      }
+
+      if (removed) {
+        removeEventListeningExecutor(sharedKey);
+      }
+    }
+  }
 }
@@ -19,13 +19,19 @@ package io.invertase.firebase.database;
 
 import static io.invertase.firebase.common.RCTConvertFirebase.toHashMap;
 import static io.invertase.firebase.database.ReactNativeFirebaseDatabaseCommon.rejectPromiseDatabaseException;
+import static io.invertase.firebase.database.ReactNativeFirebaseDatabaseUpdateParser.DEFAULT_MAX_CHUNK_BYTES;
+import static io.invertase.firebase.database.ReactNativeFirebaseDatabaseUpdateParser.parse;
+import static io.invertase.firebase.database.ReactNativeFirebaseDatabaseUpdateParser.parseChunks;
 
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableMap;
+import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import io.invertase.firebase.common.ReactNativeFirebaseModule;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class ReactNativeFirebaseDatabaseReferenceModule extends ReactNativeFirebaseModule {
@@ -37,26 +43,100 @@ public class ReactNativeFirebaseDatabaseReferenceModule extends ReactNativeFireb
     module = new UniversalFirebaseDatabaseReferenceModule(reactContext, SERVICE_NAME);
   }
 
+  /**
+   * Sets props "value", coalesced with the following set() calls on the path for props
+   * "coalesceMs" if set, see ReactNativeFirebaseDatabaseWriteCoalescer.
+   *
+   * @param app
+   * @param dbURL
+   * @param path
+   * @param props
+   * @param promise
+   */
   @ReactMethod
   public void set(String app, String dbURL, String path, ReadableMap props, Promise promise) {
-    Tasks.call(getTransactionalExecutor(), () -> toHashMap(props).get("value"))
-        .onSuccessTask(aValue -> module.set(app, dbURL, path, aValue))
-        .addOnCompleteListener(
-            getTransactionalExecutor(),
-            task -> {
-              if (task.isSuccessful()) {
-                promise.resolve(task.getResult());
-              } else {
-                rejectPromiseDatabaseException(promise, task.getException());
-              }
-            });
+    long coalesceMs =
+        props.hasKey("coalesceMs") && !props.isNull("coalesceMs")
+            ? (long) props.getDouble("coalesceMs")
+            : 0;
+
+    ReactNativeFirebaseDatabaseWriteCoalescer.write(
+        app,
+        dbURL,
+        path,
+        coalesceMs,
+        props,
+        promise,
+        (writeProps, promises) -> {
+          Task<Task<Void>> setTask =
+              Tasks.call(
+                  getTransactionalExecutor(),
+                  () -> module.set(app, dbURL, path, toHashMap(writeProps).get("value")));
+
+          setTask
+              .onSuccessTask(writeTask -> writeTask)
+              .addOnCompleteListener(
+                  getTransactionalExecutor(),
+                  task -> {
+                    for (Promise writePromise : promises) {
+                      if (task.isSuccessful()) {
+                        writePromise.resolve(task.getResult());
+                      } else {
+                        rejectPromiseDatabaseException(writePromise, task.getException());
+                      }
+                    }
+                  });
+          return setTask;
+        });
   }
 
-  @SuppressWarnings("unchecked")
+  /**
+   * Updates the paths in props "values" with a single updateChildren call, or, if props "atomic" is
+   * false, with one call per chunk of about props "maxChunkBytes" (DEFAULT_MAX_CHUNK_BYTES if not
+   * set). Chunks are written as soon as they are parsed and may succeed or fail independently.
+   *
+   * @param app
+   * @param dbURL
+   * @param path
+   * @param props
+   * @param promise
+   */
   @ReactMethod
   public void update(String app, String dbURL, String path, ReadableMap props, Promise promise) {
-    Tasks.call(getTransactionalExecutor(), () -> toHashMap(props).get("values"))
-        .onSuccessTask(aMap -> module.update(app, dbURL, path, (Map<String, Object>) aMap))
+    ReactNativeFirebaseDatabaseWriteCoalescer.flush(app, dbURL, path);
+    Tasks.call(
+            getTransactionalExecutor(),
+            () -> {
+              ReadableMap values = props.getMap("values");
+
+              if (!props.hasKey("atomic") || props.isNull("atomic") || props.getBoolean("atomic")) {
+                return module.update(app, dbURL, path, parse(values));
+              }
+
+              long maxChunkBytes =
+                  props.hasKey("maxChunkBytes") && !props.isNull("maxChunkBytes")
+                      ? (long) props.getDouble("maxChunkBytes")
+                      : DEFAULT_MAX_CHUNK_BYTES;
+              List<Task<Void>> chunkTasks = new ArrayList<>();
+
+              parseChunks(
+                  values,
+                  maxChunkBytes,
+                  chunk -> chunkTasks.add(module.update(app, dbURL, path, chunk)));
+
+              // reject with the first failed chunk's database error, not whenAll's summary
+              return Tasks.whenAll(chunkTasks)
+                  .continueWithTask(
+                      allChunks -> {
+                        for (Task<Void> chunkTask : chunkTasks) {
+                          if (!chunkTask.isSuccessful()) {
+                            return chunkTask;
+                          }
+                        }
+                        return allChunks;
+                      });
+            })
+        .onSuccessTask(updateTask -> updateTask)
         .addOnCompleteListener(
             getTransactionalExecutor(),
             task -> {
@@ -71,10 +151,15 @@ public class ReactNativeFirebaseDatabaseReferenceModule extends ReactNativeFireb
   @ReactMethod
   public void setWithPriority(
       String app, String dbURL, String path, ReadableMap props, Promise promise) {
-    Tasks.call(getTransactionalExecutor(), () -> toHashMap(props))
-        .onSuccessTask(
-            aMap ->
-                module.setWithPriority(app, dbURL, path, aMap.get("value"), aMap.get("priority")))
+    ReactNativeFirebaseDatabaseWriteCoalescer.flush(app, dbURL, path);
+    Tasks.call(
+            getTransactionalExecutor(),
+            () -> {
+              Map<String, Object> aMap = toHashMap(props);
+              return module.setWithPriority(
+                  app, dbURL, path, aMap.get("value"), aMap.get("priority"));
+            })
+        .onSuccessTask(writeTask -> writeTask)
         .addOnCompleteListener(
             getTransactionalExecutor(),
             task -> {
@@ -88,9 +173,10 @@ public class ReactNativeFirebaseDatabaseReferenceModule extends ReactNativeFireb
 
   @ReactMethod
   public void remove(String app, String dbURL, String path, Promise promise) {
-    // continuation tasks not needed for this as no data
-    module
-        .remove(app, dbURL, path)
+    // called on the executor, after the writes flushed before it
+    ReactNativeFirebaseDatabaseWriteCoalescer.flush(app, dbURL, path);
+    Tasks.call(getTransactionalExecutor(), () -> module.remove(app, dbURL, path))
+        .onSuccessTask(writeTask -> writeTask)
         .addOnCompleteListener(
             getTransactionalExecutor(),
             task -> {
@@ -105,9 +191,12 @@ public class ReactNativeFirebaseDatabaseReferenceModule extends ReactNativeFireb
   @ReactMethod
   public void setPriority(
       String app, String dbURL, String path, ReadableMap props, Promise promise) {
-    // continuation tasks not needed for this as minimal data
-    module
-        .setPriority(app, dbURL, path, toHashMap(props).get("priority"))
+    // called on the executor, after the writes flushed before it
+    ReactNativeFirebaseDatabaseWriteCoalescer.flush(app, dbURL, path);
+    Tasks.call(
+            getTransactionalExecutor(),
+            () -> module.setPriority(app, dbURL, path, toHashMap(props).get("priority")))
+        .onSuccessTask(writeTask -> writeTask)
         .addOnCompleteListener(
             getTransactionalExecutor(),
             task -> {
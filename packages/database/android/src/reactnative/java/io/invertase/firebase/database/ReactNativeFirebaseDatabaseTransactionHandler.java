@@ -27,14 +27,18 @@ import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.MutableData;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nullable;
 
+/**
+ * Hands the updates of one transaction attempt from JS to the database thread running
+ * doTransaction. A new handler is created for every attempt, so the latch is a one-shot
+ * rendezvous: an update received before await is called is not lost, and await returns as soon as
+ * it arrives.
+ */
 public class ReactNativeFirebaseDatabaseTransactionHandler {
-  private final ReentrantLock lock;
-  private final Condition condition;
+  private final CountDownLatch updateReceived = new CountDownLatch(1);
   public Object value;
   boolean interrupted;
   boolean abort = false;
@@ -43,59 +47,42 @@ public class ReactNativeFirebaseDatabaseTransactionHandler {
   private String appName;
   private String dbURL;
   private Map<String, Object> data;
-  private boolean signalled;
 
   ReactNativeFirebaseDatabaseTransactionHandler(int id, String app, String url) {
     appName = app;
     dbURL = url;
     transactionId = id;
-    lock = new ReentrantLock();
-    condition = lock.newCondition();
   }
 
   /**
-   * Signal that the transaction data has been received
+   * Signal that the transaction data has been received, ignored if it already has been
    *
    * @param updates
    */
   void signalUpdateReceived(ReadableMap updates) {
     Map<String, Object> updateData = toHashMap(updates);
 
-    lock.lock();
-    value = updateData.get("value");
-    abort = (Boolean) updateData.get("abort");
-
-    try {
-      if (signalled) {
-        throw new IllegalStateException(
-            "This transactionUpdateHandler has already been signalled.");
+    synchronized (this) {
+      if (data != null) {
+        return;
       }
 
-      signalled = true;
+      value = updateData.get("value");
+      abort = (Boolean) updateData.get("abort");
       data = updateData;
-      condition.signalAll();
-    } catch (Exception e) {
-      // do nothing
-    } finally {
-      lock.unlock();
     }
-  }
 
-  /** Wait for signalUpdateReceived to signal condition */
-  void await() throws InterruptedException {
-    lock.lock();
-    signalled = false;
-
-    long timeoutExpired = System.currentTimeMillis() + 5000;
+    updateReceived.countDown();
+  }
 
-    try {
-      while (!timeout && !condition.await(250, TimeUnit.MILLISECONDS) && !signalled) {
-        if (!signalled && System.currentTimeMillis() > timeoutExpired) {
-          timeout = true;
-        }
-      }
-    } finally {
-      lock.unlock();
+  /**
+   * Wait for signalUpdateReceived, setting timeout if it isn't called within timeoutMs
+   *
+   * @param timeoutMs
+   */
+  void await(long timeoutMs) throws InterruptedException {
+    if (!updateReceived.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+      timeout = true;
     }
   }
 
@@ -124,7 +111,7 @@ public class ReactNativeFirebaseDatabaseTransactionHandler {
     } else {
       Object value = castValue(updatesData);
 
-      if (value instanceof WritableNativeArray) {
+      if (value instanceof WritableArray) {
         updatesMap.putArray("value", (WritableArray) value);
       } else {
         updatesMap.putMap("value", (WritableMap) value);
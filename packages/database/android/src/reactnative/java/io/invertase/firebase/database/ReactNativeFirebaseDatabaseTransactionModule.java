@@ -19,8 +19,7 @@ package io.invertase.firebase.database;
 
 import static io.invertase.firebase.database.UniversalFirebaseDatabaseCommon.getDatabaseForApp;
 
-import android.os.AsyncTask;
-import android.util.SparseArray;
+import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableMap;
@@ -28,12 +27,19 @@ import com.facebook.react.bridge.WritableMap;
 import com.google.firebase.database.*;
 import io.invertase.firebase.common.ReactNativeFirebaseEventEmitter;
 import io.invertase.firebase.common.ReactNativeFirebaseModule;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import javax.annotation.Nonnull;
 
 public class ReactNativeFirebaseDatabaseTransactionModule extends ReactNativeFirebaseModule {
   private static final String SERVICE_NAME = "DatabaseTransaction";
-  private static SparseArray<ReactNativeFirebaseDatabaseTransactionHandler> transactionHandlers =
-      new SparseArray<>();
+  private static final long DEFAULT_TRANSACTION_TIMEOUT_MS = 5000;
+  // app name and database URL -> how long a transaction attempt waits for JS to send its updates
+  private static final Map<String, Long> transactionTimeouts = new ConcurrentHashMap<>();
+  // written by database threads, read by transactionTryCommit on the native modules thread
+  private static final Map<Integer, ReactNativeFirebaseDatabaseTransactionHandler>
+      transactionHandlers = new ConcurrentHashMap<>();
 
   ReactNativeFirebaseDatabaseTransactionModule(ReactApplicationContext reactContext) {
     super(reactContext, SERVICE_NAME);
@@ -42,78 +48,167 @@ public class ReactNativeFirebaseDatabaseTransactionModule extends ReactNativeFir
   @ReactMethod
   public void transactionStart(
       String app, String dbURL, String path, int transactionId, Boolean applyLocally) {
-    AsyncTask.execute(
-        () -> {
-          DatabaseReference reference = getDatabaseForApp(app, dbURL).getReference(path);
-
-          reference.runTransaction(
-              new Transaction.Handler() {
-                @Nonnull
-                @Override
-                public Transaction.Result doTransaction(@Nonnull MutableData mutableData) {
-                  final ReactNativeFirebaseDatabaseTransactionHandler transactionHandler =
-                      new ReactNativeFirebaseDatabaseTransactionHandler(transactionId, app, dbURL);
-                  transactionHandlers.put(transactionId, transactionHandler);
-                  final WritableMap updatesMap = transactionHandler.createUpdateMap(mutableData);
-
-                  // emit the updates to js using an async task
-                  // otherwise it gets blocked by the lock await
-                  AsyncTask.execute(
-                      () -> {
-                        ReactNativeFirebaseEventEmitter emitter =
-                            ReactNativeFirebaseEventEmitter.getSharedInstance();
-
-                        emitter.sendEvent(
-                            new ReactNativeFirebaseTransactionEvent(
-                                ReactNativeFirebaseTransactionEvent.EVENT_TRANSACTION,
-                                updatesMap,
-                                app,
-                                transactionId));
-                      });
-
-                  // wait for js to return the updates (js calls transactionTryCommit)
-                  try {
-                    transactionHandler.await();
-                  } catch (InterruptedException e) {
-                    transactionHandler.interrupted = true;
-                    return Transaction.abort();
-                  }
-
-                  if (transactionHandler.abort) {
-                    return Transaction.abort();
-                  }
-
-                  if (transactionHandler.timeout) {
-                    return Transaction.abort();
-                  }
-
-                  mutableData.setValue(transactionHandler.value);
-                  return Transaction.success(mutableData);
-                }
-
-                @Override
-                public void onComplete(
-                    DatabaseError error, boolean committed, DataSnapshot snapshot) {
-                  ReactNativeFirebaseDatabaseTransactionHandler transactionHandler =
-                      transactionHandlers.get(transactionId);
-                  WritableMap resultMap =
-                      transactionHandler.createResultMap(error, committed, snapshot);
-
-                  ReactNativeFirebaseEventEmitter emitter =
-                      ReactNativeFirebaseEventEmitter.getSharedInstance();
-
-                  emitter.sendEvent(
-                      new ReactNativeFirebaseTransactionEvent(
-                          ReactNativeFirebaseTransactionEvent.EVENT_TRANSACTION,
-                          resultMap,
-                          app,
-                          transactionId));
-
-                  transactionHandlers.delete(transactionId);
-                }
-              },
-              applyLocally);
-        });
+    long timeoutMs = getTransactionTimeout(app, dbURL);
+    ExecutorService executor = getExecutor();
+
+    // a transaction reads the values of set() calls still waiting for a window, not older ones
+    ReactNativeFirebaseDatabaseWriteCoalescer.flush(app, dbURL, path)
+        .addOnCompleteListener(
+            executor,
+            flushed -> {
+              DatabaseReference reference = getDatabaseForApp(app, dbURL).getReference(path);
+
+              reference.runTransaction(
+                  new Transaction.Handler() {
+                    @Nonnull
+                    @Override
+                    public Transaction.Result doTransaction(@Nonnull MutableData mutableData) {
+                      final ReactNativeFirebaseDatabaseTransactionHandler transactionHandler =
+                          new ReactNativeFirebaseDatabaseTransactionHandler(
+                              transactionId, app, dbURL);
+                      transactionHandlers.put(transactionId, transactionHandler);
+                      final WritableMap updatesMap =
+                          transactionHandler.createUpdateMap(mutableData);
+
+                      // emit the updates to js from the module executor,
+                      // this database thread is blocked until js replies
+                      executor.execute(
+                          () -> {
+                            ReactNativeFirebaseEventEmitter emitter =
+                                ReactNativeFirebaseEventEmitter.getSharedInstance();
+
+                            emitter.sendEvent(
+                                new ReactNativeFirebaseTransactionEvent(
+                                    ReactNativeFirebaseTransactionEvent.EVENT_TRANSACTION,
+                                    updatesMap,
+                                    app,
+                                    transactionId));
+                          });
+
+                      // wait for js to return the updates (js calls transactionTryCommit)
+                      try {
+                        transactionHandler.await(timeoutMs);
+                      } catch (InterruptedException e) {
+                        transactionHandler.interrupted = true;
+                        return Transaction.abort();
+                      }
+
+                      if (transactionHandler.abort) {
+                        return Transaction.abort();
+                      }
+
+                      if (transactionHandler.timeout) {
+                        return Transaction.abort();
+                      }
+
+                      mutableData.setValue(transactionHandler.value);
+                      return Transaction.success(mutableData);
+                    }
+
+                    @Override
+                    public void onComplete(
+                        DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                      ReactNativeFirebaseDatabaseTransactionHandler transactionHandler =
+                          transactionHandlers.get(transactionId);
+                      WritableMap resultMap =
+                          transactionHandler.createResultMap(error, committed, snapshot);
+
+                      ReactNativeFirebaseEventEmitter emitter =
+                          ReactNativeFirebaseEventEmitter.getSharedInstance();
+
+                      emitter.sendEvent(
+                          new ReactNativeFirebaseTransactionEvent(
+                              ReactNativeFirebaseTransactionEvent.EVENT_TRANSACTION,
+                              resultMap,
+                              app,
+                              transactionId));
+
+                      transactionHandlers.remove(transactionId);
+                    }
+                  },
+                  applyLocally);
+            });
+  }
+
+  /**
+   * Runs a transaction whose update function is the given ReactNativeFirebaseDatabaseTransactionOp,
+   * evaluated on the database thread. No update event is sent to JS, only the result.
+   *
+   * @param app
+   * @param dbURL
+   * @param path
+   * @param transactionId
+   * @param op
+   * @param applyLocally
+   */
+  @ReactMethod
+  public void transactionStartOp(
+      String app,
+      String dbURL,
+      String path,
+      int transactionId,
+      ReadableMap op,
+      Boolean applyLocally) {
+    ReactNativeFirebaseDatabaseTransactionOp transactionOp =
+        new ReactNativeFirebaseDatabaseTransactionOp(op);
+
+    ReactNativeFirebaseDatabaseWriteCoalescer.flush(app, dbURL, path)
+        .addOnCompleteListener(
+            getExecutor(),
+            flushed -> {
+              DatabaseReference reference = getDatabaseForApp(app, dbURL).getReference(path);
+
+              reference.runTransaction(
+                  new Transaction.Handler() {
+                    @Nonnull
+                    @Override
+                    public Transaction.Result doTransaction(@Nonnull MutableData mutableData) {
+                      return transactionOp.apply(mutableData);
+                    }
+
+                    @Override
+                    public void onComplete(
+                        DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                      // only used to build the result, there are no updates to wait for
+                      ReactNativeFirebaseDatabaseTransactionHandler transactionHandler =
+                          new ReactNativeFirebaseDatabaseTransactionHandler(
+                              transactionId, app, dbURL);
+                      WritableMap resultMap =
+                          transactionHandler.createResultMap(error, committed, snapshot);
+
+                      ReactNativeFirebaseEventEmitter emitter =
+                          ReactNativeFirebaseEventEmitter.getSharedInstance();
+
+                      emitter.sendEvent(
+                          new ReactNativeFirebaseTransactionEvent(
+                              ReactNativeFirebaseTransactionEvent.EVENT_TRANSACTION,
+                              resultMap,
+                              app,
+                              transactionId));
+                    }
+                  },
+                  applyLocally);
+            });
+  }
+
+  /**
+   * Sets how long a transaction attempt waits for JS to run the update function before it is
+   * aborted with database/internal-timeout. The database thread is blocked while it waits.
+   *
+   * @param app
+   * @param dbURL
+   * @param timeoutMs
+   * @param promise
+   */
+  @ReactMethod
+  public void setTransactionTimeout(String app, String dbURL, double timeoutMs, Promise promise) {
+    transactionTimeouts.put(app + dbURL, (long) timeoutMs);
+    promise.resolve(null);
+  }
+
+  private static long getTransactionTimeout(String app, String dbURL) {
+    Long timeoutMs = transactionTimeouts.get(app + dbURL);
+    return timeoutMs != null ? timeoutMs : DEFAULT_TRANSACTION_TIMEOUT_MS;
   }
 
   @ReactMethod
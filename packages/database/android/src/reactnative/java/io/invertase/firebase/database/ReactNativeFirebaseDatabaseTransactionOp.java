@@ -0,0 +1,162 @@
+package io.invertase.firebase.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import static io.invertase.firebase.common.RCTConvertFirebase.toHashMap;
+
+import com.facebook.react.bridge.ReadableMap;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A transaction update function evaluated natively in doTransaction, so attempts of common update
+ * patterns don't wait for a round trip to JS. Every op aborts instead of writing when its
+ * precondition doesn't hold for the current value.
+ *
+ * <ul>
+ *   <li>increment: adds delta to a number, or to 0 if there is no value. Aborts if the current
+ *       value isn't a number, or if the result would be below min or above max.
+ *   <li>setIfAbsent: sets value if there is no value.
+ *   <li>appendToList: appends value to a list, or to an empty list if there is no value, dropping
+ *       items from the start of the list to keep at most maxLength. Aborts if the current value
+ *       isn't a list.
+ *   <li>compareAndSet: sets value if the current value equals expected, a primitive or null.
+ * </ul>
+ *
+ * <p>The first attempt sees the locally cached value, null if the path isn't cached. When a
+ * precondition fails on null, the op returns the data unchanged instead of aborting, so the SDK
+ * retries with the server value. If the server value is null too, the transaction commits without
+ * writing.
+ */
+class ReactNativeFirebaseDatabaseTransactionOp {
+  private static final String TYPE_INCREMENT = "increment";
+  private static final String TYPE_SET_IF_ABSENT = "setIfAbsent";
+  private static final String TYPE_APPEND_TO_LIST = "appendToList";
+  private static final String TYPE_COMPARE_AND_SET = "compareAndSet";
+
+  private final String type;
+  private final Object value;
+  private final Object expected;
+  private final double delta;
+  private final double min;
+  private final double max;
+  private final int maxLength;
+
+  ReactNativeFirebaseDatabaseTransactionOp(ReadableMap op) {
+    Map<String, Object> opMap = toHashMap(op);
+
+    type = (String) opMap.get("type");
+    value = opMap.get("value");
+    expected = opMap.get("expected");
+    delta = getNumber(opMap, "delta", 0);
+    min = getNumber(opMap, "min", Double.NEGATIVE_INFINITY);
+    max = getNumber(opMap, "max", Double.POSITIVE_INFINITY);
+    maxLength = (int) getNumber(opMap, "maxLength", Integer.MAX_VALUE);
+  }
+
+  Transaction.Result apply(MutableData mutableData) {
+    Object current = mutableData.getValue();
+
+    switch (type) {
+      case TYPE_INCREMENT:
+        return increment(mutableData, current);
+      case TYPE_SET_IF_ABSENT:
+        if (current != null) {
+          return Transaction.abort();
+        }
+        mutableData.setValue(value);
+        return Transaction.success(mutableData);
+      case TYPE_APPEND_TO_LIST:
+        return appendToList(mutableData, current);
+      case TYPE_COMPARE_AND_SET:
+        if (!primitiveEquals(current, expected)) {
+          return unlessUncached(mutableData, current);
+        }
+        mutableData.setValue(value);
+        return Transaction.success(mutableData);
+      default:
+        return Transaction.abort();
+    }
+  }
+
+  private Transaction.Result increment(MutableData mutableData, Object current) {
+    if (current != null && !(current instanceof Number)) {
+      return Transaction.abort();
+    }
+
+    Number currentNumber = current != null ? (Number) current : 0L;
+    double result = currentNumber.doubleValue() + delta;
+    if (result < min || result > max) {
+      return unlessUncached(mutableData, current);
+    }
+
+    // keep counters integral, the SDK reads whole numbers back as Long
+    if (currentNumber instanceof Long && delta == Math.rint(delta)) {
+      mutableData.setValue(currentNumber.longValue() + (long) delta);
+    } else {
+      mutableData.setValue(result);
+    }
+
+    return Transaction.success(mutableData);
+  }
+
+  private Transaction.Result appendToList(MutableData mutableData, Object current) {
+    if (current != null && !(current instanceof List)) {
+      return Transaction.abort();
+    }
+
+    List<Object> list = new ArrayList<>();
+    if (current != null) {
+      list.addAll((List<?>) current);
+    }
+
+    list.add(value);
+    if (list.size() > maxLength) {
+      list = new ArrayList<>(list.subList(list.size() - maxLength, list.size()));
+    }
+
+    mutableData.setValue(list);
+    return Transaction.success(mutableData);
+  }
+
+  // aborts on a value read from the server, a null may only be the uncached first guess
+  private static Transaction.Result unlessUncached(MutableData mutableData, Object current) {
+    return current == null ? Transaction.success(mutableData) : Transaction.abort();
+  }
+
+  private static boolean primitiveEquals(Object current, Object expected) {
+    if (current == null || expected == null) {
+      return current == expected;
+    }
+
+    // numbers from JS are doubles, the SDK returns whole numbers as Long
+    if (current instanceof Number && expected instanceof Number) {
+      return ((Number) current).doubleValue() == ((Number) expected).doubleValue();
+    }
+
+    return current.equals(expected);
+  }
+
+  private static double getNumber(Map<String, Object> opMap, String key, double defaultValue) {
+    Object number = opMap.get(key);
+    return number instanceof Number ? ((Number) number).doubleValue() : defaultValue;
+  }
+}
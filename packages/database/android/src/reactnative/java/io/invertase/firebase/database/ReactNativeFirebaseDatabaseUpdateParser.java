@@ -0,0 +1,190 @@
+package io.invertase.firebase.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Builds the maps passed to updateChildren straight from the update values sent by JS, instead of
+ * converting them with toHashMap first. The map of paths and arrays are presized, and every value
+ * is read with its typed getter.
+ *
+ * <p>The paths of a non-atomic update are split into chunks of about maxChunkBytes, each handed to
+ * the sink as soon as it is full so it can be written while the rest is parsed. A path whose value
+ * is larger than maxChunkBytes gets a chunk of its own.
+ */
+class ReactNativeFirebaseDatabaseUpdateParser {
+  static final long DEFAULT_MAX_CHUNK_BYTES = 256 * 1024;
+
+  // estimated size of the values read since it was last reset: string and key lengths, and a
+  // fixed size for other values. Only used to bound chunks, it is not the size on the wire.
+  private long parsedBytes = 0;
+
+  private ReactNativeFirebaseDatabaseUpdateParser() {}
+
+  /** Parses the update values into a single map, for an atomic update. */
+  static Map<String, Object> parse(ReadableMap values) {
+    ReactNativeFirebaseDatabaseUpdateParser parser = new ReactNativeFirebaseDatabaseUpdateParser();
+    List<String> paths = getKeys(values);
+    Map<String, Object> update = new HashMap<>(capacityFor(paths.size()));
+
+    for (String path : paths) {
+      update.put(path, parser.readValue(values, path));
+    }
+
+    return update;
+  }
+
+  /**
+   * Parses the update values into maps of about maxChunkBytes, passing each to the sink in order.
+   */
+  static void parseChunks(ReadableMap values, long maxChunkBytes, ChunkSink sink) {
+    ReactNativeFirebaseDatabaseUpdateParser parser = new ReactNativeFirebaseDatabaseUpdateParser();
+    List<String> paths = getKeys(values);
+    Map<String, Object> chunk = new HashMap<>();
+    long chunkBytes = 0;
+
+    for (String path : paths) {
+      parser.parsedBytes = 0;
+      Object value = parser.readValue(values, path);
+      long pathBytes = path.length() + parser.parsedBytes;
+
+      if (!chunk.isEmpty() && chunkBytes + pathBytes > maxChunkBytes) {
+        sink.write(chunk);
+        // the previous chunk's path count is the best guess for the next one
+        chunk = new HashMap<>(capacityFor(chunk.size()));
+        chunkBytes = 0;
+      }
+
+      chunk.put(path, value);
+      chunkBytes += pathBytes;
+    }
+
+    if (!chunk.isEmpty()) {
+      sink.write(chunk);
+    }
+  }
+
+  @Nullable
+  private Object readValue(ReadableMap map, String key) {
+    switch (map.getType(key)) {
+      case Boolean:
+        parsedBytes += 4;
+        return map.getBoolean(key);
+      case Number:
+        parsedBytes += 8;
+        return map.getDouble(key);
+      case String:
+        String string = map.getString(key);
+        parsedBytes += string != null ? string.length() : 0;
+        return string;
+      case Map:
+        return readMap(map.getMap(key));
+      case Array:
+        return readArray(map.getArray(key));
+      default:
+        parsedBytes += 4;
+        return null;
+    }
+  }
+
+  @Nullable
+  private Object readValue(ReadableArray array, int index) {
+    switch (array.getType(index)) {
+      case Boolean:
+        parsedBytes += 4;
+        return array.getBoolean(index);
+      case Number:
+        parsedBytes += 8;
+        return array.getDouble(index);
+      case String:
+        String string = array.getString(index);
+        parsedBytes += string != null ? string.length() : 0;
+        return string;
+      case Map:
+        return readMap(array.getMap(index));
+      case Array:
+        return readArray(array.getArray(index));
+      default:
+        parsedBytes += 4;
+        return null;
+    }
+  }
+
+  @Nullable
+  private Map<String, Object> readMap(@Nullable ReadableMap map) {
+    if (map == null) {
+      return null;
+    }
+
+    // nested values are mostly small objects, collecting their keys to presize costs more
+    Map<String, Object> result = new HashMap<>();
+    ReadableMapKeySetIterator iterator = map.keySetIterator();
+
+    while (iterator.hasNextKey()) {
+      String key = iterator.nextKey();
+      parsedBytes += key.length();
+      result.put(key, readValue(map, key));
+    }
+
+    return result;
+  }
+
+  @Nullable
+  private List<Object> readArray(@Nullable ReadableArray array) {
+    if (array == null) {
+      return null;
+    }
+
+    int size = array.size();
+    List<Object> result = new ArrayList<>(size);
+
+    for (int i = 0; i < size; i++) {
+      result.add(readValue(array, i));
+    }
+
+    return result;
+  }
+
+  private static List<String> getKeys(ReadableMap map) {
+    List<String> keys = new ArrayList<>();
+    ReadableMapKeySetIterator iterator = map.keySetIterator();
+
+    while (iterator.hasNextKey()) {
+      keys.add(iterator.nextKey());
+    }
+
+    return keys;
+  }
+
+  // the HashMap capacity which holds size entries without resizing
+  private static int capacityFor(int size) {
+    return (int) (size / 0.75f) + 1;
+  }
+
+  interface ChunkSink {
+    void write(Map<String, Object> chunk);
+  }
+}
@@ -0,0 +1,207 @@
+package io.invertase.firebase.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import android.os.Handler;
+import android.os.Looper;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableMap;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesces set() calls on the same app, database and path, so only the latest value of a burst
+ * is written ("latest wins").
+ *
+ * <p>A coalesced write made while no window is open for its path is written immediately and opens
+ * a window of coalesceMs. Writes made during the window replace each other, and the latest one is
+ * written when the window closes, opening the next window. The promises of replaced writes are
+ * settled with the result of the write that replaced them. Their values are never converted.
+ *
+ * <p>A write with a coalesceMs of 0 is written immediately, and replaces any write still waiting
+ * for its path, so a plain set() is never overwritten by an earlier coalesced one. Writes still
+ * waiting for a path above or below the path of a write are written before it, as are those for
+ * the path of any other write, see flush.
+ */
+class ReactNativeFirebaseDatabaseWriteCoalescer {
+  private static final Handler handler = new Handler(Looper.getMainLooper());
+  // [app name, database URL, path] -> its open window, guarded by synchronized (windows)
+  private static final Map<List<String>, Window> windows = new HashMap<>();
+
+  private ReactNativeFirebaseDatabaseWriteCoalescer() {}
+
+  /**
+   * Writes props through the writer now or when the window open for the path closes.
+   *
+   * @param app
+   * @param dbURL
+   * @param path
+   * @param coalesceMs how long writes following this one are coalesced, 0 to not coalesce
+   * @param props the props set() received, converted only if written
+   * @param promise
+   * @param writer
+   */
+  static void write(
+      String app,
+      String dbURL,
+      String path,
+      long coalesceMs,
+      ReadableMap props,
+      Promise promise,
+      Writer writer) {
+    List<String> key = Arrays.asList(app, dbURL, normalize(path));
+    List<Promise> promises = new ArrayList<>();
+    promises.add(promise);
+
+    // writers are called holding the lock, so a window closing on the main thread can't hand its
+    // write over after a later one
+    synchronized (windows) {
+      // written first even if this write waits, so the order of the writes is kept
+      flushRelated(key, false);
+      Window window = windows.get(key);
+
+      if (window != null && coalesceMs > 0) {
+        window.pendingProps = props;
+        window.pendingPromises.add(promise);
+        return;
+      }
+
+      if (window != null) {
+        // the writes waiting for the window are replaced by this one
+        promises.addAll(window.pendingPromises);
+        window.pendingProps = null;
+        window.pendingPromises.clear();
+      } else if (coalesceMs > 0) {
+        window = new Window(key, coalesceMs, writer);
+        windows.put(key, window);
+        handler.postDelayed(window::close, coalesceMs);
+      }
+
+      writer.write(props, promises);
+    }
+  }
+
+  /**
+   * Writes the writes waiting for the path, or for a path above or below it, before another kind
+   * of write to it, e.g. update() or remove(), so they can't overwrite it when their window closes.
+   * The windows stay open, later set() calls are still coalesced.
+   *
+   * @param app
+   * @param dbURL
+   * @param path
+   * @return completes once the waiting writes were handed to their writers' SDK calls
+   */
+  static Task<Void> flush(String app, String dbURL, String path) {
+    synchronized (windows) {
+      return flushRelated(Arrays.asList(app, dbURL, normalize(path)), true);
+    }
+  }
+
+  // call holding the lock
+  private static Task<Void> flushRelated(List<String> key, boolean includeSelf) {
+    List<Task<?>> flushed = new ArrayList<>();
+    String path = key.get(2);
+
+    for (Window window : windows.values()) {
+      String windowPath = window.key.get(2);
+      boolean self = window.key.equals(key);
+
+      if (window.pendingProps == null
+          || (self && !includeSelf)
+          || !window.key.subList(0, 2).equals(key.subList(0, 2))
+          || (!self && !isAncestor(windowPath, path) && !isAncestor(path, windowPath))) {
+        continue;
+      }
+
+      flushed.add(window.writePending());
+    }
+
+    return Tasks.whenAll(flushed);
+  }
+
+  // the path without leading or trailing slashes, "" for the root
+  private static String normalize(String path) {
+    int start = 0;
+    int end = path.length();
+
+    while (start < end && path.charAt(start) == '/') {
+      start++;
+    }
+    while (end > start && path.charAt(end - 1) == '/') {
+      end--;
+    }
+
+    return path.substring(start, end);
+  }
+
+  private static boolean isAncestor(String ancestor, String path) {
+    return ancestor.isEmpty() || path.startsWith(ancestor + "/");
+  }
+
+  interface Writer {
+    /**
+     * Writes props, then settles every promise with the result.
+     *
+     * @return completes once props were handed to the SDK, not when the write completes
+     */
+    Task<?> write(ReadableMap props, List<Promise> promises);
+  }
+
+  private static class Window {
+    final List<String> key;
+    final long coalesceMs;
+    final Writer writer;
+    final List<Promise> pendingPromises = new ArrayList<>();
+    ReadableMap pendingProps;
+
+    Window(List<String> key, long coalesceMs, Writer writer) {
+      this.key = key;
+      this.coalesceMs = coalesceMs;
+      this.writer = writer;
+    }
+
+    void close() {
+      synchronized (windows) {
+        if (pendingProps == null) {
+          // nothing was written during the window, so the next write can go out immediately
+          windows.remove(key);
+          return;
+        }
+
+        // the write below opens the next window
+        handler.postDelayed(this::close, coalesceMs);
+        writePending();
+      }
+    }
+
+    // call holding the lock
+    Task<?> writePending() {
+      ReadableMap props = pendingProps;
+      List<Promise> promises = new ArrayList<>(pendingPromises);
+      pendingProps = null;
+      pendingPromises.clear();
+
+      return writer.write(props, promises);
+    }
+  }
+}
@@ -46,6 +46,17 @@ exports.seed = function seed(path) {
   ]);
 };
 
+// writes a value from the test runner, so the app has no cached value for the path
+exports.setOnServer = async function setOnServer(path, value) {
+  const testEnv = await testingUtils.initializeTestEnvironment({
+    projectId: 'react-native-firebase-testing',
+    database: { databaseName: DB_NAME, rules: DB_RULES, host: 'localhost', port: 9000 },
+  });
+
+  await testEnv.withSecurityRulesDisabled(context => context.database().ref(path).set(value));
+  await testEnv.cleanup();
+};
+
 exports.wipe = function wipe(path) {
   return firebase.database().ref(path).remove();
 };
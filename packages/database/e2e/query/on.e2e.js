@@ -92,6 +92,34 @@ describe('database().ref().on()', function () {
     ref.off('value');
   });
 
+  it('should callback every value listener on the same ref', async function () {
+    const callback1 = sinon.spy();
+    const callback2 = sinon.spy();
+    const ref = firebase.database().ref(`${TEST_PATH}/shared`);
+    const value = Date.now();
+    await ref.set(value);
+
+    const listener1 = ref.on('value', $ => {
+      callback1($.val());
+    });
+    await Utils.spyToBeCalledOnceAsync(callback1, 5000);
+
+    // joins the native listener which already received the value
+    ref.on('value', $ => {
+      callback2($.val());
+    });
+    await Utils.spyToBeCalledOnceAsync(callback2, 5000);
+    callback2.should.be.calledWith(value);
+
+    ref.off('value', listener1);
+    await ref.set(value + 1);
+    await Utils.spyToBeCalledTimesAsync(callback2, 2, 5000);
+    callback2.should.be.calledWith(value + 1);
+    callback1.should.be.callCount(1);
+
+    ref.off('value');
+  });
+
   xit('should callback multiple times when the value changes', async function () {
     const callback = sinon.spy();
     const ref = firebase.database().ref(`${TEST_PATH}/changes`);
@@ -242,4 +270,24 @@ describe('database().ref().on()', function () {
     callback.getCall(0).args[0].should.be.eql(jet.contextify({ nuggets: 57 }));
     callback.getCall(1).args[0].should.be.eql(jet.contextify({ nuggets: 61 }));
   });
+
+  it('reports native listener stats', async function () {
+    if (device.getPlatform() !== 'android') {
+      this.skip();
+    }
+
+    const callback = sinon.spy();
+    const ref = firebase.database().ref(`${TEST_PATH}/listenerStats`);
+    await ref.set({ foo: 1, bar: 2 });
+
+    ref.on('value', callback);
+    await Utils.spyToBeCalledOnceAsync(callback);
+
+    const stats = await firebase.database().listenerStats();
+    stats.length.should.be.greaterThan(0);
+    stats.some(listener => listener.events >= 1 && listener.items >= 2).should.be.True();
+    stats.some(listener => listener.leaked).should.be.False();
+
+    ref.off('value');
+  });
 });
@@ -15,7 +15,7 @@
  *
  */
 
-const { PATH, seed, wipe } = require('../helpers');
+const { PATH, seed, setOnServer, wipe } = require('../helpers');
 
 const TEST_PATH = `${PATH}/transaction`;
 const NOOP = () => {};
@@ -213,4 +213,53 @@ describe('database().ref().transaction()', function () {
       );
     });
   });
+
+  describe('transactionOp()', function () {
+    before(function () {
+      if (device.getPlatform() !== 'android') {
+        this.skip();
+      }
+    });
+
+    it('decrements an uncached counter with the server value', async function () {
+      const path = `${TEST_PATH}/transactionOpDecrement`;
+      await setOnServer(path, 1);
+      const ref = firebase.database().ref(path);
+
+      // the first attempt sees null, which is below min once decremented
+      const first = await ref.transactionOp({ type: 'decrement', min: 0 });
+      first.committed.should.equal(true);
+      first.snapshot.val().should.equal(0);
+
+      const second = await ref.transactionOp({ type: 'decrement', min: 0 });
+      second.committed.should.equal(false);
+      second.snapshot.val().should.equal(0);
+    });
+
+    it('compares and sets an uncached value with the server value', async function () {
+      const path = `${TEST_PATH}/transactionOpCompareAndSet`;
+      await setOnServer(path, 'foo');
+      const ref = firebase.database().ref(path);
+
+      const { committed, snapshot } = await ref.transactionOp({
+        type: 'compareAndSet',
+        expected: 'foo',
+        value: 'bar',
+      });
+      committed.should.equal(true);
+      snapshot.val().should.equal('bar');
+    });
+
+    it('commits without writing when there is no server value either', async function () {
+      const ref = firebase.database().ref(`${TEST_PATH}/transactionOpEmpty`);
+
+      const { committed, snapshot } = await ref.transactionOp({
+        type: 'compareAndSet',
+        expected: 'foo',
+        value: 'bar',
+      });
+      committed.should.equal(true);
+      should.equal(snapshot.val(), null);
+    });
+  });
 });
@@ -187,8 +187,10 @@ RCT_EXPORT_METHOD(once
                   : (NSString *)path
                   : (NSArray *)modifiers
                   : (NSString *)eventType
+                  : (NSDictionary *)options
                   : (RCTPromiseResolveBlock)resolve
                   : (RCTPromiseRejectBlock)reject) {
+  // options (omitChildKeys, shallow) are only supported on Android
   FIRDatabase *firDatabase = [RNFBDatabaseCommon getDatabaseForApp:firebaseApp dbURL:dbURL];
   FIRDatabaseReference *firDatabaseReference =
       [RNFBDatabaseCommon getReferenceForDatabase:firDatabase path:path];
@@ -15,7 +15,13 @@
  *
  */
 
-import { isArray, isFunction, isObject, isString } from '@react-native-firebase/app/lib/common';
+import {
+  isArray,
+  isFunction,
+  isObject,
+  isString,
+  isUndefined,
+} from '@react-native-firebase/app/lib/common';
 import { deepGet } from '@react-native-firebase/app/lib/common/deeps';
 
 export default class DatabaseDataSnapshot {
@@ -115,14 +121,20 @@ export default class DatabaseDataSnapshot {
       });
     }
 
-    if (!this._snapshot.childKeys.length) {
+    // childKeys is omitted when listening with the omitChildKeys option
+    let childKeys = this._snapshot.childKeys;
+    if (isUndefined(childKeys)) {
+      childKeys = isObject(this._snapshot.value) ? Object.keys(this._snapshot.value) : [];
+    }
+
+    if (!childKeys.length) {
       return false;
     }
 
     let cancelled = false;
 
-    for (let i = 0; i < this._snapshot.childKeys.length; i++) {
-      const key = this._snapshot.childKeys[i];
+    for (let i = 0; i < childKeys.length; i++) {
+      const key = childKeys[i];
       const snapshot = this.child(key);
       const actionReturn = action(snapshot, i);
 
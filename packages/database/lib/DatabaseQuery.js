@@ -41,6 +41,57 @@ export function provideReferenceClass(databaseReference) {
 // Internal listener count
 let listeners = 0;
 
+function validateSnapshotOptions(method, options) {
+  for (const key of ['omitChildKeys', 'shallow']) {
+    if (!isUndefined(options[key]) && !isBoolean(options[key])) {
+      throw new Error(
+        `firebase.database().ref().${method}(_, _, _, _, *) 'options.${key}' must be a boolean.`,
+      );
+    }
+  }
+}
+
+function validateListenOptions(eventType, options) {
+  if (isUndefined(options)) {
+    return undefined;
+  }
+
+  if (!isObject(options)) {
+    throw new Error("firebase.database().ref().on(_, _, _, _, *) 'options' must be an object.");
+  }
+
+  validateSnapshotOptions('on', options);
+
+  for (const key of ['throttleMs', 'debounceMs', 'batchSize', 'batchMs']) {
+    if (!isUndefined(options[key]) && (!isNumber(options[key]) || options[key] < 0)) {
+      throw new Error(
+        `firebase.database().ref().on(_, _, _, _, *) 'options.${key}' must be a number greater than or equal to 0.`,
+      );
+    }
+  }
+
+  if (eventType !== 'value' && (options.throttleMs || options.debounceMs)) {
+    throw new Error(
+      "firebase.database().ref().on(_, _, _, _, *) 'options.throttleMs' and 'options.debounceMs' are only supported for 'value' events.",
+    );
+  }
+
+  if (eventType === 'value' && (options.batchSize || options.batchMs)) {
+    throw new Error(
+      "firebase.database().ref().on(_, _, _, _, *) 'options.batchSize' and 'options.batchMs' are only supported for child events.",
+    );
+  }
+
+  return {
+    throttleMs: options.throttleMs,
+    debounceMs: options.debounceMs,
+    batchSize: options.batchSize,
+    batchMs: options.batchMs,
+    omitChildKeys: options.omitChildKeys,
+    shallow: options.shallow,
+  };
+}
+
 export default class DatabaseQuery extends ReferenceBase {
   constructor(database, path, modifiers) {
     super(path);
@@ -258,7 +309,7 @@ export default class DatabaseQuery extends ReferenceBase {
    * @param context
    * @return {DatabaseQuery}
    */
-  on(eventType, callback, cancelCallbackOrContext, context) {
+  on(eventType, callback, cancelCallbackOrContext, context, options) {
     if (!eventTypes.includes(eventType)) {
       throw new Error(
         `firebase.database().ref().on(*) 'eventType' must be one of ${eventTypes.join(', ')}.`,
@@ -283,6 +334,8 @@ export default class DatabaseQuery extends ReferenceBase {
       throw new Error("firebase.database().ref().on(_, _, _, *) 'context' must be an object.");
     }
 
+    const listenOptions = validateListenOptions(eventType, options);
+
     const queryKey = this._generateQueryKey();
     const eventRegistrationKey = this._generateQueryEventKey(eventType);
     const registrationCancellationKey = `${eventRegistrationKey}$cancelled`;
@@ -328,6 +381,7 @@ export default class DatabaseQuery extends ReferenceBase {
       appName: this._database.app.name,
       modifiers: this._modifiers.toArray(),
       hasCancellationCallback: isFunction(cancelCallbackOrContext),
+      options: listenOptions,
       registration: {
         eventRegistrationKey,
         key: queryKey,
@@ -347,8 +401,9 @@ export default class DatabaseQuery extends ReferenceBase {
    * @param successCallBack
    * @param failureCallbackOrContext
    * @param context
+   * @param options
    */
-  once(eventType, successCallBack, failureCallbackOrContext, context) {
+  once(eventType, successCallBack, failureCallbackOrContext, context, options) {
     if (!eventTypes.includes(eventType)) {
       throw new Error(
         `firebase.database().ref().once(*) 'eventType' must be one of ${eventTypes.join(', ')}.`,
@@ -375,10 +430,22 @@ export default class DatabaseQuery extends ReferenceBase {
       );
     }
 
+    let onceOptions = null;
+    if (!isUndefined(options)) {
+      if (!isObject(options)) {
+        throw new Error(
+          "firebase.database().ref().once(_, _, _, _, *) 'options' must be an object.",
+        );
+      }
+
+      validateSnapshotOptions('once', options);
+      onceOptions = { omitChildKeys: options.omitChildKeys, shallow: options.shallow };
+    }
+
     const modifiers = this._modifiers._copy().toArray();
 
     return this._database.native
-      .once(this.path, modifiers, eventType)
+      .once(this.path, modifiers, eventType, onceOptions)
       .then(result => {
         let dataSnapshot;
         let previousChildName;
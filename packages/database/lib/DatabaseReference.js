@@ -17,6 +17,7 @@
 
 import {
   generateDatabaseId,
+  isAndroid,
   isBoolean,
   isFunction,
   isNull,
@@ -41,6 +42,69 @@ import DatabaseThenableReference, {
 
 const internalRefs = ['.info/connected', '.info/serverTimeOffset'];
 
+const transactionOpTypes = [
+  'increment',
+  'decrement',
+  'setIfAbsent',
+  'appendToList',
+  'compareAndSet',
+];
+
+/**
+ * Validates a transactionOp() op and returns it in the form evaluated natively,
+ * where a decrement is an increment by a negative delta
+ */
+function toNativeTransactionOp(op) {
+  if (!isObject(op) || !transactionOpTypes.includes(op.type)) {
+    throw new Error(
+      `firebase.database().ref().transactionOp(*) 'op.type' must be one of ${transactionOpTypes.join(', ')}.`,
+    );
+  }
+
+  if (op.type === 'increment' || op.type === 'decrement') {
+    for (const key of ['delta', 'min', 'max']) {
+      if (!isUndefined(op[key]) && !isNumber(op[key])) {
+        throw new Error(
+          `firebase.database().ref().transactionOp(*) 'op.${key}' must be a number if provided.`,
+        );
+      }
+    }
+
+    const delta = isUndefined(op.delta) ? 1 : op.delta;
+    return {
+      type: 'increment',
+      delta: op.type === 'decrement' ? -delta : delta,
+      min: op.min,
+      max: op.max,
+    };
+  }
+
+  if (isUndefined(op.value)) {
+    throw new Error("firebase.database().ref().transactionOp(*) 'op.value' must be defined.");
+  }
+
+  if (op.type === 'appendToList') {
+    if (!isUndefined(op.maxLength) && (!Number.isInteger(op.maxLength) || op.maxLength < 1)) {
+      throw new Error(
+        "firebase.database().ref().transactionOp(*) 'op.maxLength' must be an integer greater than 0 if provided.",
+      );
+    }
+    return { type: op.type, value: op.value, maxLength: op.maxLength };
+  }
+
+  if (op.type === 'compareAndSet') {
+    const { expected } = op;
+    if (!isNull(expected) && !isString(expected) && !isNumber(expected) && !isBoolean(expected)) {
+      throw new Error(
+        "firebase.database().ref().transactionOp(*) 'op.expected' must be a string, number, boolean or null value.",
+      );
+    }
+    return { type: op.type, value: op.value, expected };
+  }
+
+  return { type: op.type, value: op.value };
+}
+
 export default class DatabaseReference extends DatabaseQuery {
   constructor(database, path) {
     // Validate the reference path
@@ -88,7 +152,7 @@ export default class DatabaseReference extends DatabaseQuery {
    * @param value
    * @param onComplete
    */
-  set(value, onComplete) {
+  set(value, onComplete, options) {
     if (isUndefined(value)) {
       throw new Error("firebase.database().ref().set(*) 'value' must be defined.");
     }
@@ -99,7 +163,28 @@ export default class DatabaseReference extends DatabaseQuery {
       );
     }
 
-    return promiseWithOptionalCallback(this._database.native.set(this.path, { value }), onComplete);
+    const props = { value };
+
+    if (!isUndefined(options)) {
+      if (!isObject(options)) {
+        throw new Error("firebase.database().ref().set(_, _, *) 'options' must be an object.");
+      }
+
+      if (
+        !isUndefined(options.coalesceMs) &&
+        (!isNumber(options.coalesceMs) || options.coalesceMs < 0)
+      ) {
+        throw new Error(
+          "firebase.database().ref().set(_, _, *) 'options.coalesceMs' must be a number greater than or equal to 0.",
+        );
+      }
+
+      if (options.coalesceMs) {
+        props.coalesceMs = options.coalesceMs;
+      }
+    }
+
+    return promiseWithOptionalCallback(this._database.native.set(this.path, props), onComplete);
   }
 
   /**
@@ -107,7 +192,7 @@ export default class DatabaseReference extends DatabaseQuery {
    * @param values
    * @param onComplete
    */
-  update(values, onComplete) {
+  update(values, onComplete, options) {
     if (!isObject(values)) {
       throw new Error("firebase.database().ref().update(*) 'values' must be an object.");
     }
@@ -127,10 +212,37 @@ export default class DatabaseReference extends DatabaseQuery {
       );
     }
 
-    return promiseWithOptionalCallback(
-      this._database.native.update(this.path, { values }),
-      onComplete,
-    );
+    const props = { values };
+
+    if (!isUndefined(options)) {
+      if (!isObject(options)) {
+        throw new Error("firebase.database().ref().update(_, _, *) 'options' must be an object.");
+      }
+
+      if (!isUndefined(options.atomic) && !isBoolean(options.atomic)) {
+        throw new Error(
+          "firebase.database().ref().update(_, _, *) 'options.atomic' must be a boolean.",
+        );
+      }
+
+      if (
+        !isUndefined(options.maxChunkBytes) &&
+        (!isNumber(options.maxChunkBytes) || options.maxChunkBytes <= 0)
+      ) {
+        throw new Error(
+          "firebase.database().ref().update(_, _, *) 'options.maxChunkBytes' must be a number greater than 0.",
+        );
+      }
+
+      if (options.atomic === false) {
+        props.atomic = false;
+        if (!isUndefined(options.maxChunkBytes)) {
+          props.maxChunkBytes = options.maxChunkBytes;
+        }
+      }
+    }
+
+    return promiseWithOptionalCallback(this._database.native.update(this.path, props), onComplete);
   }
 
   /**
@@ -228,6 +340,50 @@ export default class DatabaseReference extends DatabaseQuery {
     });
   }
 
+  transactionOp(op, onComplete, applyLocally) {
+    const nativeOp = toNativeTransactionOp(op);
+
+    if (!isUndefined(onComplete) && !isFunction(onComplete)) {
+      throw new Error(
+        "firebase.database().ref().transactionOp(_, *) 'onComplete' must be a function if provided.",
+      );
+    }
+
+    if (!isUndefined(applyLocally) && !isBoolean(applyLocally)) {
+      throw new Error(
+        "firebase.database().ref().transactionOp(_, _, *) 'applyLocally' must be a boolean value if provided.",
+      );
+    }
+
+    if (!isAndroid) {
+      return Promise.reject(
+        new Error('firebase.database().ref().transactionOp() is only supported on Android.'),
+      );
+    }
+
+    return new Promise((resolve, reject) => {
+      const onCompleteWrapper = (error, committed, snapshotData) => {
+        if (isFunction(onComplete)) {
+          if (error) {
+            onComplete(error, committed, null);
+          } else {
+            onComplete(null, committed, new DatabaseDataSnapshot(this, snapshotData));
+          }
+        }
+
+        if (error) {
+          return reject(error);
+        }
+        return resolve({
+          committed,
+          snapshot: new DatabaseDataSnapshot(this, snapshotData),
+        });
+      };
+
+      this._database._transaction.addOp(this, nativeOp, onCompleteWrapper, applyLocally);
+    });
+  }
+
   /**
    * @url https://firebase.google.com/docs/reference/js/firebase.database.Reference#setpriority
    * @param priority
@@ -55,7 +55,8 @@ class DatabaseSyncTree {
    */
   _handleErrorEvent(event) {
     // console.log('SyncTree.ERROR >>>', event);
-    const { eventRegistrationKey, registrationCancellationKey } = event.registration;
+    // Android only sends the registration keys, not the whole registration
+    const { eventRegistrationKey, registrationCancellationKey } = event.registration || event;
 
     const registration = this.getRegistration(registrationCancellationKey);
 
@@ -83,7 +84,16 @@ class DatabaseSyncTree {
    */
   _handleValueEvent(event) {
     // console.log('SyncTree.VALUE >>>', event);
-    const { key, eventRegistrationKey } = event.registration;
+    // Android sends a single event to the registrations sharing a native value listener
+    if (event.eventRegistrationKeys) {
+      const { eventRegistrationKeys, ...sharedEvent } = event;
+      for (let i = 0; i < eventRegistrationKeys.length; i++) {
+        this._handleValueEvent({ ...sharedEvent, eventRegistrationKey: eventRegistrationKeys[i] });
+      }
+      return;
+    }
+
+    const { key, eventRegistrationKey } = event.registration || event;
     const registration = this.getRegistration(eventRegistrationKey);
     // console.log('SyncTree.registration >>>', registration);
 
@@ -95,6 +105,19 @@ class DatabaseSyncTree {
       return this.native.off(key, eventRegistrationKey);
     }
 
+    // child events of listeners with batchSize/batchMs arrive together, in order
+    if (event.batch) {
+      for (let i = 0; i < event.batch.length; i++) {
+        const { snapshot, previousChildName } = event.batch[i];
+        SharedEventEmitter.emit(
+          eventRegistrationKey,
+          new DatabaseDataSnapshot(registration.ref, snapshot),
+          previousChildName,
+        );
+      }
+      return;
+    }
+
     let snapshot;
     let previousChildName;
 
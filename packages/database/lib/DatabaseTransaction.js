@@ -62,6 +62,30 @@ export default class DatabaseTransaction {
     this._database.native.transactionStart(reference.path, id, applyLocally);
   }
 
+  /**
+   * Starts a transaction whose update is evaluated natively, no update events are sent for it
+   *
+   * @param reference
+   * @param op
+   * @param onComplete
+   * @param applyLocally
+   */
+  addOp(reference, op, onComplete, applyLocally = false) {
+    const id = generateTransactionId();
+
+    this._transactions[id] = {
+      id,
+      reference,
+      transactionUpdater: null,
+      onComplete,
+      applyLocally,
+      completed: false,
+      started: true,
+    };
+
+    this._database.native.transactionStartOp(reference.path, id, op, applyLocally);
+  }
+
   /**
    * Returns a transaction by ID
    *
@@ -119,6 +119,64 @@ export namespace FirebaseDatabaseTypes {
     snapshot: DataSnapshot;
   }
 
+  /**
+   * Options for `Reference.set()`, ignored on iOS.
+   */
+  export interface SetOptions {
+    /**
+     * Coalesces rapid `set()` calls on the same location, e.g. presence or cursor updates, so only
+     * the latest value is written. A call made while no window is open is written immediately and
+     * opens a window of `coalesceMs` milliseconds; of the calls made during the window, only the
+     * last is written when it closes. The Promise of a replaced call settles with the result of the
+     * write which replaced it. Replaced values never raise local events. A `set()` without this
+     * option replaces any coalesced call still waiting. Any other write to the location, or to a
+     * location above or below it, writes the waiting call first. `0` (no coalescing) by default.
+     */
+    coalesceMs?: number;
+  }
+
+  /**
+   * Options for `Reference.update()`, ignored on iOS.
+   */
+  export interface UpdateOptions {
+    /**
+     * Set to `false` to write a large fan-out update as several smaller updates of about
+     * `maxChunkBytes` each, instead of one atomic update. Chunks may succeed or fail independently:
+     * if the returned Promise rejects, some of the paths may have been written. `true` by default.
+     */
+    atomic?: boolean;
+
+    /**
+     * The approximate size in bytes of each chunk of a non-atomic update, estimated from the length
+     * of its paths, keys and strings. 262144 (256 KiB) by default.
+     */
+    maxChunkBytes?: number;
+  }
+
+  /**
+   * A transaction update evaluated natively by `transactionOp()`. Every op aborts the transaction
+   * (`committed` is `false`) instead of writing when its condition doesn't hold for the current
+   * value.
+   *
+   * - `increment` / `decrement`: adds or subtracts `delta` (1 by default) to the current number,
+   *   or to 0 if there is no value. Aborts if the current value isn't a number, or if the result
+   *   would be below `min` or above `max`.
+   * - `setIfAbsent`: writes `value` if there is no value.
+   * - `appendToList`: appends `value` to the current list, or to an empty list if there is no
+   *   value, dropping items from its start to keep at most `maxLength`. Aborts if the current value
+   *   isn't a list.
+   * - `compareAndSet`: writes `value` if the current value equals `expected`.
+   *
+   * The first attempt sees no value if the location isn't cached yet, so a condition which fails
+   * for no value doesn't abort: the attempt is retried with the server value, and the transaction
+   * commits without writing if there is still no value.
+   */
+  export type TransactionOp =
+    | { type: 'increment' | 'decrement'; delta?: number; min?: number; max?: number }
+    | { type: 'setIfAbsent'; value: any }
+    | { type: 'appendToList'; value: any; maxLength?: number }
+    | { type: 'compareAndSet'; expected: string | number | boolean | null; value: any };
+
   /**
    * A Reference represents a specific location in your Database and can be used for reading or
    * writing data to that Database location.
@@ -225,8 +283,13 @@ export namespace FirebaseDatabaseTypes {
      *
      * @param value The value to be written (string, number, boolean, object, array, or null).
      * @param onComplete Callback called when write to server is complete. Contains the parameters (Error | null).
+     * @param options Whether to coalesce rapid writes to this location, see `SetOptions`.
      */
-    set(value: any, onComplete?: (error: Error | null) => void): Promise<void>;
+    set(
+      value: any,
+      onComplete?: (error: Error | null) => void,
+      options?: SetOptions,
+    ): Promise<void>;
 
     /**
      * Writes multiple values to the Database at once.
@@ -265,10 +328,12 @@ export namespace FirebaseDatabaseTypes {
      *
      * @param values Object containing multiple values.
      * @param onComplete Callback called when write to server is complete. Contains the parameters (Error | null).
+     * @param options Whether the update must be atomic, see `UpdateOptions`.
      */
     update(
       values: { [key: string]: any },
       onComplete?: (error: Error | null) => void,
+      options?: UpdateOptions,
     ): Promise<void>;
 
     /**
@@ -385,6 +450,31 @@ export namespace FirebaseDatabaseTypes {
       applyLocally?: boolean,
     ): Promise<TransactionResult>;
 
+    /**
+     * Atomically modifies the data at this location like `transaction()`, with an update from a set
+     * of common patterns which is evaluated natively. Retries under contention don't wait for
+     * the JavaScript thread, so prefer it to `transaction()` for counters and similar updates.
+     *
+     * #### Example
+     *
+     * ```js
+     * const { committed } = await firebase
+     *   .database()
+     *   .ref('products/123/stock')
+     *   .transactionOp({ type: 'decrement', min: 0 });
+     * ```
+     *
+     * @param op The update to apply to the current value, see `TransactionOp`.
+     * @param onComplete A callback function called when the transaction completes, see `transaction()`.
+     * @param applyLocally Whether intermediate states raise events, see `transaction()`.
+     * @android Android only - iOS rejects
+     */
+    transactionOp(
+      op: TransactionOp,
+      onComplete?: (error: Error | null, committed: boolean, finalResult: DataSnapshot) => void,
+      applyLocally?: boolean,
+    ): Promise<TransactionResult>;
+
     /**
      * Generates a new child location using a unique key and returns its `Reference`.
      *
@@ -655,6 +745,7 @@ export namespace FirebaseDatabaseTypes {
      * @param callback A callback that fires when the specified event occurs. The callback will be passed a DataSnapshot. For ordering purposes, "child_added", "child_changed", and "child_moved" will also be passed a string containing the key of the previous child, by sort order, or `null` if it is the first child.
      * @param cancelCallbackOrContext An optional callback that will be notified if your event subscription is ever canceled because your client does not have permission to read this data (or it had permission but has now lost it). This callback will be passed an `Error` object indicating why the failure occurred.
      * @param context If provided, this object will be used as `this` when calling your callback(s).
+     * @param options Optional `throttleMs`/`debounceMs` for "value" events, `batchSize`/`batchMs` for child events and snapshot options, see `ListenOptions`.
      *
      */
     on(
@@ -662,6 +753,7 @@ export namespace FirebaseDatabaseTypes {
       callback: (data: DataSnapshot, previousChildKey?: string | null) => void,
       cancelCallbackOrContext?: ((a: Error) => void) | Record<string, any> | null,
       context?: Record<string, any> | null,
+      options?: ListenOptions,
     ): (a: DataSnapshot | null, b?: string | null) => void;
 
     /**
@@ -683,12 +775,16 @@ export namespace FirebaseDatabaseTypes {
      * @param eventType One of the following strings: "value", "child_added", "child_changed", "child_removed", or "child_moved."
      * @param successCallback A callback that fires when the specified event occurs. The callback will be passed a DataSnapshot. For ordering purposes, "child_added", "child_changed", and "child_moved" will also be passed a string containing the key of the previous child by sort order, or `null` if it is the first child.
        @param failureCallbackContext An optional callback that will be notified if your client does not have permission to read the data. This callback will be passed an Error object indicating why the failure occurred.
+     * @param context If provided, this object will be used as `this` when calling your callback.
+     * @param options Optional snapshot options, see `SnapshotOptions`.
      */
 
     once(
       eventType: EventType,
       successCallback?: (a: DataSnapshot, b?: string | null) => any,
       failureCallbackContext?: ((a: Error) => void) | Record<string, any> | null,
+      context?: Record<string, any> | null,
+      options?: SnapshotOptions,
     ): Promise<DataSnapshot>;
 
     /**
@@ -935,6 +1031,61 @@ export namespace FirebaseDatabaseTypes {
     ): Promise<void>;
   }
 
+  /**
+   * Options to reduce the cost of passing large snapshots from native to JavaScript. The SDK still
+   * downloads and caches the whole node, only the serialized snapshot is smaller.
+   *
+   * @android Android only - ignored on iOS
+   */
+  export interface SnapshotOptions {
+    /**
+     * Do not send the ordered list of child keys with the snapshot. `forEach()` then iterates the
+     * children in the order of the value's keys, which is the query order except that integer-like
+     * keys come first in ascending order.
+     */
+    omitChildKeys?: boolean;
+
+    /**
+     * Only serialize the direct children of the snapshot: the value of a child which has children
+     * of its own is `true`, like a shallow REST request. Fetch such a child on demand with
+     * `ref.child(key).once('value')`.
+     */
+    shallow?: boolean;
+  }
+
+  /**
+   * Options to rate limit a "value" listener added with `on()`, or batch the events of a child
+   * listener. Intermediate "value" snapshots are dropped natively before they are serialized, and
+   * the latest snapshot is always delivered.
+   *
+   * @android Android only - ignored on iOS
+   */
+  export interface ListenOptions extends SnapshotOptions {
+    /**
+     * Deliver at most one snapshot every `throttleMs` milliseconds.
+     */
+    throttleMs?: number;
+
+    /**
+     * Deliver a snapshot once no newer snapshot has arrived for `debounceMs` milliseconds. Combined
+     * with `throttleMs`, a snapshot never waits longer than `throttleMs`.
+     */
+    debounceMs?: number;
+
+    /**
+     * Send child events to JavaScript in batches of up to `batchSize` events, e.g. to load a large
+     * list with a few bridge calls rather than one per child. Callbacks are still called once per
+     * event, in order. Only supported for child events.
+     */
+    batchSize?: number;
+
+    /**
+     * Send a partial batch of child events at the latest `batchMs` milliseconds after its first
+     * event. Defaults to 50 when only `batchSize` is set. Only supported for child events.
+     */
+    batchMs?: number;
+  }
+
   export type EventType =
     | 'value'
     | 'child_added'
@@ -1095,6 +1246,42 @@ export namespace FirebaseDatabaseTypes {
     val(): any;
   }
 
+  /**
+   * Describes a native `on()` listener, returned from `firebase.database().listenerStats()`.
+   */
+  export interface ListenerStats {
+    /**
+     * Always `'database'`.
+     */
+    type: 'database';
+
+    /**
+     * The internal event registration key of the listener.
+     */
+    id: string;
+
+    /**
+     * How long ago the listener was registered, in milliseconds.
+     */
+    ageMs: number;
+
+    /**
+     * The number of events sent to JavaScript by the listener.
+     */
+    events: number;
+
+    /**
+     * The number of children carried by `value` events, plus one per child event.
+     */
+    items: number;
+
+    /**
+     * `true` if the listener is still registered although the JavaScript context that registered
+     * it has been destroyed (e.g. by a reload), i.e. it has leaked.
+     */
+    leaked: boolean;
+  }
+
   /**
    *
    * The Firebase Database service is available for the default app or a given app.
@@ -1278,6 +1465,39 @@ export namespace FirebaseDatabaseTypes {
      * @param port: emulator port (eg, 9000)
      */
     useEmulator(host: string, port: number): void;
+
+    /**
+     * Returns every `on()` listener currently registered natively, for all apps and databases, with
+     * its age, the number of events it has sent and whether it has outlived the JavaScript context
+     * that registered it. Use it to find listeners which were never removed with `off()`.
+     *
+     * #### Example
+     *
+     * ```js
+     * const stats = await firebase.database().listenerStats();
+     * const leaked = stats.filter(listener => listener.leaked);
+     * ```
+     *
+     * @android Android only - iOS rejects
+     */
+    listenerStats(): Promise<ListenerStats[]>;
+
+    /**
+     * Sets how long an attempt of a `transaction()` on this database waits for the transaction
+     * update function to run in JavaScript, 5000 milliseconds by default. An attempt which times
+     * out aborts the transaction with a `database/internal-timeout` error. The native database
+     * thread is blocked while an attempt waits, so keep the timeout short.
+     *
+     * #### Example
+     *
+     * ```js
+     * await firebase.database().setTransactionTimeout(2000);
+     * ```
+     *
+     * @param timeoutMs The timeout in milliseconds, greater than 0.
+     * @android Android only - iOS rejects
+     */
+    setTransactionTimeout(timeoutMs: number): Promise<void>;
   }
 }
 
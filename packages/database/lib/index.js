@@ -198,6 +198,32 @@ class FirebaseDatabaseModule extends FirebaseModule {
     this.native.useEmulator(_host, port);
     return [_host, port]; // undocumented return, just used to unit test android host remapping
   }
+
+  listenerStats() {
+    if (!isAndroid) {
+      return Promise.reject(
+        new Error('firebase.database().listenerStats() is only supported on Android.'),
+      );
+    }
+
+    return this.native.listenerStats();
+  }
+
+  setTransactionTimeout(timeoutMs) {
+    if (!isNumber(timeoutMs) || timeoutMs <= 0) {
+      throw new Error(
+        "firebase.database().setTransactionTimeout(*) 'timeoutMs' must be a number greater than 0.",
+      );
+    }
+
+    if (!isAndroid) {
+      return Promise.reject(
+        new Error('firebase.database().setTransactionTimeout() is only supported on Android.'),
+      );
+    }
+
+    return this.native.setTransactionTimeout(timeoutMs);
+  }
 }
 
 // import { SDK_VERSION } from '@react-native-firebase/database';
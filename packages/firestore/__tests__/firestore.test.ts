@@ -41,6 +41,16 @@ describe('Storage', function () {
       }
     });
 
+    it('throws if blobHandleMinBytes is not a number', async function () {
+      try {
+        // @ts-ignore the type is incorrect *on purpose* to test type checking in javascript
+        await firebase.firestore().settings({ blobHandleMinBytes: 'foo' });
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain("'settings.blobHandleMinBytes' must be a number");
+      }
+    });
+
     it('throws if cacheSizeBytes is not a number', async function () {
       try {
         // @ts-ignore the type is incorrect *on purpose* to test type checking in javascript
@@ -353,6 +363,188 @@ describe('Storage', function () {
     });
   });
 
+  describe('loadBundleFromFile()', function () {
+    it('throws if path is not a string', async function () {
+      try {
+        // @ts-ignore the type is incorrect *on purpose* to test type checking in javascript
+        firebase.firestore().loadBundleFromFile(123);
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain("'path' must be a string value");
+      }
+    });
+
+    it('throws if onProgress is not a function', async function () {
+      try {
+        // @ts-ignore the type is incorrect *on purpose* to test type checking in javascript
+        firebase.firestore().loadBundleFromFile('/bundle.txt', 'foo');
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain("'onProgress' must be a function");
+      }
+    });
+  });
+
+  describe('loadBundleFromUrl()', function () {
+    it('throws if url is empty string', async function () {
+      try {
+        firebase.firestore().loadBundleFromUrl('');
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain("'url' must be a non-empty string");
+      }
+    });
+  });
+
+  describe('collection().aggregate()', function () {
+    it('throws if aggregateSpec is empty', async function () {
+      try {
+        firebase.firestore().collection('foo').aggregate({});
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain("'aggregateSpec' must contain at least one aggregation");
+      }
+    });
+
+    it('throws if an aggregateSpec value is not an AggregateField', async function () {
+      try {
+        // @ts-ignore the type is incorrect *on purpose* to test type checking in javascript
+        firebase.firestore().collection('foo').aggregate({ total: 'count' });
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain("'aggregateSpec.total' must be an AggregateField");
+      }
+    });
+
+    it('throws if cacheTtlMs is not a number', async function () {
+      try {
+        firebase
+          .firestore()
+          .collection('foo')
+          // @ts-ignore the type is incorrect *on purpose* to test type checking in javascript
+          .aggregate({ total: firebase.firestore.AggregateField.count() }, { cacheTtlMs: 'foo' });
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain("'options.cacheTtlMs' must be a positive number");
+      }
+    });
+
+    it('throws if sum field is not a string or FieldPath', async function () {
+      try {
+        // @ts-ignore the type is incorrect *on purpose* to test type checking in javascript
+        firebase.firestore.AggregateField.sum(123);
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain("'field' expected a string or FieldPath value");
+      }
+    });
+  });
+
+  describe('collection().get()', function () {
+    it('throws if resultCacheTtlMs is not a positive number', async function () {
+      try {
+        firebase.firestore().collection('foo').get({ source: 'default', resultCacheTtlMs: 0 });
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain(
+          "'options' GetOptions.resultCacheTtlMs must be a positive number",
+        );
+      }
+    });
+
+    it('throws if resultCacheNamespace is not a string', async function () {
+      try {
+        firebase
+          .firestore()
+          .collection('foo')
+          // @ts-ignore the type is incorrect *on purpose* to test type checking in javascript
+          .get({ resultCacheTtlMs: 1000, resultCacheNamespace: 123 });
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain(
+          "'options' GetOptions.resultCacheNamespace must be a string",
+        );
+      }
+    });
+
+    it('throws if onServerError is not a function', async function () {
+      try {
+        firebase
+          .firestore()
+          .collection('foo')
+          // @ts-ignore the type is incorrect *on purpose* to test type checking in javascript
+          .get({ source: 'cacheThenServer', onServerError: 'foo' });
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain("'options' GetOptions.onServerError must be a function");
+      }
+    });
+  });
+
+  describe('doc().get()', function () {
+    it('throws if onServerError is not a function', async function () {
+      try {
+        firebase
+          .firestore()
+          .doc('foo/bar')
+          // @ts-ignore the type is incorrect *on purpose* to test type checking in javascript
+          .get({ source: 'cacheThenServer', onServerError: 'foo' });
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain("'options' GetOptions.onServerError must be a function");
+      }
+    });
+  });
+
+  describe('onSnapshot()', function () {
+    it('throws if throttleMs is not a number', function () {
+      try {
+        firebase
+          .firestore()
+          .doc('foo/bar')
+          // @ts-ignore the type is incorrect *on purpose* to test type checking in javascript
+          .onSnapshot({ includeMetadataChanges: false, throttleMs: 'foo' }, () => {});
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain(
+          "'options' SnapshotOptions.throttleMs must be a number greater than or equal to 0",
+        );
+      }
+    });
+  });
+
+  describe('writeMetrics()', function () {
+    it('throws if reset is not a boolean', function () {
+      try {
+        // @ts-ignore the type is incorrect *on purpose* to test type checking in javascript
+        firebase.firestore().writeMetrics({ reset: 'yes' });
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain("'options.reset' must be a boolean");
+      }
+    });
+  });
+
+  describe('setLowPriorityCollections()', function () {
+    it('throws if a collection id is a path', function () {
+      try {
+        firebase.firestore().setLowPriorityCollections(['users/alice/logs']);
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain("'collectionIds' must only contain collection ids");
+      }
+    });
+
+    it('throws if maxDeferMs is not positive', function () {
+      try {
+        firebase.firestore().setLowPriorityCollections(['logs'], { maxDeferMs: 0 });
+        return Promise.reject(new Error('Did not throw an Error.'));
+      } catch (e: any) {
+        return expect(e.message).toContain("'options.maxDeferMs' must be a positive number");
+      }
+    });
+  });
+
   describe('namedQuery()', function () {
     it('throws if queryName is not a string', async function () {
       try {
@@ -0,0 +1,70 @@
+package io.invertase.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.facebook.react.bridge.WritableMap;
+import com.google.firebase.firestore.DocumentSnapshot;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Serialization of blob-heavy documents with Base64 (-1) or blob handles (0). */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FirestoreBlobBenchmark {
+  @Param({"-1", "0"})
+  public int blobHandleMinBytes;
+
+  @Param({"100", "1000"})
+  public int fieldCount;
+
+  private DocumentSnapshot documentSnapshot;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    ReactNativeFirebaseFirestoreCommon.blobHandleMinBytes = blobHandleMinBytes;
+    documentSnapshot = FirestoreDocumentFixtures.documentSnapshot("blobs", fieldCount);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    ReactNativeFirebaseFirestoreCommon.blobHandleMinBytes = -1;
+    ReactNativeFirebaseFirestoreBlobPool.getSharedInstance().clear();
+  }
+
+  @Benchmark
+  public WritableMap serializeBlobDocument() {
+    return ReactNativeFirebaseFirestoreSerialize.snapshotToWritableMap(
+        FirestoreDocumentFixtures.APP_NAME, documentSnapshot);
+  }
+}
@@ -0,0 +1,166 @@
+package io.invertase.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.SnapshotMetadata;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/** Deterministic document fixtures for the serialization benchmarks. */
+final class FirestoreDocumentFixtures {
+  static final String APP_NAME = "[DEFAULT]";
+
+  private static final int NESTED_FIELDS_PER_LEVEL = 4;
+  private static final int ARRAY_LENGTH = 10;
+  private static final int BLOB_BYTES = 1024;
+
+  private FirestoreDocumentFixtures() {}
+
+  static DocumentSnapshot documentSnapshot(String shape, int fieldCount) {
+    FirebaseFirestore firestore = FirebaseFirestore.getInstance();
+    return new DocumentSnapshot(
+        firestore.document("benchmark/" + shape + "-" + fieldCount),
+        documentData(shape, fieldCount),
+        new SnapshotMetadata(false, false));
+  }
+
+  static Map<String, Object> documentData(String shape, int fieldCount) {
+    Random random = new Random(fieldCount);
+
+    switch (shape) {
+      case "flat":
+        return flat(random, fieldCount);
+      case "nested":
+        return nested(random, fieldCount);
+      case "arrays":
+        return arrays(random, fieldCount);
+      case "blobs":
+        return blobs(random, fieldCount);
+      default:
+        throw new IllegalArgumentException("Unknown fixture shape: " + shape);
+    }
+  }
+
+  /** Every supported scalar type, in rotation. */
+  private static Map<String, Object> flat(Random random, int fieldCount) {
+    Map<String, Object> data = new HashMap<>();
+    for (int i = 0; i < fieldCount; i++) {
+      data.put("field" + i, scalar(random, i));
+    }
+    return data;
+  }
+
+  /** Maps nested NESTED_FIELDS_PER_LEVEL scalars per level, until fieldCount scalars are used. */
+  private static Map<String, Object> nested(Random random, int fieldCount) {
+    Map<String, Object> root = new HashMap<>();
+    Map<String, Object> level = root;
+    int remaining = fieldCount;
+    int depth = 0;
+
+    while (remaining > 0) {
+      for (int i = 0; i < NESTED_FIELDS_PER_LEVEL && remaining > 0; i++, remaining--) {
+        level.put("field" + i, scalar(random, remaining));
+      }
+
+      if (remaining > 0) {
+        Map<String, Object> child = new HashMap<>();
+        level.put("level" + ++depth, child);
+        level = child;
+      }
+    }
+
+    return root;
+  }
+
+  /** Arrays of ARRAY_LENGTH elements, alternating numbers, strings and maps. */
+  private static Map<String, Object> arrays(Random random, int fieldCount) {
+    Map<String, Object> data = new HashMap<>();
+    int arrayCount = Math.max(1, fieldCount / ARRAY_LENGTH);
+
+    for (int i = 0; i < arrayCount; i++) {
+      List<Object> array = new ArrayList<>(ARRAY_LENGTH);
+      for (int j = 0; j < ARRAY_LENGTH; j++) {
+        switch (i % 3) {
+          case 0:
+            array.add(random.nextDouble());
+            break;
+          case 1:
+            array.add("item-" + random.nextInt(10000));
+            break;
+          default:
+            Map<String, Object> element = new HashMap<>();
+            element.put("id", (long) j);
+            element.put("name", "element-" + j);
+            array.add(element);
+        }
+      }
+      data.put("array" + i, array);
+    }
+
+    return data;
+  }
+
+  /** BLOB_BYTES blobs for a tenth of the fields, strings for the rest. */
+  private static Map<String, Object> blobs(Random random, int fieldCount) {
+    Map<String, Object> data = new HashMap<>();
+
+    for (int i = 0; i < fieldCount; i++) {
+      if (i % 10 == 0) {
+        byte[] bytes = new byte[BLOB_BYTES];
+        random.nextBytes(bytes);
+        data.put("blob" + i, Blob.fromBytes(bytes));
+      } else {
+        data.put("field" + i, "value-" + i);
+      }
+    }
+
+    return data;
+  }
+
+  private static Object scalar(Random random, int index) {
+    switch (index % 8) {
+      case 0:
+        return "value-" + random.nextInt(10000);
+      case 1:
+        return (long) random.nextInt();
+      case 2:
+        return random.nextDouble();
+      case 3:
+        return random.nextBoolean();
+      case 4:
+        return null;
+      case 5:
+        return new Timestamp(1600000000L + random.nextInt(1000000), random.nextInt(1000000));
+      case 6:
+        return new GeoPoint(random.nextDouble() * 90, random.nextDouble() * 180);
+      default:
+        DocumentReference reference =
+            FirebaseFirestore.getInstance().document("users/user-" + random.nextInt(1000));
+        return reference;
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package io.invertase.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.google.firebase.firestore.FirebaseFirestore;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Parsing of FieldValue sentinels, as sent by JS for set() and update() writes. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FirestoreFieldValueBenchmark {
+  private static final int INT_DOUBLE = 7;
+  private static final int INT_FIELDVALUE = 15;
+  private static final int FIELDS_PER_TYPE = 20;
+
+  private FirebaseFirestore firestore;
+  private ReadableMap fieldValues;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    firestore = FirebaseFirestore.getInstance();
+
+    WritableMap data = Arguments.createMap();
+    for (int i = 0; i < FIELDS_PER_TYPE; i++) {
+      data.putArray("timestamp" + i, fieldValue("timestamp"));
+      data.putArray("delete" + i, fieldValue("delete"));
+
+      data.putArray("increment" + i, fieldValue("increment"));
+
+      data.putArray("arrayUnion" + i, fieldValue("array_union"));
+      data.putArray("arrayRemove" + i, fieldValue("array_remove"));
+    }
+    fieldValues = data;
+  }
+
+  @Benchmark
+  public Map<String, Object> parseFieldValues() {
+    return ReactNativeFirebaseFirestoreSerialize.parseReadableMap(firestore, fieldValues);
+  }
+
+  private static WritableArray fieldValue(String fieldValueType) {
+    WritableArray fieldValueArray = Arguments.createArray();
+    fieldValueArray.pushString(fieldValueType);
+
+    if ("increment".equals(fieldValueType)) {
+      fieldValueArray.pushDouble(1);
+    } else if (fieldValueType.startsWith("array_")) {
+      WritableArray elements = Arguments.createArray();
+      WritableArray element = Arguments.createArray();
+      element.pushInt(INT_DOUBLE);
+      element.pushDouble(1);
+      elements.pushArray(element);
+      fieldValueArray.pushArray(elements);
+    }
+
+    WritableArray typeArray = Arguments.createArray();
+    typeArray.pushInt(INT_FIELDVALUE);
+    typeArray.pushArray(fieldValueArray);
+    return typeArray;
+  }
+}
@@ -0,0 +1,116 @@
+package io.invertase.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialize and parse round trips through ReactNativeFirebaseFirestoreSerialize. Run with the gc
+ * profiler (the default for the jmh task) to report gc.alloc.rate.norm bytes allocated per op.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FirestoreSerializeBenchmark {
+  private static final int BATCH_WRITES = 10;
+
+  @Param({"flat", "nested", "arrays", "blobs"})
+  public String shape;
+
+  @Param({"10", "100", "1000"})
+  public int fieldCount;
+
+  private FirebaseFirestore firestore;
+  private DocumentSnapshot documentSnapshot;
+  private ReadableMap serializedData;
+  private ReadableArray documentBatches;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    firestore = FirebaseFirestore.getInstance();
+    documentSnapshot = FirestoreDocumentFixtures.documentSnapshot(shape, fieldCount);
+    serializedData =
+        ReactNativeFirebaseFirestoreSerialize.snapshotToWritableMap(
+                FirestoreDocumentFixtures.APP_NAME, documentSnapshot)
+            .getMap("data");
+
+    WritableArray batches = Arguments.createArray();
+    for (int i = 0; i < BATCH_WRITES; i++) {
+      WritableMap write = Arguments.createMap();
+      write.putString("type", "SET");
+      write.putString("path", "benchmark/write-" + i);
+      write.putMap("data", serializedData);
+      WritableMap options = Arguments.createMap();
+      options.putBoolean("merge", true);
+      write.putMap("options", options);
+      batches.pushMap(write);
+    }
+    documentBatches = batches;
+  }
+
+  /** snapshotToWritableMap, which covers objectMapToWritable and buildTypeMap. */
+  @Benchmark
+  public WritableMap serializeDocument() {
+    return ReactNativeFirebaseFirestoreSerialize.snapshotToWritableMap(
+        FirestoreDocumentFixtures.APP_NAME, documentSnapshot);
+  }
+
+  /** parseReadableMap, which covers parseTypeMap and parseReadableArray. */
+  @Benchmark
+  public Map<String, Object> parseDocument() {
+    return ReactNativeFirebaseFirestoreSerialize.parseReadableMap(firestore, serializedData);
+  }
+
+  @Benchmark
+  public Map<String, Object> roundTripDocument() {
+    WritableMap serialized =
+        ReactNativeFirebaseFirestoreSerialize.snapshotToWritableMap(
+            FirestoreDocumentFixtures.APP_NAME, documentSnapshot);
+    return ReactNativeFirebaseFirestoreSerialize.parseReadableMap(
+        firestore, serialized.getMap("data"));
+  }
+
+  @Benchmark
+  public List<ReactNativeFirebaseFirestoreSerialize.DocumentWrite> parseDocumentBatches() {
+    return ReactNativeFirebaseFirestoreSerialize.parseDocumentBatches(firestore, documentBatches);
+  }
+}
@@ -0,0 +1,35 @@
+package com.google.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+/** Stand-in for the Firestore Blob value type, copies bytes in and out like the SDK. */
+public final class Blob {
+  private final byte[] bytes;
+
+  private Blob(byte[] bytes) {
+    this.bytes = bytes;
+  }
+
+  public static Blob fromBytes(byte[] bytes) {
+    return new Blob(bytes.clone());
+  }
+
+  public byte[] toBytes() {
+    return bytes.clone();
+  }
+}
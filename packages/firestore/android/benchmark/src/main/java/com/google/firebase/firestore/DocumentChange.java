@@ -0,0 +1,55 @@
+package com.google.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+/** Stand-in for the Firestore DocumentChange type. */
+public class DocumentChange {
+  public enum Type {
+    ADDED,
+    MODIFIED,
+    REMOVED
+  }
+
+  private final Type type;
+  private final DocumentSnapshot document;
+  private final int oldIndex;
+  private final int newIndex;
+
+  public DocumentChange(DocumentSnapshot document, Type type, int oldIndex, int newIndex) {
+    this.document = document;
+    this.type = type;
+    this.oldIndex = oldIndex;
+    this.newIndex = newIndex;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public DocumentSnapshot getDocument() {
+    return document;
+  }
+
+  public int getOldIndex() {
+    return oldIndex;
+  }
+
+  public int getNewIndex() {
+    return newIndex;
+  }
+}
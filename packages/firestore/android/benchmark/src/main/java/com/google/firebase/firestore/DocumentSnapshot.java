@@ -0,0 +1,58 @@
+package com.google.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/** Stand-in for the Firestore DocumentSnapshot type, backed by an in-memory data map. */
+public class DocumentSnapshot {
+  public enum ServerTimestampBehavior {
+    NONE,
+    ESTIMATE,
+    PREVIOUS
+  }
+
+  private final DocumentReference reference;
+  @Nullable private final Map<String, Object> data;
+  private final SnapshotMetadata metadata;
+
+  public DocumentSnapshot(
+      DocumentReference reference, @Nullable Map<String, Object> data, SnapshotMetadata metadata) {
+    this.reference = reference;
+    this.data = data;
+    this.metadata = metadata;
+  }
+
+  public boolean exists() {
+    return data != null;
+  }
+
+  @Nullable
+  public Map<String, Object> getData(ServerTimestampBehavior serverTimestampBehavior) {
+    return data;
+  }
+
+  public DocumentReference getReference() {
+    return reference;
+  }
+
+  public SnapshotMetadata getMetadata() {
+    return metadata;
+  }
+}
@@ -0,0 +1,52 @@
+package com.google.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+/** Stand-in for the Firestore FieldValue sentinels. */
+public abstract class FieldValue {
+  private static final FieldValue DELETE = new Sentinel("delete");
+  private static final FieldValue SERVER_TIMESTAMP = new Sentinel("serverTimestamp");
+
+  public static FieldValue delete() {
+    return DELETE;
+  }
+
+  public static FieldValue serverTimestamp() {
+    return SERVER_TIMESTAMP;
+  }
+
+  public static FieldValue increment(double operand) {
+    return new Sentinel("increment");
+  }
+
+  public static FieldValue arrayUnion(Object... elements) {
+    return new Sentinel("arrayUnion");
+  }
+
+  public static FieldValue arrayRemove(Object... elements) {
+    return new Sentinel("arrayRemove");
+  }
+
+  private static final class Sentinel extends FieldValue {
+    private final String methodName;
+
+    Sentinel(String methodName) {
+      this.methodName = methodName;
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.google.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.util.List;
+
+/** Stand-in for the Firestore QuerySnapshot type, backed by in-memory documents and changes. */
+public class QuerySnapshot {
+  private final List<DocumentSnapshot> documents;
+  private final List<DocumentChange> documentChanges;
+  private final SnapshotMetadata metadata;
+
+  public QuerySnapshot(
+      List<DocumentSnapshot> documents,
+      List<DocumentChange> documentChanges,
+      SnapshotMetadata metadata) {
+    this.documents = documents;
+    this.documentChanges = documentChanges;
+    this.metadata = metadata;
+  }
+
+  public List<DocumentSnapshot> getDocuments() {
+    return documents;
+  }
+
+  public List<DocumentChange> getDocumentChanges() {
+    return documentChanges;
+  }
+
+  public List<DocumentChange> getDocumentChanges(MetadataChanges metadataChanges) {
+    return documentChanges;
+  }
+
+  public SnapshotMetadata getMetadata() {
+    return metadata;
+  }
+
+  public int size() {
+    return documents.size();
+  }
+}
@@ -0,0 +1,34 @@
+package io.invertase.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+/** Stand-in for the subset of ReactNativeFirebaseFirestoreCommon used by the serializer. */
+class ReactNativeFirebaseFirestoreCommon {
+  // settings.blobHandleMinBytes, set directly by benchmarks
+  static int blobHandleMinBytes = -1;
+
+  static DocumentSnapshot.ServerTimestampBehavior getServerTimestampBehavior(String appName) {
+    return DocumentSnapshot.ServerTimestampBehavior.NONE;
+  }
+
+  static int getBlobHandleMinBytes(String appName) {
+    return blobHandleMinBytes;
+  }
+}
@@ -23,28 +23,48 @@ import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreSettings;
 import com.google.firebase.firestore.Query;
 import io.invertase.firebase.common.UniversalFirebasePreferences;
-import java.lang.ref.WeakReference;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class UniversalFirebaseFirestoreCommon {
-  static WeakHashMap<String, WeakReference<FirebaseFirestore>> instanceCache = new WeakHashMap<>();
+  private static final ConcurrentHashMap<String, FirebaseFirestore> instanceCache =
+      new ConcurrentHashMap<>();
 
   static FirebaseFirestore getFirestoreForApp(String appName) {
-    WeakReference<FirebaseFirestore> cachedInstance = instanceCache.get(appName);
+    FirebaseFirestore cachedInstance = instanceCache.get(appName);
 
     if (cachedInstance != null) {
-      return cachedInstance.get();
+      return cachedInstance;
     }
 
-    FirebaseApp firebaseApp = FirebaseApp.getInstance(appName);
+    // settings can only be applied once per instance, so creation is serialized
+    synchronized (instanceCache) {
+      cachedInstance = instanceCache.get(appName);
 
-    FirebaseFirestore instance = FirebaseFirestore.getInstance(firebaseApp);
+      if (cachedInstance != null) {
+        return cachedInstance;
+      }
 
-    setFirestoreSettings(instance, appName);
+      FirebaseApp firebaseApp = FirebaseApp.getInstance(appName);
 
-    instanceCache.put(appName, new WeakReference<FirebaseFirestore>(instance));
+      FirebaseFirestore instance = FirebaseFirestore.getInstance(firebaseApp);
 
-    return instance;
+      setFirestoreSettings(instance, appName);
+
+      firebaseApp.addLifecycleEventListener(
+          (deletedAppName, options) -> instanceCache.remove(deletedAppName, instance));
+
+      instanceCache.put(appName, instance);
+
+      return instance;
+    }
+  }
+
+  /**
+   * Removes the cached instance for an app, the next getFirestoreForApp call creates a new
+   * instance. Called when the instance is terminated.
+   */
+  static void removeFirestoreForApp(String appName) {
+    instanceCache.remove(appName);
   }
 
   private static void setFirestoreSettings(FirebaseFirestore firebaseFirestore, String appName) {
@@ -18,21 +18,31 @@ package io.invertase.firebase.firestore;
  */
 
 import static io.invertase.firebase.firestore.UniversalFirebaseFirestoreCommon.getFirestoreForApp;
-import static io.invertase.firebase.firestore.UniversalFirebaseFirestoreCommon.instanceCache;
+import static io.invertase.firebase.firestore.UniversalFirebaseFirestoreCommon.removeFirestoreForApp;
 
 import android.content.Context;
+import android.net.Uri;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.LoadBundleTask;
+import com.google.firebase.firestore.LoadBundleTaskProgress;
+import com.google.firebase.firestore.OnProgressListener;
 import io.invertase.firebase.common.UniversalFirebaseModule;
 import io.invertase.firebase.common.UniversalFirebasePreferences;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import javax.annotation.Nullable;
 
 public class UniversalFirebaseFirestoreModule extends UniversalFirebaseModule {
+  private static final int BUNDLE_URL_TIMEOUT_MS = 30000;
 
   private static HashMap<String, String> emulatorConfigs = new HashMap<>();
 
@@ -108,6 +118,18 @@ public class UniversalFirebaseFirestoreModule extends UniversalFirebaseModule {
                     (String) settings.get("serverTimestampBehavior"));
           }
 
+          // settings.blobHandleMinBytes
+          if (settings.containsKey("blobHandleMinBytes")) {
+            Double blobHandleMinBytesDouble = (Double) settings.get("blobHandleMinBytes");
+
+            UniversalFirebasePreferences.getSharedInstance()
+                .setIntValue(
+                    UniversalFirebaseFirestoreStatics.FIRESTORE_BLOB_HANDLE_MIN_BYTES
+                        + "_"
+                        + appName,
+                    Objects.requireNonNull(blobHandleMinBytesDouble).intValue());
+          }
+
           return null;
         });
   }
@@ -117,6 +139,68 @@ public class UniversalFirebaseFirestoreModule extends UniversalFirebaseModule {
     return getFirestoreForApp(appName).loadBundle(bundleData);
   }
 
+  /**
+   * Streams a bundle from a local file into Firestore, the bundle is never fully held in memory.
+   *
+   * @param appName String
+   * @param path Absolute file path or file:// uri
+   * @param progressListener Optional progress listener
+   * @return Task<LoadBundleTaskProgress>
+   */
+  Task<LoadBundleTaskProgress> loadBundleFromFile(
+      String appName,
+      String path,
+      @Nullable OnProgressListener<LoadBundleTaskProgress> progressListener) {
+    return Tasks.call(
+        getExecutor(),
+        () -> {
+          String filePath = path.startsWith("file://") ? Uri.parse(path).getPath() : path;
+          try (InputStream bundleStream =
+              new BufferedInputStream(new FileInputStream(Objects.requireNonNull(filePath)))) {
+            return loadBundleStream(appName, bundleStream, progressListener);
+          }
+        });
+  }
+
+  /**
+   * Streams a bundle from a remote url into Firestore, the bundle is never fully held in memory.
+   *
+   * @param appName String
+   * @param url Remote bundle url
+   * @param progressListener Optional progress listener
+   * @return Task<LoadBundleTaskProgress>
+   */
+  Task<LoadBundleTaskProgress> loadBundleFromUrl(
+      String appName,
+      String url,
+      @Nullable OnProgressListener<LoadBundleTaskProgress> progressListener) {
+    return Tasks.call(
+        getExecutor(),
+        () -> {
+          URLConnection connection = new URL(url).openConnection();
+          connection.setConnectTimeout(BUNDLE_URL_TIMEOUT_MS);
+          connection.setReadTimeout(BUNDLE_URL_TIMEOUT_MS);
+          try (InputStream bundleStream = new BufferedInputStream(connection.getInputStream())) {
+            return loadBundleStream(appName, bundleStream, progressListener);
+          }
+        });
+  }
+
+  private LoadBundleTaskProgress loadBundleStream(
+      String appName,
+      InputStream bundleStream,
+      @Nullable OnProgressListener<LoadBundleTaskProgress> progressListener)
+      throws Exception {
+    LoadBundleTask loadBundleTask = getFirestoreForApp(appName).loadBundle(bundleStream);
+
+    if (progressListener != null) {
+      loadBundleTask.addOnProgressListener(progressListener);
+    }
+
+    // the stream must stay open until firestore has consumed it
+    return Tasks.await(loadBundleTask);
+  }
+
   Task<Void> clearPersistence(String appName) {
     return getFirestoreForApp(appName).clearPersistence();
   }
@@ -128,10 +212,7 @@ public class UniversalFirebaseFirestoreModule extends UniversalFirebaseModule {
   Task<Void> terminate(String appName) {
     FirebaseFirestore firebaseFirestore = getFirestoreForApp(appName);
 
-    if (instanceCache.get(appName) != null) {
-      instanceCache.get(appName).clear();
-      instanceCache.remove(appName);
-    }
+    removeFirestoreForApp(appName);
 
     return firebaseFirestore.terminate();
   }
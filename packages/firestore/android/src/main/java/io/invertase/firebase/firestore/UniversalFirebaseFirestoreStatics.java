@@ -24,4 +24,5 @@ public class UniversalFirebaseFirestoreStatics {
   public static String FIRESTORE_SSL = "firebase_firestore_ssl";
   public static String FIRESTORE_SERVER_TIMESTAMP_BEHAVIOR =
       "firebase_firestore_server_timestamp_behavior";
+  public static String FIRESTORE_BLOB_HANDLE_MIN_BYTES = "firebase_firestore_blob_handle_min_bytes";
 }
@@ -0,0 +1,93 @@
+package io.invertase.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateQuery;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches server aggregation results per AggregateQuery (which compares by query and aggregate
+ * fields) for a caller provided TTL. Concurrent identical requests share a single server call.
+ */
+class ReactNativeFirebaseFirestoreAggregateCache {
+  private static final int MAX_ENTRIES = 64;
+
+  private final ReactNativeFirebaseFirestoreSingleFlight<AggregateQuery, AggregateQuerySnapshot>
+      singleFlight = new ReactNativeFirebaseFirestoreSingleFlight<>();
+
+  private final Map<AggregateQuery, CachedSnapshot> snapshots =
+      new LinkedHashMap<AggregateQuery, CachedSnapshot>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<AggregateQuery, CachedSnapshot> eldest) {
+          return size() > MAX_ENTRIES;
+        }
+      };
+
+  Task<AggregateQuerySnapshot> get(AggregateQuery aggregateQuery, long cacheTtlMs) {
+    if (cacheTtlMs > 0) {
+      synchronized (snapshots) {
+        CachedSnapshot cachedSnapshot = snapshots.get(aggregateQuery);
+        if (cachedSnapshot != null) {
+          if (cachedSnapshot.expiresAt > System.currentTimeMillis()) {
+            return Tasks.forResult(cachedSnapshot.snapshot);
+          }
+          snapshots.remove(aggregateQuery);
+        }
+      }
+    }
+
+    return singleFlight.execute(
+        aggregateQuery,
+        () ->
+            aggregateQuery
+                .get(AggregateSource.SERVER)
+                .addOnSuccessListener(
+                    Runnable::run,
+                    snapshot -> {
+                      if (cacheTtlMs > 0) {
+                        synchronized (snapshots) {
+                          snapshots.put(
+                              aggregateQuery,
+                              new CachedSnapshot(
+                                  snapshot, System.currentTimeMillis() + cacheTtlMs));
+                        }
+                      }
+                    }));
+  }
+
+  void clear() {
+    synchronized (snapshots) {
+      snapshots.clear();
+    }
+  }
+
+  private static class CachedSnapshot {
+    final AggregateQuerySnapshot snapshot;
+    final long expiresAt;
+
+    CachedSnapshot(AggregateQuerySnapshot snapshot, long expiresAt) {
+      this.snapshot = snapshot;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
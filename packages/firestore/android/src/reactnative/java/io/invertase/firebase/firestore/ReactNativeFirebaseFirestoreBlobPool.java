@@ -0,0 +1,181 @@
+package io.invertase.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Holds Blob bytes sent to JS as handles instead of inline Base64 strings. Identical bytes share a
+ * single reference counted entry. The pool never holds more than MAX_POOL_BYTES: entries whose
+ * every reference was released are kept for identical bytes read later, and evicted in least
+ * recently used order to make room. New bytes which don't fit beside the entries JS still
+ * references get no handle, and are sent as Base64 instead.
+ */
+class ReactNativeFirebaseFirestoreBlobPool {
+  static final long MAX_POOL_BYTES = 32 * 1024 * 1024;
+  // returned by retain(byte[]) when the bytes don't fit in the pool, handles start at 1
+  static final int NO_HANDLE = 0;
+
+  private static final ReactNativeFirebaseFirestoreBlobPool sharedInstance =
+      new ReactNativeFirebaseFirestoreBlobPool();
+
+  // access ordered, iteration starts with the least recently used entry
+  private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final HashMap<Content, Entry> entriesByContent = new HashMap<>();
+  private int nextHandle = 1;
+  private long pooledBytes = 0;
+  // bytes of the entries JS released every reference to, the only ones that can be evicted
+  private long releasedBytes = 0;
+
+  static ReactNativeFirebaseFirestoreBlobPool getSharedInstance() {
+    return sharedInstance;
+  }
+
+  /**
+   * Adds a reference to the entry for these bytes, creating it if needed, returns its handle or
+   * NO_HANDLE if the pool is full of referenced entries.
+   */
+  synchronized int retain(byte[] bytes) {
+    Content content = new Content(bytes);
+    Entry entry = entriesByContent.get(content);
+
+    if (entry == null) {
+      evictOverflow(bytes.length);
+      if (pooledBytes + bytes.length > MAX_POOL_BYTES) {
+        return NO_HANDLE;
+      }
+
+      entry = new Entry(nextHandle++, content);
+      entries.put(entry.handle, entry);
+      entriesByContent.put(content, entry);
+      pooledBytes += bytes.length;
+    } else {
+      // touch for least recently used ordering
+      entries.get(entry.handle);
+      if (entry.references == 0) {
+        releasedBytes -= bytes.length;
+      }
+    }
+
+    entry.references++;
+    return entry.handle;
+  }
+
+  /**
+   * Adds a reference to an entry JS already holds a handle to, for each extra copy of a result
+   * sent to JS, so every copy can be released on its own.
+   */
+  synchronized void retain(int handle) {
+    Entry entry = entries.get(handle);
+
+    if (entry != null && entry.references > 0) {
+      entry.references++;
+    }
+  }
+
+  /** Returns the bytes for a handle without copying them, or null if released. */
+  @Nullable
+  synchronized byte[] getBytes(int handle) {
+    Entry entry = entries.get(handle);
+    return entry == null || entry.references <= 0 ? null : entry.content.bytes;
+  }
+
+  synchronized void release(int handle) {
+    Entry entry = entries.get(handle);
+
+    if (entry != null && entry.references > 0 && --entry.references == 0) {
+      releasedBytes += entry.content.bytes.length;
+    }
+  }
+
+  synchronized boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  synchronized void clear() {
+    entries.clear();
+    entriesByContent.clear();
+    pooledBytes = 0;
+    releasedBytes = 0;
+  }
+
+  // evicts released entries until there is room for extraBytes, or none are left
+  private void evictOverflow(long extraBytes) {
+    Iterator<Map.Entry<Integer, Entry>> iterator = entries.entrySet().iterator();
+
+    while (pooledBytes + extraBytes > MAX_POOL_BYTES && releasedBytes > 0 && iterator.hasNext()) {
+      Entry entry = iterator.next().getValue();
+      if (entry.references <= 0) {
+        iterator.remove();
+        entriesByContent.remove(entry.content);
+        pooledBytes -= entry.content.bytes.length;
+        releasedBytes -= entry.content.bytes.length;
+      }
+    }
+  }
+
+  private static class Entry {
+    final int handle;
+    final Content content;
+    int references = 0;
+
+    Entry(int handle, Content content) {
+      this.handle = handle;
+      this.content = content;
+    }
+  }
+
+  /**
+   * Compares blob bytes by content. The hash only samples up to HASH_SAMPLES bytes so hashing
+   * large blobs stays cheap, equality still compares every byte.
+   */
+  private static class Content {
+    private static final int HASH_SAMPLES = 64;
+
+    final byte[] bytes;
+    final int hash;
+
+    Content(byte[] bytes) {
+      this.bytes = bytes;
+
+      int sampledHash = bytes.length;
+      int step = Math.max(1, bytes.length / HASH_SAMPLES);
+      for (int i = 0; i < bytes.length; i += step) {
+        sampledHash = 31 * sampledHash + bytes[i];
+      }
+      this.hash = sampledHash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Content
+          && hash == ((Content) other).hash
+          && Arrays.equals(bytes, ((Content) other).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
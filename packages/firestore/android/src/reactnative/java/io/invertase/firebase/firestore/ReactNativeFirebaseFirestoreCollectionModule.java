@@ -17,37 +17,60 @@ package io.invertase.firebase.firestore;
  *
  */
 
+import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.getBlobHandleMinBytes;
+import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.getDeduplicated;
+import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.getServerTimestampBehavior;
+import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.isCacheThenServerSource;
 import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.rejectPromiseFirestoreException;
+import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.snapshotContentEquals;
+import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreQueryResultCache.getCollectionId;
+import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreQueryResultCache.getQuerySignature;
 import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreSerialize.snapshotToWritableMap;
 import static io.invertase.firebase.firestore.UniversalFirebaseFirestoreCommon.getFirestoreForApp;
 import static io.invertase.firebase.firestore.UniversalFirebaseFirestoreCommon.getQueryForFirestore;
 
-import android.util.SparseArray;
 import com.facebook.react.bridge.*;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.*;
 import io.invertase.firebase.common.ReactNativeFirebaseEventEmitter;
+import io.invertase.firebase.common.ReactNativeFirebaseEventThrottle;
+import io.invertase.firebase.common.ReactNativeFirebaseListenerRegistry;
 import io.invertase.firebase.common.ReactNativeFirebaseModule;
+import io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreQueryResultCache.LazyQuerySignature;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
 
 public class ReactNativeFirebaseFirestoreCollectionModule extends ReactNativeFirebaseModule {
   private static final String SERVICE_NAME = "FirestoreCollection";
-  private static SparseArray<ListenerRegistration> collectionSnapshotListeners =
-      new SparseArray<>();
+  private static final ReactNativeFirebaseListenerRegistry<Integer, ListenerRegistration>
+      collectionSnapshotListeners = new ReactNativeFirebaseListenerRegistry<>("query");
+  private final ReactNativeFirebaseFirestoreAggregateCache aggregateCache =
+      new ReactNativeFirebaseFirestoreAggregateCache();
+
+  private final ReactNativeFirebaseFirestoreQueryResultCache resultCache;
 
   ReactNativeFirebaseFirestoreCollectionModule(ReactApplicationContext reactContext) {
     super(reactContext, SERVICE_NAME);
+    resultCache = ReactNativeFirebaseFirestoreQueryResultCache.getSharedInstance(reactContext);
   }
 
   @Override
   public void onCatalystInstanceDestroy() {
     super.onCatalystInstanceDestroy();
+    collectionSnapshotListeners.reportLeaks(getReactApplicationContext());
 
-    for (int i = 0, size = collectionSnapshotListeners.size(); i < size; i++) {
-      int key = collectionSnapshotListeners.keyAt(i);
-      ListenerRegistration listenerRegistration = collectionSnapshotListeners.get(key);
+    for (ListenerRegistration listenerRegistration :
+        collectionSnapshotListeners.removeAllOwnedBy(getReactApplicationContext())) {
       listenerRegistration.remove();
     }
-    collectionSnapshotListeners.clear();
+  }
+
+  static void addListenerStats(WritableArray stats) {
+    collectionSnapshotListeners.addStats(stats);
   }
 
   @ReactMethod
@@ -60,13 +83,13 @@ public class ReactNativeFirebaseFirestoreCollectionModule extends ReactNativeFir
       ReadableMap options,
       int listenerId,
       ReadableMap listenerOptions) {
-    if (collectionSnapshotListeners.get(listenerId) != null) {
+    if (collectionSnapshotListeners.contains(listenerId)) {
       return;
     }
 
     FirebaseFirestore firebaseFirestore = getFirestoreForApp(appName);
-    firebaseFirestore
-        .getNamedQuery(queryName)
+    ReactNativeFirebaseFirestoreNamedQueryCache.getNamedQuery(
+            appName, firebaseFirestore, queryName)
         .addOnCompleteListener(
             task -> {
               if (task.isSuccessful()) {
@@ -77,7 +100,11 @@ public class ReactNativeFirebaseFirestoreCollectionModule extends ReactNativeFir
                   ReactNativeFirebaseFirestoreQuery firestoreQuery =
                       new ReactNativeFirebaseFirestoreQuery(
                           appName, query, filters, orders, options);
-                  handleQueryOnSnapshot(firestoreQuery, appName, listenerId, listenerOptions);
+                  LazyQuerySignature querySignature =
+                      new LazyQuerySignature(
+                          appName, null, "namedQuery:" + queryName, type, filters, orders, options);
+                  handleQueryOnSnapshot(
+                      firestoreQuery, querySignature, appName, listenerId, listenerOptions);
                 }
               } else {
                 sendOnSnapshotError(appName, listenerId, task.getException());
@@ -95,7 +122,7 @@ public class ReactNativeFirebaseFirestoreCollectionModule extends ReactNativeFir
       ReadableMap options,
       int listenerId,
       ReadableMap listenerOptions) {
-    if (collectionSnapshotListeners.get(listenerId) != null) {
+    if (collectionSnapshotListeners.contains(listenerId)) {
       return;
     }
 
@@ -103,16 +130,24 @@ public class ReactNativeFirebaseFirestoreCollectionModule extends ReactNativeFir
     ReactNativeFirebaseFirestoreQuery firestoreQuery =
         new ReactNativeFirebaseFirestoreQuery(
             appName, getQueryForFirestore(firebaseFirestore, path, type), filters, orders, options);
-
-    handleQueryOnSnapshot(firestoreQuery, appName, listenerId, listenerOptions);
+    LazyQuerySignature querySignature =
+        new LazyQuerySignature(
+            appName,
+            getCollectionId(path, type),
+            "collection:" + path,
+            type,
+            filters,
+            orders,
+            options);
+
+    handleQueryOnSnapshot(firestoreQuery, querySignature, appName, listenerId, listenerOptions);
   }
 
   @ReactMethod
   public void collectionOffSnapshot(String appName, int listenerId) {
-    ListenerRegistration listenerRegistration = collectionSnapshotListeners.get(listenerId);
+    ListenerRegistration listenerRegistration = collectionSnapshotListeners.remove(listenerId);
     if (listenerRegistration != null) {
       listenerRegistration.remove();
-      collectionSnapshotListeners.remove(listenerId);
       removeEventListeningExecutor(Integer.toString(listenerId));
     }
   }
@@ -128,8 +163,8 @@ public class ReactNativeFirebaseFirestoreCollectionModule extends ReactNativeFir
       ReadableMap getOptions,
       Promise promise) {
     FirebaseFirestore firebaseFirestore = getFirestoreForApp(appName);
-    firebaseFirestore
-        .getNamedQuery(queryName)
+    ReactNativeFirebaseFirestoreNamedQueryCache.getNamedQuery(
+            appName, firebaseFirestore, queryName)
         .addOnCompleteListener(
             task -> {
               if (task.isSuccessful()) {
@@ -140,7 +175,18 @@ public class ReactNativeFirebaseFirestoreCollectionModule extends ReactNativeFir
                   ReactNativeFirebaseFirestoreQuery firestoreQuery =
                       new ReactNativeFirebaseFirestoreQuery(
                           appName, query, filters, orders, options);
-                  handleQueryGet(firestoreQuery, getSource(getOptions), promise);
+                  String querySignature =
+                      getResultCacheTtlMs(getOptions) > 0
+                          ? getQuerySignature(
+                              appName,
+                              null,
+                              "namedQuery:" + queryName,
+                              type,
+                              filters,
+                              orders,
+                              options)
+                          : null;
+                  handleQueryGet(firestoreQuery, querySignature, getOptions, promise);
                 }
               } else {
                 rejectPromiseFirestoreException(promise, task.getException());
@@ -178,6 +224,75 @@ public class ReactNativeFirebaseFirestoreCollectionModule extends ReactNativeFir
             });
   }
 
+  @ReactMethod
+  public void collectionAggregate(
+      String appName,
+      String path,
+      String type,
+      ReadableArray filters,
+      ReadableArray orders,
+      ReadableMap options,
+      ReadableArray aggregates,
+      ReadableMap aggregateOptions,
+      Promise promise) {
+    // Query.aggregate takes at least one field
+    if (aggregates.size() == 0) {
+      rejectPromiseWithCodeAndMessage(
+          promise, "invalid-argument", "An aggregation query requires at least one aggregation.");
+      return;
+    }
+
+    FirebaseFirestore firebaseFirestore = getFirestoreForApp(appName);
+    ReactNativeFirebaseFirestoreQuery firestoreQuery =
+        new ReactNativeFirebaseFirestoreQuery(
+            appName, getQueryForFirestore(firebaseFirestore, path, type), filters, orders, options);
+
+    List<String> keys = new ArrayList<>(aggregates.size());
+    List<AggregateField> aggregateFields = new ArrayList<>(aggregates.size());
+
+    for (int i = 0; i < aggregates.size(); i++) {
+      ReadableMap aggregate = Objects.requireNonNull(aggregates.getMap(i));
+      keys.add(aggregate.getString("key"));
+      aggregateFields.add(getAggregateField(aggregate));
+    }
+
+    // all aggregations are sent to the server as a single AggregateQuery
+    AggregateQuery aggregateQuery =
+        firestoreQuery.query.aggregate(
+            aggregateFields.get(0),
+            aggregateFields
+                .subList(1, aggregateFields.size())
+                .toArray(new AggregateField[aggregateFields.size() - 1]));
+
+    long cacheTtlMs = 0;
+    if (aggregateOptions != null && aggregateOptions.hasKey("cacheTtlMs")) {
+      cacheTtlMs = (long) aggregateOptions.getDouble("cacheTtlMs");
+    }
+
+    aggregateCache
+        .get(aggregateQuery, cacheTtlMs)
+        .addOnCompleteListener(
+            task -> {
+              if (task.isSuccessful()) {
+                AggregateQuerySnapshot snapshot = task.getResult();
+                WritableMap result = Arguments.createMap();
+
+                for (int i = 0; i < keys.size(); i++) {
+                  Object value = snapshot.get(aggregateFields.get(i));
+                  if (value instanceof Number) {
+                    result.putDouble(keys.get(i), ((Number) value).doubleValue());
+                  } else {
+                    result.putNull(keys.get(i));
+                  }
+                }
+
+                promise.resolve(result);
+              } else {
+                rejectPromiseFirestoreException(promise, task.getException());
+              }
+            });
+  }
+
   @ReactMethod
   public void collectionGet(
       String appName,
@@ -192,11 +307,23 @@ public class ReactNativeFirebaseFirestoreCollectionModule extends ReactNativeFir
     ReactNativeFirebaseFirestoreQuery firestoreQuery =
         new ReactNativeFirebaseFirestoreQuery(
             appName, getQueryForFirestore(firebaseFirestore, path, type), filters, orders, options);
-    handleQueryGet(firestoreQuery, getSource(getOptions), promise);
+    String querySignature =
+        getResultCacheTtlMs(getOptions) > 0
+            ? getQuerySignature(
+                appName,
+                getCollectionId(path, type),
+                "collection:" + path,
+                type,
+                filters,
+                orders,
+                options)
+            : null;
+    handleQueryGet(firestoreQuery, querySignature, getOptions, promise);
   }
 
   private void handleQueryOnSnapshot(
       ReactNativeFirebaseFirestoreQuery firestoreQuery,
+      LazyQuerySignature querySignature,
       String appName,
       int listenerId,
       ReadableMap listenerOptions) {
@@ -210,30 +337,82 @@ public class ReactNativeFirebaseFirestoreCollectionModule extends ReactNativeFir
       metadataChanges = MetadataChanges.EXCLUDE;
     }
 
+    // drops intermediate snapshots before they are serialized if throttleMs/debounceMs are set
+    ReactNativeFirebaseEventThrottle<QuerySnapshot> throttle =
+        ReactNativeFirebaseEventThrottle.fromOptions(
+            listenerOptions,
+            querySnapshot ->
+                sendOnSnapshotEvent(
+                    appName, listenerId, querySignature, querySnapshot, metadataChanges));
+
     final EventListener<QuerySnapshot> listener =
         (querySnapshot, exception) -> {
           if (exception != null) {
-            ListenerRegistration listenerRegistration = collectionSnapshotListeners.get(listenerId);
+            if (throttle != null) {
+              throttle.cancel();
+            }
+            ListenerRegistration listenerRegistration =
+                collectionSnapshotListeners.remove(listenerId);
             if (listenerRegistration != null) {
               listenerRegistration.remove();
-              collectionSnapshotListeners.remove(listenerId);
             }
             sendOnSnapshotError(appName, listenerId, exception);
+          } else if (throttle != null) {
+            throttle.offer(querySnapshot);
           } else {
-            sendOnSnapshotEvent(appName, listenerId, querySnapshot, metadataChanges);
+            sendOnSnapshotEvent(
+                appName, listenerId, querySignature, querySnapshot, metadataChanges);
           }
         };
 
-    ListenerRegistration listenerRegistration =
+    ListenerRegistration snapshotListenerRegistration =
         firestoreQuery.query.addSnapshotListener(metadataChanges, listener);
-
-    collectionSnapshotListeners.put(listenerId, listenerRegistration);
+    ListenerRegistration listenerRegistration =
+        throttle == null
+            ? snapshotListenerRegistration
+            : () -> {
+              snapshotListenerRegistration.remove();
+              throttle.cancel();
+            };
+
+    if (!collectionSnapshotListeners.putIfAbsent(
+        listenerId, listenerRegistration, getReactApplicationContext())) {
+      // registered concurrently for the same listenerId, e.g. by a named query lookup
+      listenerRegistration.remove();
+    }
   }
 
   private void handleQueryGet(
-      ReactNativeFirebaseFirestoreQuery firestoreQuery, Source source, Promise promise) {
-    firestoreQuery
-        .get(getExecutor(), source)
+      ReactNativeFirebaseFirestoreQuery firestoreQuery,
+      @Nullable String querySignature,
+      ReadableMap getOptions,
+      Promise promise) {
+    if (isCacheThenServerSource(getOptions)) {
+      handleQueryGetCacheThenServer(firestoreQuery, getOptions.getInt("listenerId"), promise);
+      return;
+    }
+
+    Source source = getSource(getOptions);
+
+    // results holding blob handles are only valid while the handles are pooled, and a server get
+    // must not be answered from disk
+    if (querySignature != null
+        && source != Source.SERVER
+        && getBlobHandleMinBytes(firestoreQuery.appName) < 0) {
+      handleQueryGetWithResultCache(
+          firestoreQuery,
+          querySignature,
+          source,
+          getResultCacheTtlMs(getOptions),
+          getResultCacheNamespace(getOptions),
+          promise);
+      return;
+    }
+
+    getDeduplicated(
+            firestoreQuery.appName,
+            Arrays.asList(firestoreQuery.query, source),
+            () -> firestoreQuery.get(getExecutor(), source))
         .addOnCompleteListener(
             task -> {
               if (task.isSuccessful()) {
@@ -244,19 +423,139 @@ public class ReactNativeFirebaseFirestoreCollectionModule extends ReactNativeFir
             });
   }
 
+  /**
+   * Resolves the promise from the on-disk result cache if it holds an unexpired result for the
+   * query, otherwise reads and serializes the query and stores the result for resultCacheTtlMs.
+   */
+  private void handleQueryGetWithResultCache(
+      ReactNativeFirebaseFirestoreQuery firestoreQuery,
+      String querySignature,
+      Source source,
+      long resultCacheTtlMs,
+      @Nullable String resultCacheNamespace,
+      Promise promise) {
+    long readGeneration = resultCache.getGeneration(querySignature);
+
+    Tasks.call(
+            getExecutor(), () -> resultCache.get(querySignature, source, resultCacheNamespace))
+        .addOnCompleteListener(
+            cacheTask -> {
+              WritableMap cachedResult = cacheTask.isSuccessful() ? cacheTask.getResult() : null;
+
+              if (cachedResult != null) {
+                promise.resolve(cachedResult);
+                return;
+              }
+
+              getDeduplicated(
+                      firestoreQuery.appName,
+                      Arrays.asList(firestoreQuery.query, source),
+                      () -> firestoreQuery.get(getExecutor(), source))
+                  .addOnCompleteListener(
+                      getExecutor(),
+                      task -> {
+                        if (task.isSuccessful()) {
+                          // read before the bridge consumes the result
+                          Map<String, Object> resultData = task.getResult().toHashMap();
+                          promise.resolve(task.getResult());
+                          resultCache.put(
+                              querySignature,
+                              source,
+                              resultCacheNamespace,
+                              resultData,
+                              resultCacheTtlMs,
+                              readGeneration);
+                        } else {
+                          rejectPromiseFirestoreException(promise, task.getException());
+                        }
+                      });
+            });
+  }
+
+  /**
+   * Resolves the promise from the local cache, then re-reads the query from the server. The server
+   * result is only serialized and sent to JS if its content differs from the cached result.
+   */
+  private void handleQueryGetCacheThenServer(
+      ReactNativeFirebaseFirestoreQuery firestoreQuery, int listenerId, Promise promise) {
+    String appName = firestoreQuery.appName;
+
+    firestoreQuery
+        .query
+        .get(Source.CACHE)
+        .addOnCompleteListener(
+            getExecutor(),
+            cacheTask -> {
+              QuerySnapshot cachedSnapshot =
+                  cacheTask.isSuccessful() ? cacheTask.getResult() : null;
+
+              if (cachedSnapshot != null) {
+                promise.resolve(snapshotToWritableMap(appName, "get", cachedSnapshot, null));
+              }
+
+              firestoreQuery
+                  .query
+                  .get(Source.SERVER)
+                  .addOnCompleteListener(
+                      getExecutor(),
+                      serverTask -> {
+                        if (!serverTask.isSuccessful()) {
+                          if (cachedSnapshot == null) {
+                            rejectPromiseFirestoreException(promise, serverTask.getException());
+                          } else {
+                            sendOnSnapshotError(appName, listenerId, serverTask.getException());
+                          }
+                          return;
+                        }
+
+                        QuerySnapshot serverSnapshot = serverTask.getResult();
+                        WritableMap body = Arguments.createMap();
+
+                        if (cachedSnapshot == null) {
+                          promise.resolve(
+                              snapshotToWritableMap(appName, "get", serverSnapshot, null));
+                          body.putBoolean("unchanged", true);
+                        } else if (snapshotContentEquals(
+                            cachedSnapshot, serverSnapshot, getServerTimestampBehavior(appName))) {
+                          body.putBoolean("unchanged", true);
+                        } else {
+                          body.putMap(
+                              "snapshot",
+                              snapshotToWritableMap(appName, "get", serverSnapshot, null));
+                        }
+
+                        ReactNativeFirebaseEventEmitter.getSharedInstance()
+                            .sendEvent(
+                                new ReactNativeFirebaseFirestoreEvent(
+                                    ReactNativeFirebaseFirestoreEvent.COLLECTION_EVENT_SYNC,
+                                    body,
+                                    appName,
+                                    listenerId));
+                      });
+            });
+  }
+
   private void sendOnSnapshotEvent(
       String appName,
       int listenerId,
+      LazyQuerySignature querySignature,
       QuerySnapshot querySnapshot,
       MetadataChanges metadataChanges) {
     Tasks.call(
             getTransactionalExecutor(Integer.toString(listenerId)),
-            () -> snapshotToWritableMap(appName, "onSnapshot", querySnapshot, metadataChanges))
+            () -> {
+              // results cached for this query are stale once the listener sees changes
+              if (!querySnapshot.getDocumentChanges().isEmpty() && resultCache.isInUse()) {
+                resultCache.invalidate(querySignature.get());
+              }
+              return snapshotToWritableMap(appName, "onSnapshot", querySnapshot, metadataChanges);
+            })
         .addOnCompleteListener(
             task -> {
               if (task.isSuccessful()) {
                 WritableMap body = Arguments.createMap();
                 body.putMap("snapshot", task.getResult());
+                collectionSnapshotListeners.recordEvent(listenerId, querySnapshot.size());
 
                 ReactNativeFirebaseEventEmitter emitter =
                     ReactNativeFirebaseEventEmitter.getSharedInstance();
@@ -296,6 +595,43 @@ public class ReactNativeFirebaseFirestoreCollectionModule extends ReactNativeFir
             ReactNativeFirebaseFirestoreEvent.COLLECTION_EVENT_SYNC, body, appName, listenerId));
   }
 
+  private AggregateField getAggregateField(ReadableMap aggregate) {
+    String aggregateType = Objects.requireNonNull(aggregate.getString("aggregateType"));
+
+    if ("count".equals(aggregateType)) {
+      return AggregateField.count();
+    }
+
+    ArrayList fieldPathArray =
+        Objects.requireNonNull(aggregate.getArray("fieldPath")).toArrayList();
+    String[] segmentArray = (String[]) fieldPathArray.toArray(new String[0]);
+    FieldPath fieldPath = FieldPath.of(segmentArray);
+
+    switch (aggregateType) {
+      case "sum":
+        return AggregateField.sum(fieldPath);
+      case "average":
+        return AggregateField.average(fieldPath);
+      default:
+        throw new IllegalArgumentException("Unknown aggregate type: " + aggregateType);
+    }
+  }
+
+  private long getResultCacheTtlMs(ReadableMap getOptions) {
+    if (getOptions != null && getOptions.hasKey("resultCacheTtlMs")) {
+      return (long) getOptions.getDouble("resultCacheTtlMs");
+    }
+    return 0;
+  }
+
+  @Nullable
+  private String getResultCacheNamespace(ReadableMap getOptions) {
+    if (getOptions != null && getOptions.hasKey("resultCacheNamespace")) {
+      return getOptions.getString("resultCacheNamespace");
+    }
+    return null;
+  }
+
   private Source getSource(ReadableMap getOptions) {
     Source source;
 
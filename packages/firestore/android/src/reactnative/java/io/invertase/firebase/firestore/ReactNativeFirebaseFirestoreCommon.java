@@ -20,12 +20,43 @@ package io.invertase.firebase.firestore;
 import static io.invertase.firebase.common.ReactNativeFirebaseModule.rejectPromiseWithCodeAndMessage;
 import static io.invertase.firebase.common.ReactNativeFirebaseModule.rejectPromiseWithExceptionMap;
 
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.QuerySnapshot;
 import io.invertase.firebase.common.UniversalFirebasePreferences;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 class ReactNativeFirebaseFirestoreCommon {
+  // a WritableMap can only be consumed by the bridge once, so every extra waiter gets a copy, and
+  // its own reference to any Blob handle in it
+  private static final ReactNativeFirebaseFirestoreSingleFlight<List<Object>, WritableMap>
+      readSingleFlight =
+          new ReactNativeFirebaseFirestoreSingleFlight<>(
+              result -> {
+                WritableMap resultCopy = Arguments.createMap();
+                resultCopy.merge(result);
+                if (!ReactNativeFirebaseFirestoreBlobPool.getSharedInstance().isEmpty()) {
+                  ReactNativeFirebaseFirestoreSerialize.retainBlobHandles(result);
+                }
+                return resultCopy;
+              });
+  private static final Map<String, ReactNativeFirebaseFirestoreSingleFlight.Stats> readStats =
+      new ConcurrentHashMap<>();
+  // incremented by every write handed to the SDK, see getDeduplicated
+  private static final AtomicLong localWriteGeneration = new AtomicLong();
+
   static void rejectPromiseFirestoreException(Promise promise, Exception exception) {
     if (exception instanceof FirebaseFirestoreException) {
       UniversalFirebaseFirestoreException universalException =
@@ -64,4 +95,91 @@ class ReactNativeFirebaseFirestoreCommon {
 
     return DocumentSnapshot.ServerTimestampBehavior.NONE;
   }
+
+  /** Returns the minimum Blob size sent to JS as a handle, or -1 to always send Base64. */
+  static int getBlobHandleMinBytes(String appName) {
+    UniversalFirebasePreferences preferences = UniversalFirebasePreferences.getSharedInstance();
+    String key = UniversalFirebaseFirestoreStatics.FIRESTORE_BLOB_HANDLE_MIN_BYTES + "_" + appName;
+    return preferences.getIntValue(key, -1);
+  }
+
+  static boolean isCacheThenServerSource(ReadableMap getOptions) {
+    return getOptions != null
+        && getOptions.hasKey("source")
+        && "cacheThenServer".equals(getOptions.getString("source"));
+  }
+
+  /**
+   * Compares the content of two document snapshots, ignoring their metadata (e.g. fromCache), so a
+   * server read identical to a cached read does not need to be serialized again.
+   */
+  static boolean snapshotContentEquals(
+      DocumentSnapshot first,
+      DocumentSnapshot second,
+      DocumentSnapshot.ServerTimestampBehavior timestampBehavior) {
+    return first.exists() == second.exists()
+        && first.getReference().getPath().equals(second.getReference().getPath())
+        && Objects.equals(first.getData(timestampBehavior), second.getData(timestampBehavior));
+  }
+
+  /** Compares the documents of two query snapshots in order, ignoring their metadata. */
+  static boolean snapshotContentEquals(
+      QuerySnapshot first,
+      QuerySnapshot second,
+      DocumentSnapshot.ServerTimestampBehavior timestampBehavior) {
+    if (first.size() != second.size()) {
+      return false;
+    }
+
+    List<DocumentSnapshot> firstDocuments = first.getDocuments();
+    List<DocumentSnapshot> secondDocuments = second.getDocuments();
+
+    for (int i = 0; i < firstDocuments.size(); i++) {
+      if (!snapshotContentEquals(
+          firstDocuments.get(i), secondDocuments.get(i), timestampBehavior)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Shares a single read and serialization between concurrent identical gets. The key must identify
+   * the read completely, e.g. the DocumentReference or Query together with the Source. A read never
+   * joins one started before a write was handed to the SDK, so it sees the app's own writes.
+   */
+  static Task<WritableMap> getDeduplicated(
+      String appName, List<Object> readKey, Callable<Task<WritableMap>> readFactory) {
+    List<Object> key = new ArrayList<>(readKey.size() + 1);
+    key.addAll(readKey);
+    key.add(localWriteGeneration.get());
+    return readSingleFlight.execute(key, readFactory, getReadStats(appName));
+  }
+
+  /**
+   * Called when a write to the given documents is handed to the SDK. Reads started from now on
+   * start a new read, and results cached for queries on the documents' collections are removed.
+   */
+  static void onLocalWrite(String appName, List<DocumentReference> documents) {
+    localWriteGeneration.incrementAndGet();
+    ReactNativeFirebaseFirestoreQueryResultCache.onDocumentsWritten(appName, documents);
+  }
+
+  static WritableMap getReadDeduplicationStats(String appName) {
+    ReactNativeFirebaseFirestoreSingleFlight.Stats appStats = getReadStats(appName);
+    WritableMap stats = Arguments.createMap();
+    stats.putDouble("requests", appStats.requests.get());
+    stats.putDouble("shared", appStats.shared.get());
+    return stats;
+  }
+
+  private static ReactNativeFirebaseFirestoreSingleFlight.Stats getReadStats(String appName) {
+    ReactNativeFirebaseFirestoreSingleFlight.Stats stats = readStats.get(appName);
+    if (stats == null) {
+      readStats.putIfAbsent(appName, new ReactNativeFirebaseFirestoreSingleFlight.Stats());
+      stats = readStats.get(appName);
+    }
+    return stats;
+  }
 }
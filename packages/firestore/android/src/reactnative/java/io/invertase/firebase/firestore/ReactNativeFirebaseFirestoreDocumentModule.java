@@ -17,26 +17,39 @@ package io.invertase.firebase.firestore;
  *
  */
 
+import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.getDeduplicated;
+import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.getServerTimestampBehavior;
+import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.isCacheThenServerSource;
 import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.rejectPromiseFirestoreException;
+import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.snapshotContentEquals;
 import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreSerialize.*;
 import static io.invertase.firebase.firestore.UniversalFirebaseFirestoreCommon.getDocumentForFirestore;
 import static io.invertase.firebase.firestore.UniversalFirebaseFirestoreCommon.getFirestoreForApp;
 
-import android.util.SparseArray;
 import com.facebook.react.bridge.*;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.*;
 import io.invertase.firebase.common.ReactNativeFirebaseEventEmitter;
+import io.invertase.firebase.common.ReactNativeFirebaseEventThrottle;
+import io.invertase.firebase.common.ReactNativeFirebaseListenerRegistry;
 import io.invertase.firebase.common.ReactNativeFirebaseModule;
+import io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreSerialize.DocumentWrite;
+import io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreWriteMetrics.WriteTimer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Callable;
 
 public class ReactNativeFirebaseFirestoreDocumentModule extends ReactNativeFirebaseModule {
   private static final String SERVICE_NAME = "FirestoreDocument";
-  private static SparseArray<ListenerRegistration> documentSnapshotListeners = new SparseArray<>();
+  private static final ReactNativeFirebaseListenerRegistry<Integer, ListenerRegistration>
+      documentSnapshotListeners = new ReactNativeFirebaseListenerRegistry<>("document");
+  private final ReactNativeFirebaseFirestoreWriteMetrics writeMetrics =
+      ReactNativeFirebaseFirestoreWriteMetrics.getSharedInstance();
 
   ReactNativeFirebaseFirestoreDocumentModule(ReactApplicationContext reactContext) {
     super(reactContext, SERVICE_NAME);
@@ -45,34 +58,48 @@ public class ReactNativeFirebaseFirestoreDocumentModule extends ReactNativeFireb
   @Override
   public void onCatalystInstanceDestroy() {
     super.onCatalystInstanceDestroy();
+    documentSnapshotListeners.reportLeaks(getReactApplicationContext());
 
-    for (int i = 0, size = documentSnapshotListeners.size(); i < size; i++) {
-      int key = documentSnapshotListeners.keyAt(i);
-      ListenerRegistration listenerRegistration = documentSnapshotListeners.get(key);
+    for (ListenerRegistration listenerRegistration :
+        documentSnapshotListeners.removeAllOwnedBy(getReactApplicationContext())) {
       listenerRegistration.remove();
     }
-    documentSnapshotListeners.clear();
+  }
+
+  static void addListenerStats(WritableArray stats) {
+    documentSnapshotListeners.addStats(stats);
   }
 
   @ReactMethod
   public void documentOnSnapshot(
       String appName, String path, int listenerId, ReadableMap listenerOptions) {
-    if (documentSnapshotListeners.get(listenerId) != null) {
+    if (documentSnapshotListeners.contains(listenerId)) {
       return;
     }
 
     FirebaseFirestore firebaseFirestore = getFirestoreForApp(appName);
     DocumentReference documentReference = getDocumentForFirestore(firebaseFirestore, path);
 
+    // drops intermediate snapshots before they are serialized if throttleMs/debounceMs are set
+    ReactNativeFirebaseEventThrottle<DocumentSnapshot> throttle =
+        ReactNativeFirebaseEventThrottle.fromOptions(
+            listenerOptions,
+            documentSnapshot -> sendOnSnapshotEvent(appName, listenerId, documentSnapshot));
+
     final EventListener<DocumentSnapshot> listener =
         (documentSnapshot, exception) -> {
           if (exception != null) {
-            ListenerRegistration listenerRegistration = documentSnapshotListeners.get(listenerId);
+            if (throttle != null) {
+              throttle.cancel();
+            }
+            ListenerRegistration listenerRegistration =
+                documentSnapshotListeners.remove(listenerId);
             if (listenerRegistration != null) {
               listenerRegistration.remove();
-              documentSnapshotListeners.remove(listenerId);
             }
             sendOnSnapshotError(appName, listenerId, exception);
+          } else if (throttle != null) {
+            throttle.offer(documentSnapshot);
           } else {
             sendOnSnapshotEvent(appName, listenerId, documentSnapshot);
           }
@@ -88,18 +115,28 @@ public class ReactNativeFirebaseFirestoreDocumentModule extends ReactNativeFireb
       metadataChanges = MetadataChanges.EXCLUDE;
     }
 
-    ListenerRegistration listenerRegistration =
+    ListenerRegistration snapshotListenerRegistration =
         documentReference.addSnapshotListener(metadataChanges, listener);
-
-    documentSnapshotListeners.put(listenerId, listenerRegistration);
+    ListenerRegistration listenerRegistration =
+        throttle == null
+            ? snapshotListenerRegistration
+            : () -> {
+              snapshotListenerRegistration.remove();
+              throttle.cancel();
+            };
+
+    if (!documentSnapshotListeners.putIfAbsent(
+        listenerId, listenerRegistration, getReactApplicationContext())) {
+      // registered concurrently for the same listenerId
+      listenerRegistration.remove();
+    }
   }
 
   @ReactMethod
   public void documentOffSnapshot(String appName, int listenerId) {
-    ListenerRegistration listenerRegistration = documentSnapshotListeners.get(listenerId);
+    ListenerRegistration listenerRegistration = documentSnapshotListeners.remove(listenerId);
     if (listenerRegistration != null) {
       listenerRegistration.remove();
-      documentSnapshotListeners.remove(listenerId);
     }
   }
 
@@ -108,6 +145,12 @@ public class ReactNativeFirebaseFirestoreDocumentModule extends ReactNativeFireb
     FirebaseFirestore firebaseFirestore = getFirestoreForApp(appName);
     DocumentReference documentReference = getDocumentForFirestore(firebaseFirestore, path);
 
+    if (isCacheThenServerSource(getOptions)) {
+      documentGetCacheThenServer(
+          appName, documentReference, getOptions.getInt("listenerId"), promise);
+      return;
+    }
+
     Source source;
 
     if (getOptions != null && getOptions.hasKey("source")) {
@@ -123,12 +166,17 @@ public class ReactNativeFirebaseFirestoreDocumentModule extends ReactNativeFireb
       source = Source.DEFAULT;
     }
 
-    Tasks.call(
-            getExecutor(),
-            () -> {
-              DocumentSnapshot documentSnapshot = Tasks.await(documentReference.get(source));
-              return snapshotToWritableMap(appName, documentSnapshot);
-            })
+    getDeduplicated(
+            appName,
+            Arrays.asList(documentReference, source),
+            () ->
+                Tasks.call(
+                    getExecutor(),
+                    () -> {
+                      DocumentSnapshot documentSnapshot =
+                          Tasks.await(documentReference.get(source));
+                      return snapshotToWritableMap(appName, documentSnapshot);
+                    }))
         .addOnCompleteListener(
             task -> {
               if (task.isSuccessful()) {
@@ -139,11 +187,85 @@ public class ReactNativeFirebaseFirestoreDocumentModule extends ReactNativeFireb
             });
   }
 
+  /**
+   * Resolves the promise from the local cache, then re-reads the document from the server. The
+   * server result is only serialized and sent to JS if its content differs from the cached result.
+   */
+  private void documentGetCacheThenServer(
+      String appName, DocumentReference documentReference, int listenerId, Promise promise) {
+    documentReference
+        .get(Source.CACHE)
+        .addOnCompleteListener(
+            getExecutor(),
+            cacheTask -> {
+              // documents missing from the cache fail the cache read, fall back to the server
+              DocumentSnapshot cachedSnapshot =
+                  cacheTask.isSuccessful() ? cacheTask.getResult() : null;
+
+              if (cachedSnapshot != null) {
+                promise.resolve(snapshotToWritableMap(appName, cachedSnapshot));
+              }
+
+              documentReference
+                  .get(Source.SERVER)
+                  .addOnCompleteListener(
+                      getExecutor(),
+                      serverTask -> {
+                        if (!serverTask.isSuccessful()) {
+                          if (cachedSnapshot == null) {
+                            rejectPromiseFirestoreException(promise, serverTask.getException());
+                          } else {
+                            sendOnSnapshotError(appName, listenerId, serverTask.getException());
+                          }
+                          return;
+                        }
+
+                        DocumentSnapshot serverSnapshot = serverTask.getResult();
+                        WritableMap body = Arguments.createMap();
+
+                        if (cachedSnapshot == null) {
+                          promise.resolve(snapshotToWritableMap(appName, serverSnapshot));
+                          body.putBoolean("unchanged", true);
+                        } else if (snapshotContentEquals(
+                            cachedSnapshot, serverSnapshot, getServerTimestampBehavior(appName))) {
+                          body.putBoolean("unchanged", true);
+                        } else {
+                          body.putMap("snapshot", snapshotToWritableMap(appName, serverSnapshot));
+                        }
+
+                        ReactNativeFirebaseEventEmitter.getSharedInstance()
+                            .sendEvent(
+                                new ReactNativeFirebaseFirestoreEvent(
+                                    ReactNativeFirebaseFirestoreEvent.DOCUMENT_EVENT_SYNC,
+                                    body,
+                                    appName,
+                                    listenerId));
+                      });
+            });
+  }
+
   @ReactMethod
   public void documentDelete(String appName, String path, Promise promise) {
+    WriteTimer timer =
+        writeMetrics.start(ReactNativeFirebaseFirestoreWriteMetrics.OPERATION_DELETE);
     FirebaseFirestore firebaseFirestore = getFirestoreForApp(appName);
     DocumentReference documentReference = getDocumentForFirestore(firebaseFirestore, path);
-    Tasks.call(getTransactionalExecutor(), documentReference::delete)
+
+    Tasks.call(
+            getTransactionalExecutor(),
+            () -> {
+              timer.queued();
+              timer.parsed(0);
+              Task<Void> deleteTask =
+                  ReactNativeFirebaseFirestoreWriteBacklog.getForApp(appName)
+                      .submit(
+                          Collections.singletonList(documentReference),
+                          null,
+                          timer.timeSubmitter(documentReference::delete));
+              // timed until the server acknowledges it, the promise doesn't wait for that
+              deleteTask.addOnCompleteListener(ackTask -> timer.finished(ackTask.isSuccessful()));
+              return deleteTask;
+            })
         .addOnCompleteListener(
             task -> {
               if (task.isSuccessful()) {
@@ -157,18 +279,26 @@ public class ReactNativeFirebaseFirestoreDocumentModule extends ReactNativeFireb
   @ReactMethod
   public void documentSet(
       String appName, String path, ReadableMap data, ReadableMap options, Promise promise) {
+    WriteTimer timer = writeMetrics.start(ReactNativeFirebaseFirestoreWriteMetrics.OPERATION_SET);
     FirebaseFirestore firebaseFirestore = getFirestoreForApp(appName);
     DocumentReference documentReference = getDocumentForFirestore(firebaseFirestore, path);
 
-    Tasks.call(getTransactionalExecutor(), () -> parseReadableMap(firebaseFirestore, data))
+    Tasks.call(
+            getTransactionalExecutor(),
+            () -> {
+              timer.queued();
+              Map<String, Object> parsedData = parseReadableMap(firebaseFirestore, data);
+              timer.parsed(parsedData.size());
+              return parsedData;
+            })
         .continueWithTask(
             getTransactionalExecutor(),
             task -> {
-              Task<Void> setTask;
+              Callable<Task<Void>> setSubmitter;
               Map<String, Object> settableData = Objects.requireNonNull(task.getResult());
 
               if (options.hasKey("merge") && options.getBoolean("merge")) {
-                setTask = documentReference.set(settableData, SetOptions.merge());
+                setSubmitter = () -> documentReference.set(settableData, SetOptions.merge());
               } else if (options.hasKey("mergeFields")) {
                 List<String> fields = new ArrayList<>();
 
@@ -177,15 +307,21 @@ public class ReactNativeFirebaseFirestoreDocumentModule extends ReactNativeFireb
                   fields.add((String) object);
                 }
 
-                setTask = documentReference.set(settableData, SetOptions.mergeFields(fields));
+                setSubmitter =
+                    () -> documentReference.set(settableData, SetOptions.mergeFields(fields));
               } else {
-                setTask = documentReference.set(settableData);
+                setSubmitter = () -> documentReference.set(settableData);
               }
 
-              return setTask;
+              return ReactNativeFirebaseFirestoreWriteBacklog.getForApp(appName)
+                  .submit(
+                      Collections.singletonList(documentReference),
+                      settableData,
+                      timer.timeSubmitter(setSubmitter));
             })
         .addOnCompleteListener(
             task -> {
+              timer.finished(task.isSuccessful());
               if (task.isSuccessful()) {
                 promise.resolve(null);
               } else {
@@ -196,15 +332,32 @@ public class ReactNativeFirebaseFirestoreDocumentModule extends ReactNativeFireb
 
   @ReactMethod
   public void documentUpdate(String appName, String path, ReadableMap data, Promise promise) {
+    WriteTimer timer =
+        writeMetrics.start(ReactNativeFirebaseFirestoreWriteMetrics.OPERATION_UPDATE);
     FirebaseFirestore firebaseFirestore = getFirestoreForApp(appName);
     DocumentReference documentReference = getDocumentForFirestore(firebaseFirestore, path);
 
-    Tasks.call(getTransactionalExecutor(), () -> parseReadableMap(firebaseFirestore, data))
+    Tasks.call(
+            getTransactionalExecutor(),
+            () -> {
+              timer.queued();
+              Map<String, Object> parsedData = parseReadableMap(firebaseFirestore, data);
+              timer.parsed(parsedData.size());
+              return parsedData;
+            })
         .continueWithTask(
             getTransactionalExecutor(),
-            task -> documentReference.update(Objects.requireNonNull(task.getResult())))
+            task -> {
+              Map<String, Object> updateData = Objects.requireNonNull(task.getResult());
+              return ReactNativeFirebaseFirestoreWriteBacklog.getForApp(appName)
+                  .submit(
+                      Collections.singletonList(documentReference),
+                      updateData,
+                      timer.timeSubmitter(() -> documentReference.update(updateData)));
+            })
         .addOnCompleteListener(
             task -> {
+              timer.finished(task.isSuccessful());
               if (task.isSuccessful()) {
                 promise.resolve(null);
               } else {
@@ -215,64 +368,63 @@ public class ReactNativeFirebaseFirestoreDocumentModule extends ReactNativeFireb
 
   @ReactMethod
   public void documentBatch(String appName, ReadableArray writes, Promise promise) {
+    WriteTimer timer = writeMetrics.start(ReactNativeFirebaseFirestoreWriteMetrics.OPERATION_BATCH);
     FirebaseFirestore firebaseFirestore = getFirestoreForApp(appName);
 
-    Tasks.call(getTransactionalExecutor(), () -> parseDocumentBatches(firebaseFirestore, writes))
+    Tasks.call(
+            getTransactionalExecutor(),
+            () -> {
+              timer.queued();
+              List<DocumentWrite> parsedWrites = parseDocumentBatches(firebaseFirestore, writes);
+              timer.parsed(parsedWrites.size());
+              return parsedWrites;
+            })
         .continueWithTask(
             getTransactionalExecutor(),
             task -> {
               WriteBatch batch = firebaseFirestore.batch();
-              List<Object> writesArray = task.getResult();
-
-              for (Object w : writesArray) {
-                Map<String, Object> write = (Map) w;
-                String type = (String) write.get("type");
-                String path = (String) write.get("path");
-                Map<String, Object> data = (Map) write.get("data");
+              List<DocumentWrite> writesArray = Objects.requireNonNull(task.getResult());
+              List<DocumentReference> documentReferences = new ArrayList<>(writesArray.size());
+              List<Map<String, Object>> writtenData = new ArrayList<>(writesArray.size());
 
+              for (DocumentWrite write : writesArray) {
                 DocumentReference documentReference =
-                    getDocumentForFirestore(firebaseFirestore, path);
+                    getDocumentForFirestore(firebaseFirestore, write.path);
+                documentReferences.add(documentReference);
+                if (write.data != null) {
+                  writtenData.add(write.data);
+                }
 
-                switch (Objects.requireNonNull(type)) {
+                switch (write.type) {
                   case "DELETE":
                     batch = batch.delete(documentReference);
                     break;
                   case "UPDATE":
-                    batch = batch.update(documentReference, Objects.requireNonNull(data));
+                    batch = batch.update(documentReference, Objects.requireNonNull(write.data));
                     break;
                   case "SET":
-                    Map<String, Object> options = (Map) write.get("options");
-
-                    if (Objects.requireNonNull(options).containsKey("merge")
-                        && (boolean) options.get("merge")) {
-                      batch =
-                          batch.set(
-                              documentReference, Objects.requireNonNull(data), SetOptions.merge());
-                    } else if (options.containsKey("mergeFields")) {
-                      List<String> fields = new ArrayList<>();
-
-                      for (Object object :
-                          Objects.requireNonNull((List) options.get("mergeFields"))) {
-                        fields.add((String) object);
-                      }
+                    Map<String, Object> data = Objects.requireNonNull(write.data);
 
+                    if (write.merge) {
+                      batch = batch.set(documentReference, data, SetOptions.merge());
+                    } else if (write.mergeFields != null) {
                       batch =
                           batch.set(
-                              documentReference,
-                              Objects.requireNonNull(data),
-                              SetOptions.mergeFields(fields));
+                              documentReference, data, SetOptions.mergeFields(write.mergeFields));
                     } else {
-                      batch = batch.set(documentReference, Objects.requireNonNull(data));
+                      batch = batch.set(documentReference, data);
                     }
 
                     break;
                 }
               }
 
-              return batch.commit();
+              return ReactNativeFirebaseFirestoreWriteBacklog.getForApp(appName)
+                  .submit(documentReferences, writtenData, timer.timeSubmitter(batch::commit));
             })
         .addOnCompleteListener(
             task -> {
+              timer.finished(task.isSuccessful());
               if (task.isSuccessful()) {
                 promise.resolve(null);
               } else {
@@ -289,6 +441,7 @@ public class ReactNativeFirebaseFirestoreDocumentModule extends ReactNativeFireb
               if (task.isSuccessful()) {
                 WritableMap body = Arguments.createMap();
                 body.putMap("snapshot", task.getResult());
+                documentSnapshotListeners.recordEvent(listenerId, 1);
 
                 ReactNativeFirebaseEventEmitter emitter =
                     ReactNativeFirebaseEventEmitter.getSharedInstance();
@@ -0,0 +1,97 @@
+package io.invertase.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative values with power of two buckets, so recording a value is
+ * a handful of atomic increments. Percentiles are reported as the upper bound of the bucket they
+ * fall in, i.e. they are accurate to within a factor of two.
+ */
+class ReactNativeFirebaseFirestoreHistogram {
+  private static final int BUCKETS = 64;
+
+  // bucket 0 holds 0, bucket i holds values in [2^(i-1), 2^i)
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  void record(long value) {
+    long recorded = Math.max(0, value);
+    buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(recorded)));
+    sum.addAndGet(recorded);
+
+    long currentMax = max.get();
+    while (recorded > currentMax && !max.compareAndSet(currentMax, recorded)) {
+      currentMax = max.get();
+    }
+  }
+
+  void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+    sum.set(0);
+    max.set(0);
+  }
+
+  /**
+   * Returns count, sum, max and the 50th, 90th and 99th percentiles, with every value except count
+   * divided by the given divisor (e.g. 1000 to report microseconds as milliseconds).
+   */
+  WritableMap toWritableMap(double divisor) {
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = buckets.get(i);
+      total += snapshot[i];
+    }
+
+    long maxValue = max.get();
+    WritableMap map = Arguments.createMap();
+    map.putDouble("count", total);
+    map.putDouble("sum", sum.get() / divisor);
+    map.putDouble("max", maxValue / divisor);
+    map.putDouble("p50", percentile(snapshot, total, 0.50, maxValue) / divisor);
+    map.putDouble("p90", percentile(snapshot, total, 0.90, maxValue) / divisor);
+    map.putDouble("p99", percentile(snapshot, total, 0.99, maxValue) / divisor);
+    return map;
+  }
+
+  private static long percentile(long[] snapshot, long total, double quantile, long maxValue) {
+    if (total == 0) {
+      return 0;
+    }
+
+    long rank = (long) Math.ceil(total * quantile);
+    long cumulative = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      cumulative += snapshot[i];
+      if (cumulative >= rank) {
+        long upperBound = i == 0 ? 0 : (1L << Math.min(i, 62)) - 1;
+        return Math.min(upperBound, maxValue);
+      }
+    }
+
+    return maxValue;
+  }
+}
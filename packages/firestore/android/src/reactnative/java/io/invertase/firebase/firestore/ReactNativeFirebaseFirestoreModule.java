@@ -18,20 +18,36 @@ package io.invertase.firebase.firestore;
  */
 
 import static io.invertase.firebase.common.RCTConvertFirebase.toHashMap;
+import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.getReadDeduplicationStats;
 import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.rejectPromiseFirestoreException;
 
+import android.net.Uri;
+import android.util.Base64;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.LoadBundleTaskProgress;
+import com.google.firebase.firestore.OnProgressListener;
+import io.invertase.firebase.common.ReactNativeFirebaseEventEmitter;
 import io.invertase.firebase.common.ReactNativeFirebaseModule;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
 
 public class ReactNativeFirebaseFirestoreModule extends ReactNativeFirebaseModule {
   private static final String SERVICE_NAME = "Firestore";
+  private static final long BUNDLE_PROGRESS_THROTTLE_MS = 100;
   private final UniversalFirebaseFirestoreModule module;
 
   ReactNativeFirebaseFirestoreModule(ReactApplicationContext reactContext) {
@@ -54,6 +70,8 @@ public class ReactNativeFirebaseFirestoreModule extends ReactNativeFirebaseModul
         .loadBundle(appName, bundle)
         .addOnCompleteListener(
             task -> {
+              // the bundle may have replaced named queries, even if it failed part way
+              ReactNativeFirebaseFirestoreNamedQueryCache.invalidate(appName);
               if (task.isSuccessful()) {
                 LoadBundleTaskProgress progress = task.getResult();
                 promise.resolve(taskProgressToWritableMap(progress));
@@ -63,6 +81,38 @@ public class ReactNativeFirebaseFirestoreModule extends ReactNativeFirebaseModul
             });
   }
 
+  @ReactMethod
+  public void loadBundleFromFile(String appName, String path, int listenerId, Promise promise) {
+    module
+        .loadBundleFromFile(appName, path, getBundleProgressListener(appName, listenerId))
+        .addOnCompleteListener(
+            task -> {
+              // the bundle may have replaced named queries, even if it failed part way
+              ReactNativeFirebaseFirestoreNamedQueryCache.invalidate(appName);
+              if (task.isSuccessful()) {
+                promise.resolve(taskProgressToWritableMap(task.getResult()));
+              } else {
+                rejectPromiseFirestoreException(promise, task.getException());
+              }
+            });
+  }
+
+  @ReactMethod
+  public void loadBundleFromUrl(String appName, String url, int listenerId, Promise promise) {
+    module
+        .loadBundleFromUrl(appName, url, getBundleProgressListener(appName, listenerId))
+        .addOnCompleteListener(
+            task -> {
+              // the bundle may have replaced named queries, even if it failed part way
+              ReactNativeFirebaseFirestoreNamedQueryCache.invalidate(appName);
+              if (task.isSuccessful()) {
+                promise.resolve(taskProgressToWritableMap(task.getResult()));
+              } else {
+                rejectPromiseFirestoreException(promise, task.getException());
+              }
+            });
+  }
+
   @ReactMethod
   public void clearPersistence(String appName, Promise promise) {
     module
@@ -70,6 +120,11 @@ public class ReactNativeFirebaseFirestoreModule extends ReactNativeFirebaseModul
         .addOnCompleteListener(
             task -> {
               if (task.isSuccessful()) {
+                ReactNativeFirebaseFirestoreNamedQueryCache.invalidate(appName);
+                ReactNativeFirebaseFirestoreQueryResultCache resultCache =
+                    ReactNativeFirebaseFirestoreQueryResultCache.getSharedInstance(
+                        getReactApplicationContext());
+                getExecutor().execute(resultCache::clear);
                 promise.resolve(null);
               } else {
                 rejectPromiseFirestoreException(promise, task.getException());
@@ -154,6 +209,7 @@ public class ReactNativeFirebaseFirestoreModule extends ReactNativeFirebaseModul
         .addOnCompleteListener(
             task -> {
               if (task.isSuccessful()) {
+                ReactNativeFirebaseFirestoreNamedQueryCache.invalidate(appName);
                 promise.resolve(null);
               } else {
                 rejectPromiseFirestoreException(promise, task.getException());
@@ -161,6 +217,142 @@ public class ReactNativeFirebaseFirestoreModule extends ReactNativeFirebaseModul
             });
   }
 
+  @ReactMethod
+  public void blobHandleGet(String appName, int handle, Promise promise) {
+    byte[] bytes = ReactNativeFirebaseFirestoreBlobPool.getSharedInstance().getBytes(handle);
+
+    if (bytes == null) {
+      rejectBlobHandleReleased(promise, handle);
+      return;
+    }
+
+    Tasks.call(getExecutor(), () -> Base64.encodeToString(bytes, Base64.NO_WRAP))
+        .addOnCompleteListener(
+            task -> {
+              if (task.isSuccessful()) {
+                promise.resolve(task.getResult());
+              } else {
+                rejectPromiseFirestoreException(promise, task.getException());
+              }
+            });
+  }
+
+  @ReactMethod
+  public void blobHandleWriteToFile(String appName, int handle, String path, Promise promise) {
+    byte[] bytes = ReactNativeFirebaseFirestoreBlobPool.getSharedInstance().getBytes(handle);
+
+    if (bytes == null) {
+      rejectBlobHandleReleased(promise, handle);
+      return;
+    }
+
+    Tasks.call(
+            getExecutor(),
+            () -> {
+              String filePath = path.startsWith("file://") ? Uri.parse(path).getPath() : path;
+              try (OutputStream outputStream =
+                  new FileOutputStream(Objects.requireNonNull(filePath))) {
+                outputStream.write(bytes);
+              }
+              return null;
+            })
+        .addOnCompleteListener(
+            task -> {
+              if (task.isSuccessful()) {
+                promise.resolve(null);
+              } else {
+                rejectPromiseFirestoreException(promise, task.getException());
+              }
+            });
+  }
+
+  @ReactMethod
+  public void blobHandleRelease(String appName, int handle) {
+    ReactNativeFirebaseFirestoreBlobPool.getSharedInstance().release(handle);
+  }
+
+  @ReactMethod
+  public void readDeduplicationStats(String appName, Promise promise) {
+    promise.resolve(getReadDeduplicationStats(appName));
+  }
+
+  @ReactMethod
+  public void writeMetrics(String appName, boolean reset, Promise promise) {
+    ReactNativeFirebaseFirestoreWriteMetrics writeMetrics =
+        ReactNativeFirebaseFirestoreWriteMetrics.getSharedInstance();
+    WritableMap metrics = writeMetrics.toWritableMap();
+    if (reset) {
+      writeMetrics.reset();
+    }
+    promise.resolve(metrics);
+  }
+
+  @ReactMethod
+  public void pendingWrites(String appName, Promise promise) {
+    promise.resolve(ReactNativeFirebaseFirestoreWriteBacklog.getForApp(appName).toWritableMap());
+  }
+
+  @ReactMethod
+  public void setLowPriorityCollections(
+      String appName, ReadableArray collectionIds, double maxDeferMs, Promise promise) {
+    List<String> ids = new ArrayList<>(collectionIds.size());
+    for (int i = 0; i < collectionIds.size(); i++) {
+      ids.add(collectionIds.getString(i));
+    }
+
+    ReactNativeFirebaseFirestoreWriteBacklog.getForApp(appName)
+        .setLowPriorityCollections(ids, (long) maxDeferMs);
+    promise.resolve(null);
+  }
+
+  @ReactMethod
+  public void listenerStats(String appName, Promise promise) {
+    WritableArray stats = Arguments.createArray();
+    ReactNativeFirebaseFirestoreCollectionModule.addListenerStats(stats);
+    ReactNativeFirebaseFirestoreDocumentModule.addListenerStats(stats);
+    promise.resolve(stats);
+  }
+
+  /**
+   * Creates a progress listener which emits bundle progress events to JS, at most once per
+   * BUNDLE_PROGRESS_THROTTLE_MS while running. A negative listenerId means JS is not listening.
+   */
+  @Nullable
+  private OnProgressListener<LoadBundleTaskProgress> getBundleProgressListener(
+      String appName, int listenerId) {
+    if (listenerId < 0) {
+      return null;
+    }
+
+    AtomicLong lastEmitted = new AtomicLong(0);
+    return progress -> {
+      long now = System.currentTimeMillis();
+      long last = lastEmitted.get();
+      boolean running = progress.getTaskState() == LoadBundleTaskProgress.TaskState.RUNNING;
+
+      if (running
+          && (now - last < BUNDLE_PROGRESS_THROTTLE_MS
+              || !lastEmitted.compareAndSet(last, now))) {
+        return;
+      }
+
+      ReactNativeFirebaseEventEmitter.getSharedInstance()
+          .sendEvent(
+              new ReactNativeFirebaseFirestoreEvent(
+                  ReactNativeFirebaseFirestoreEvent.BUNDLE_EVENT_PROGRESS,
+                  taskProgressToWritableMap(progress),
+                  appName,
+                  listenerId));
+    };
+  }
+
+  private void rejectBlobHandleReleased(Promise promise, int handle) {
+    rejectPromiseWithCodeAndMessage(
+        promise,
+        "blob-handle-released",
+        "Blob handle " + handle + " has been released or evicted from the blob pool.");
+  }
+
   private WritableMap taskProgressToWritableMap(LoadBundleTaskProgress progress) {
     WritableMap writableMap = Arguments.createMap();
     writableMap.putDouble("bytesLoaded", progress.getBytesLoaded());
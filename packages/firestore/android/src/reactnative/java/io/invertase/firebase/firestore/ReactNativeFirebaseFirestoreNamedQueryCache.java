@@ -0,0 +1,102 @@
+package io.invertase.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the queries resolved by FirebaseFirestore.getNamedQuery per app, so repeated named query
+ * reads skip the asynchronous local lookup. A named query only changes when a bundle is loaded, so
+ * the cache of an app is invalidated when a bundle load completes, and when its persistence is
+ * cleared or its instance terminated.
+ */
+class ReactNativeFirebaseFirestoreNamedQueryCache {
+  private static final Map<String, NamedQueries> namedQueries = new ConcurrentHashMap<>();
+
+  private ReactNativeFirebaseFirestoreNamedQueryCache() {}
+
+  /**
+   * Returns the named query from the cache as an already completed task, or looks it up and caches
+   * it if found. The task result is null if no query with that name has been loaded.
+   */
+  static Task<Query> getNamedQuery(
+      String appName, FirebaseFirestore firebaseFirestore, String queryName) {
+    NamedQueries queries = getNamedQueries(appName);
+    long generation;
+
+    synchronized (queries) {
+      Query cached = queries.queries.get(queryName);
+      // a terminated instance's queries can't be used with its replacement
+      if (cached != null && cached.getFirestore() == firebaseFirestore) {
+        return Tasks.forResult(cached);
+      }
+      generation = queries.generation;
+    }
+
+    return firebaseFirestore
+        .getNamedQuery(queryName)
+        .addOnSuccessListener(
+            Runnable::run,
+            query -> {
+              if (query == null) {
+                return;
+              }
+
+              synchronized (queries) {
+                // the lookup raced an invalidation, it may have resolved the replaced query
+                if (queries.generation == generation) {
+                  queries.queries.put(queryName, query);
+                }
+              }
+            });
+  }
+
+  /** Removes every cached named query of the app. */
+  static void invalidate(String appName) {
+    NamedQueries queries = namedQueries.get(appName);
+    if (queries == null) {
+      return;
+    }
+
+    synchronized (queries) {
+      queries.generation++;
+      queries.queries.clear();
+    }
+  }
+
+  private static NamedQueries getNamedQueries(String appName) {
+    NamedQueries queries = namedQueries.get(appName);
+    if (queries == null) {
+      namedQueries.putIfAbsent(appName, new NamedQueries());
+      queries = namedQueries.get(appName);
+    }
+    return queries;
+  }
+
+  private static class NamedQueries {
+    final Map<String, Query> queries = new HashMap<>();
+    // incremented by every invalidation, so lookups started before one are not cached after it
+    long generation = 0;
+  }
+}
@@ -0,0 +1,505 @@
+package io.invertase.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import android.content.Context;
+import android.util.Log;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.Source;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Caches serialized query results on disk, keyed by query signature, Source and the namespace JS
+ * passed, e.g. the signed in user's uid, so repeated heavy queries resolve without re-running
+ * locally or going through snapshotToWritableMap again. A result is only ever returned for the
+ * namespace it was read for.
+ *
+ * <p>Each entry is a file holding its expiry time followed by the result as JSON. Entries are
+ * evicted least recently used first once the cache exceeds MAX_CACHE_BYTES. They are removed for a
+ * query whenever an active listener on it sees changes, and for every query on a collection id
+ * (and every named query) whenever the module hands a write to a document in it to the SDK.
+ *
+ * <p>A signature starts with the hash of its app and collection id, so writes find the entries of
+ * the queries they affect by file name, including entries persisted by previous sessions.
+ */
+class ReactNativeFirebaseFirestoreQueryResultCache {
+  private static final String TAG = "RNFBFirestoreResults";
+  private static final String DIRECTORY_NAME = "io.invertase.firebase.firestore.results";
+  private static final long MAX_CACHE_BYTES = 8 * 1024 * 1024;
+  private static final int HEADER_BYTES = 8;
+
+  private static ReactNativeFirebaseFirestoreQueryResultCache sharedInstance;
+
+  private final File directory;
+  // file name -> file size in bytes, in access order
+  private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes = 0;
+  private boolean loaded = false;
+  // whether results were read or cached this session, or the directory existed when first checked
+  @Nullable private Boolean inUse;
+  // signature or scope -> the last invalidation of it, so results read before are not stored after
+  private final Map<String, Long> invalidations = new HashMap<>();
+  private long invalidationCount = 0;
+  private long clearedAt = 0;
+  // file name prefixes invalidated before the entries were loaded, removed when they are
+  private final List<String> pendingInvalidations = new ArrayList<>();
+
+  private ReactNativeFirebaseFirestoreQueryResultCache(File directory) {
+    this.directory = directory;
+  }
+
+  static synchronized ReactNativeFirebaseFirestoreQueryResultCache getSharedInstance(
+      Context context) {
+    if (sharedInstance == null) {
+      sharedInstance =
+          new ReactNativeFirebaseFirestoreQueryResultCache(
+              new File(context.getCacheDir(), DIRECTORY_NAME));
+    }
+    return sharedInstance;
+  }
+
+  /**
+   * Builds a stable signature for a query from the arguments JS sent for it. The same query built
+   * in a later app session produces the same signature.
+   *
+   * @param collectionId the id of the collection or collection group queried, null for a named
+   *     query, whose collection is unknown
+   */
+  static String getQuerySignature(
+      String appName,
+      @Nullable String collectionId,
+      String pathOrQueryName,
+      String type,
+      ReadableArray filters,
+      ReadableArray orders,
+      ReadableMap options) {
+    String signature =
+        appName
+            + '\n'
+            + pathOrQueryName
+            + '\n'
+            + type
+            + '\n'
+            + filters.toArrayList()
+            + '\n'
+            + orders.toArrayList()
+            + '\n'
+            + options.toHashMap();
+
+    return getScope(appName, collectionId) + '-' + hash(signature);
+  }
+
+  /** Returns the id of the collection, or collection group, a query built by JS reads. */
+  static String getCollectionId(String path, String type) {
+    return "collectionGroup".equals(type) ? path : path.substring(path.lastIndexOf('/') + 1);
+  }
+
+  /**
+   * Removes the results cached for every query on the collections of the written documents, and
+   * for every named query. Called when the module hands a write to the SDK.
+   */
+  static void onDocumentsWritten(String appName, List<DocumentReference> documents) {
+    ReactNativeFirebaseFirestoreQueryResultCache cache;
+    synchronized (ReactNativeFirebaseFirestoreQueryResultCache.class) {
+      cache = sharedInstance;
+    }
+
+    if (cache == null || !cache.isInUse()) {
+      return;
+    }
+
+    Set<String> collectionIds = new HashSet<>();
+    for (DocumentReference document : documents) {
+      collectionIds.add(document.getParent().getId());
+    }
+
+    for (String collectionId : collectionIds) {
+      cache.invalidatePrefix(getScope(appName, collectionId) + '-');
+    }
+    cache.invalidatePrefix(getScope(appName, null) + '-');
+  }
+
+  /**
+   * Whether anything may be cached, this session or a previous one. Checks the directory once, so
+   * listeners skip invalidating while the cache has never been used.
+   */
+  synchronized boolean isInUse() {
+    if (inUse == null) {
+      inUse = directory.exists();
+    }
+    return inUse;
+  }
+
+  /**
+   * Returns the result cached for the query and namespace, or null if there is none or it has
+   * expired.
+   */
+  @Nullable
+  WritableMap get(String signature, Source source, @Nullable String namespace) {
+    String fileName = getFileName(signature, source, namespace);
+
+    synchronized (this) {
+      loadEntries();
+      if (entries.get(fileName) == null) {
+        return null;
+      }
+    }
+
+    try (RandomAccessFile file = new RandomAccessFile(new File(directory, fileName), "r")) {
+      if (file.readLong() <= System.currentTimeMillis()) {
+        remove(fileName);
+        return null;
+      }
+
+      byte[] payload = new byte[(int) (file.length() - HEADER_BYTES)];
+      file.readFully(payload);
+      JSONObject result = new JSONObject(new String(payload, StandardCharsets.UTF_8));
+      // build metadata array: 0 = fromCache, 1 = hasPendingWrites
+      JSONArray metadata = result.optJSONArray("metadata");
+      if (metadata != null) {
+        metadata.put(0, true);
+      }
+      return jsonToWritableMap(result);
+    } catch (IOException | JSONException e) {
+      Log.w(TAG, "Discarding unreadable query result " + fileName, e);
+      remove(fileName);
+      return null;
+    }
+  }
+
+  /** Returns the last invalidation of the query's results, to pass to put once it is read. */
+  synchronized long getGeneration(String signature) {
+    inUse = true;
+    Long signatureGeneration = invalidations.get(signature);
+    Long scopeGeneration = invalidations.get(getScopePrefix(signature));
+    return Math.max(
+        clearedAt,
+        Math.max(
+            signatureGeneration == null ? 0 : signatureGeneration,
+            scopeGeneration == null ? 0 : scopeGeneration));
+  }
+
+  /**
+   * Stores a serialized query result for ttlMs, evicting least recently used results if needed.
+   * The result is dropped if the query's results were invalidated since readGeneration was taken.
+   */
+  void put(
+      String signature,
+      Source source,
+      @Nullable String namespace,
+      Map<String, Object> result,
+      long ttlMs,
+      long readGeneration) {
+    byte[] payload = new JSONObject(result).toString().getBytes(StandardCharsets.UTF_8);
+    long size = HEADER_BYTES + payload.length;
+
+    if (size > MAX_CACHE_BYTES) {
+      return;
+    }
+
+    synchronized (this) {
+      loadEntries();
+    }
+
+    String fileName = getFileName(signature, source, namespace);
+    File file = new File(directory, fileName);
+    File tempFile = new File(directory, fileName + ".tmp");
+
+    try {
+      if (!directory.exists() && !directory.mkdirs()) {
+        return;
+      }
+
+      try (DataOutputStream outputStream =
+          new DataOutputStream(new FileOutputStream(tempFile))) {
+        outputStream.writeLong(System.currentTimeMillis() + ttlMs);
+        outputStream.write(payload);
+      }
+
+      // readers which opened the previous file keep reading its contents
+      if (!tempFile.renameTo(file)) {
+        tempFile.delete();
+        return;
+      }
+    } catch (IOException e) {
+      Log.w(TAG, "Failed to write query result " + fileName, e);
+      tempFile.delete();
+      return;
+    }
+
+    synchronized (this) {
+      if (getGeneration(signature) != readGeneration) {
+        remove(fileName);
+        return;
+      }
+
+      Long previousSize = entries.put(fileName, size);
+      totalBytes += size - (previousSize == null ? 0 : previousSize);
+      evict();
+    }
+  }
+
+  /** Removes the results cached for a query for every Source and namespace. */
+  void invalidate(String signature) {
+    invalidatePrefix(signature + '.');
+  }
+
+  synchronized void clear() {
+    loadEntries();
+    clearedAt = ++invalidationCount;
+    invalidations.clear();
+    for (String fileName : entries.keySet()) {
+      new File(directory, fileName).delete();
+    }
+    entries.clear();
+    totalBytes = 0;
+  }
+
+  /**
+   * Removes the entries whose file name starts with prefix, the signature followed by '.', or the
+   * scope followed by '-'. Entries not loaded yet are removed when they are, so this never lists
+   * the directory.
+   */
+  private synchronized void invalidatePrefix(String prefix) {
+    invalidations.put(prefix.substring(0, prefix.length() - 1), ++invalidationCount);
+
+    if (!loaded) {
+      pendingInvalidations.add(prefix);
+      return;
+    }
+
+    removePrefix(prefix);
+  }
+
+  private void removePrefix(String prefix) {
+    Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+
+    while (iterator.hasNext()) {
+      Map.Entry<String, Long> entry = iterator.next();
+      if (entry.getKey().startsWith(prefix)) {
+        totalBytes -= entry.getValue();
+        iterator.remove();
+        new File(directory, entry.getKey()).delete();
+      }
+    }
+  }
+
+  private synchronized void remove(String fileName) {
+    Long size = entries.remove(fileName);
+    if (size != null) {
+      totalBytes -= size;
+    }
+    new File(directory, fileName).delete();
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+
+    while (totalBytes > MAX_CACHE_BYTES && iterator.hasNext()) {
+      Map.Entry<String, Long> eldest = iterator.next();
+      totalBytes -= eldest.getValue();
+      iterator.remove();
+      new File(directory, eldest.getKey()).delete();
+    }
+  }
+
+  /** Indexes results persisted by previous sessions, oldest first, on first use. */
+  private void loadEntries() {
+    if (loaded) {
+      return;
+    }
+    loaded = true;
+    inUse = true;
+
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    List<File> results = new ArrayList<>(files.length);
+    for (File file : files) {
+      if (file.getName().endsWith(".tmp")) {
+        file.delete();
+      } else {
+        results.add(file);
+      }
+    }
+
+    File[] sorted = results.toArray(new File[0]);
+    Arrays.sort(
+        sorted, (first, second) -> Long.compare(first.lastModified(), second.lastModified()));
+
+    for (File file : sorted) {
+      entries.put(file.getName(), file.length());
+      totalBytes += file.length();
+    }
+
+    for (String prefix : pendingInvalidations) {
+      removePrefix(prefix);
+    }
+    pendingInvalidations.clear();
+
+    evict();
+  }
+
+  private static String getFileName(String signature, Source source, @Nullable String namespace) {
+    // results read without a namespace are kept apart from every namespace's
+    return signature + '.' + source.name() + '.' + (namespace == null ? "none" : hash(namespace));
+  }
+
+  private static String getScope(String appName, @Nullable String collectionId) {
+    // short, a collision only removes more entries than needed
+    return hash(appName + '\n' + (collectionId == null ? "" : collectionId)).substring(0, 8);
+  }
+
+  private static String getScopePrefix(String signature) {
+    int separator = signature.indexOf('-');
+    return separator < 0 ? signature : signature.substring(0, separator);
+  }
+
+  private static String hash(String value) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+        hex.append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      return String.format("%08x", value.hashCode());
+    }
+  }
+
+  /**
+   * The signature of a listened query, computed the first time the listener sees changes while the
+   * cache is in use, so listeners don't pay for it otherwise.
+   */
+  static class LazyQuerySignature {
+    private final String appName;
+    @Nullable private final String collectionId;
+    private final String pathOrQueryName;
+    private final String type;
+    private final ReadableArray filters;
+    private final ReadableArray orders;
+    private final ReadableMap options;
+    @Nullable private String signature;
+
+    LazyQuerySignature(
+        String appName,
+        @Nullable String collectionId,
+        String pathOrQueryName,
+        String type,
+        ReadableArray filters,
+        ReadableArray orders,
+        ReadableMap options) {
+      this.appName = appName;
+      this.collectionId = collectionId;
+      this.pathOrQueryName = pathOrQueryName;
+      this.type = type;
+      this.filters = filters;
+      this.orders = orders;
+      this.options = options;
+    }
+
+    synchronized String get() {
+      if (signature == null) {
+        signature =
+            getQuerySignature(
+                appName, collectionId, pathOrQueryName, type, filters, orders, options);
+      }
+      return signature;
+    }
+  }
+
+  private static WritableMap jsonToWritableMap(JSONObject object) throws JSONException {
+    WritableMap map = Arguments.createMap();
+    Iterator<String> keys = object.keys();
+
+    while (keys.hasNext()) {
+      String key = keys.next();
+      Object value = object.get(key);
+
+      if (value instanceof JSONObject) {
+        map.putMap(key, jsonToWritableMap((JSONObject) value));
+      } else if (value instanceof JSONArray) {
+        map.putArray(key, jsonToWritableArray((JSONArray) value));
+      } else if (value instanceof Boolean) {
+        map.putBoolean(key, (Boolean) value);
+      } else if (value instanceof Number) {
+        map.putDouble(key, ((Number) value).doubleValue());
+      } else if (value instanceof String) {
+        map.putString(key, (String) value);
+      } else {
+        map.putNull(key);
+      }
+    }
+
+    return map;
+  }
+
+  private static WritableArray jsonToWritableArray(JSONArray array) throws JSONException {
+    WritableArray writableArray = Arguments.createArray();
+
+    for (int i = 0; i < array.length(); i++) {
+      Object value = array.get(i);
+
+      if (value instanceof JSONObject) {
+        writableArray.pushMap(jsonToWritableMap((JSONObject) value));
+      } else if (value instanceof JSONArray) {
+        writableArray.pushArray(jsonToWritableArray((JSONArray) value));
+      } else if (value instanceof Boolean) {
+        writableArray.pushBoolean((Boolean) value);
+      } else if (value instanceof Number) {
+        writableArray.pushDouble(((Number) value).doubleValue());
+      } else if (value instanceof String) {
+        writableArray.pushString((String) value);
+      } else {
+        writableArray.pushNull();
+      }
+    }
+
+    return writableArray;
+  }
+}
@@ -17,7 +17,7 @@ package io.invertase.firebase.firestore;
  *
  */
 
-import static io.invertase.firebase.common.RCTConvertFirebase.toHashMap;
+import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.getBlobHandleMinBytes;
 import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.getServerTimestampBehavior;
 
 import android.util.Base64;
@@ -26,6 +26,7 @@ import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.ReadableType;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.google.common.collect.Iterables;
@@ -46,6 +47,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nullable;
 
 // public access for native re-use in brownfield apps
@@ -72,6 +74,7 @@ public class ReactNativeFirebaseFirestoreSerialize {
   private static final int INT_OBJECT = 16;
   private static final int INT_INTEGER = 17;
   private static final int INT_NEGATIVE_ZERO = 18;
+  private static final int INT_BLOB_HANDLE = 19;
   private static final int INT_UNKNOWN = -999;
 
   // Keys
@@ -88,6 +91,17 @@ public class ReactNativeFirebaseFirestoreSerialize {
   private static final String KEY_DOC_CHANGE_NEW_INDEX = "ni";
   private static final String KEY_DOC_CHANGE_OLD_INDEX = "oi";
 
+  // FieldValue Types
+  private static final String FIELDVALUE_TIMESTAMP = "timestamp";
+  private static final String FIELDVALUE_INCREMENT = "increment";
+  private static final String FIELDVALUE_DELETE = "delete";
+  private static final String FIELDVALUE_ARRAY_UNION = "array_union";
+  private static final String FIELDVALUE_ARRAY_REMOVE = "array_remove";
+
+  // Value class to type map builder, see getTypeMapBuilder
+  private static final ConcurrentHashMap<Class<?>, TypeMapBuilder> TYPE_MAP_BUILDERS =
+      createTypeMapBuilders();
+
   // Document Change Types
   private static final String CHANGE_ADDED = "a";
   private static final String CHANGE_MODIFIED = "m";
@@ -118,7 +132,9 @@ public class ReactNativeFirebaseFirestoreSerialize {
     if (documentSnapshot.exists()) {
       if (documentSnapshot.getData(timestampBehavior) != null) {
         documentMap.putMap(
-            KEY_DATA, objectMapToWritable(documentSnapshot.getData(timestampBehavior)));
+            KEY_DATA,
+            objectMapToWritable(
+                documentSnapshot.getData(timestampBehavior), getBlobHandleMinBytes(appName)));
       }
     }
 
@@ -255,11 +271,11 @@ public class ReactNativeFirebaseFirestoreSerialize {
    * @param map Map<String, Object>
    * @return WritableMap
    */
-  private static WritableMap objectMapToWritable(Map<String, Object> map) {
+  private static WritableMap objectMapToWritable(Map<String, Object> map, int blobHandleMinBytes) {
     WritableMap writableMap = Arguments.createMap();
 
     for (Map.Entry<String, Object> entry : map.entrySet()) {
-      WritableArray typeMap = buildTypeMap(entry.getValue());
+      WritableArray typeMap = buildTypeMap(entry.getValue(), blobHandleMinBytes);
       writableMap.putArray(entry.getKey(), typeMap);
     }
 
@@ -267,23 +283,22 @@ public class ReactNativeFirebaseFirestoreSerialize {
   }
 
   /**
-   * Converts a Object array into a React Native WritableArray.
+   * Converts a List into a React Native WritableArray.
    *
-   * @param array Object[]
+   * @param list List<Object>
    * @return WritableArray
    */
-  private static WritableArray objectArrayToWritable(Object[] array) {
+  private static WritableArray listToWritable(List<Object> list, int blobHandleMinBytes) {
     WritableArray writableArray = Arguments.createArray();
 
-    for (Object item : array) {
-      WritableArray typeArray = buildTypeMap(item);
-      writableArray.pushArray(typeArray);
+    for (int i = 0, size = list.size(); i < size; i++) {
+      writableArray.pushArray(buildTypeMap(list.get(i), blobHandleMinBytes));
     }
 
     return writableArray;
   }
 
-  private static WritableArray buildTypeMap(Object value) {
+  private static WritableArray buildTypeMap(Object value, int blobHandleMinBytes) {
     WritableArray typeArray = Arguments.createArray();
 
     if (value == null) {
@@ -291,117 +306,227 @@ public class ReactNativeFirebaseFirestoreSerialize {
       return typeArray;
     }
 
-    if (value instanceof Boolean) {
-      Boolean boolValue = (Boolean) value;
-      if (boolValue) {
-        typeArray.pushInt(INT_BOOLEAN_TRUE);
-      } else {
-        typeArray.pushInt(INT_BOOLEAN_FALSE);
-      }
-      return typeArray;
+    getTypeMapBuilder(value.getClass()).build(typeArray, value, blobHandleMinBytes);
+    return typeArray;
+  }
+
+  /**
+   * Returns the builder for a value class. Exact classes are a single map lookup, subclasses (e.g.
+   * Map and List implementations) are resolved once and then cached by class.
+   */
+  private static TypeMapBuilder getTypeMapBuilder(Class<?> valueClass) {
+    TypeMapBuilder typeMapBuilder = TYPE_MAP_BUILDERS.get(valueClass);
+
+    if (typeMapBuilder == null) {
+      typeMapBuilder = resolveTypeMapBuilder(valueClass);
+      TYPE_MAP_BUILDERS.putIfAbsent(valueClass, typeMapBuilder);
     }
 
-    if (value instanceof Integer) {
-      typeArray.pushInt(INT_DOUBLE);
-      typeArray.pushDouble(((Integer) value).doubleValue());
-      return typeArray;
+    return typeMapBuilder;
+  }
+
+  private static TypeMapBuilder resolveTypeMapBuilder(Class<?> valueClass) {
+    if (Map.class.isAssignableFrom(valueClass)) {
+      return ReactNativeFirebaseFirestoreSerialize::buildMapTypeMap;
     }
 
-    if (value instanceof Double) {
-      Double doubleValue = (Double) value;
+    if (List.class.isAssignableFrom(valueClass)) {
+      return ReactNativeFirebaseFirestoreSerialize::buildListTypeMap;
+    }
 
-      if (Double.isInfinite(doubleValue)) {
-        if (doubleValue.equals(Double.NEGATIVE_INFINITY)) {
-          typeArray.pushInt(INT_NEGATIVE_INFINITY);
-          return typeArray;
-        }
+    if (DocumentReference.class.isAssignableFrom(valueClass)) {
+      return ReactNativeFirebaseFirestoreSerialize::buildReferenceTypeMap;
+    }
 
-        if (doubleValue.equals(Double.POSITIVE_INFINITY)) {
-          typeArray.pushInt(INT_POSITIVE_INFINITY);
-          return typeArray;
-        }
-      }
+    return (typeArray, value, blobHandleMinBytes) -> {
+      Log.w(TAG, "Unknown object of type " + valueClass);
+      typeArray.pushInt(INT_UNKNOWN);
+    };
+  }
 
-      if (Double.isNaN(doubleValue)) {
-        typeArray.pushInt(INT_NAN);
-        return typeArray;
-      }
+  private static ConcurrentHashMap<Class<?>, TypeMapBuilder> createTypeMapBuilders() {
+    ConcurrentHashMap<Class<?>, TypeMapBuilder> builders = new ConcurrentHashMap<>();
+
+    builders.put(
+        Boolean.class,
+        (typeArray, value, blobHandleMinBytes) ->
+            typeArray.pushInt((Boolean) value ? INT_BOOLEAN_TRUE : INT_BOOLEAN_FALSE));
+    builders.put(Integer.class, ReactNativeFirebaseFirestoreSerialize::buildNumberTypeMap);
+    builders.put(Long.class, ReactNativeFirebaseFirestoreSerialize::buildNumberTypeMap);
+    builders.put(Float.class, ReactNativeFirebaseFirestoreSerialize::buildNumberTypeMap);
+    builders.put(Double.class, ReactNativeFirebaseFirestoreSerialize::buildDoubleTypeMap);
+    builders.put(String.class, ReactNativeFirebaseFirestoreSerialize::buildStringTypeMap);
+    builders.put(HashMap.class, ReactNativeFirebaseFirestoreSerialize::buildMapTypeMap);
+    builders.put(ArrayList.class, ReactNativeFirebaseFirestoreSerialize::buildListTypeMap);
+    builders.put(
+        DocumentReference.class, ReactNativeFirebaseFirestoreSerialize::buildReferenceTypeMap);
+    builders.put(Timestamp.class, ReactNativeFirebaseFirestoreSerialize::buildTimestampTypeMap);
+    builders.put(GeoPoint.class, ReactNativeFirebaseFirestoreSerialize::buildGeoPointTypeMap);
+    builders.put(Blob.class, ReactNativeFirebaseFirestoreSerialize::buildBlobTypeMap);
+
+    return builders;
+  }
 
+  private static void buildNumberTypeMap(
+      WritableArray typeArray, Object value, int blobHandleMinBytes) {
+    typeArray.pushInt(INT_DOUBLE);
+    typeArray.pushDouble(((Number) value).doubleValue());
+  }
+
+  private static void buildDoubleTypeMap(
+      WritableArray typeArray, Object value, int blobHandleMinBytes) {
+    double doubleValue = (Double) value;
+
+    if (Double.isNaN(doubleValue)) {
+      typeArray.pushInt(INT_NAN);
+    } else if (doubleValue == Double.NEGATIVE_INFINITY) {
+      typeArray.pushInt(INT_NEGATIVE_INFINITY);
+    } else if (doubleValue == Double.POSITIVE_INFINITY) {
+      typeArray.pushInt(INT_POSITIVE_INFINITY);
+    } else {
       typeArray.pushInt(INT_DOUBLE);
       typeArray.pushDouble(doubleValue);
-      return typeArray;
     }
+  }
 
-    if (value instanceof Float) {
-      typeArray.pushInt(INT_DOUBLE);
-      typeArray.pushDouble(((Float) value).doubleValue());
-      return typeArray;
-    }
+  private static void buildStringTypeMap(
+      WritableArray typeArray, Object value, int blobHandleMinBytes) {
+    String stringValue = (String) value;
 
-    if (value instanceof Long) {
-      typeArray.pushInt(INT_DOUBLE);
-      typeArray.pushDouble(((Long) value).doubleValue());
-      return typeArray;
+    if (stringValue.isEmpty()) {
+      typeArray.pushInt(INT_STRING_EMPTY);
+    } else {
+      typeArray.pushInt(INT_STRING);
+      typeArray.pushString(stringValue);
     }
+  }
 
-    if (value instanceof String) {
-      if (value == "") {
-        typeArray.pushInt(INT_STRING_EMPTY);
-      } else {
-        typeArray.pushInt(INT_STRING);
-        typeArray.pushString((String) value);
-      }
-      return typeArray;
-    }
+  @SuppressWarnings("unchecked")
+  private static void buildMapTypeMap(
+      WritableArray typeArray, Object value, int blobHandleMinBytes) {
+    typeArray.pushInt(INT_OBJECT);
+    typeArray.pushMap(objectMapToWritable((Map<String, Object>) value, blobHandleMinBytes));
+  }
 
-    if (Map.class.isAssignableFrom(value.getClass())) {
-      typeArray.pushInt(INT_OBJECT);
-      typeArray.pushMap(objectMapToWritable((Map<String, Object>) value));
-      return typeArray;
-    }
+  @SuppressWarnings("unchecked")
+  private static void buildListTypeMap(
+      WritableArray typeArray, Object value, int blobHandleMinBytes) {
+    typeArray.pushInt(INT_ARRAY);
+    typeArray.pushArray(listToWritable((List<Object>) value, blobHandleMinBytes));
+  }
 
-    if (List.class.isAssignableFrom(value.getClass())) {
-      typeArray.pushInt(INT_ARRAY);
-      List<Object> list = (List<Object>) value;
-      Object[] array = list.toArray(new Object[list.size()]);
-      typeArray.pushArray(objectArrayToWritable(array));
-      return typeArray;
-    }
+  private static void buildReferenceTypeMap(
+      WritableArray typeArray, Object value, int blobHandleMinBytes) {
+    typeArray.pushInt(INT_REFERENCE);
+    typeArray.pushString(((DocumentReference) value).getPath());
+  }
 
-    if (value instanceof DocumentReference) {
-      typeArray.pushInt(INT_REFERENCE);
-      typeArray.pushString(((DocumentReference) value).getPath());
-      return typeArray;
-    }
+  private static void buildTimestampTypeMap(
+      WritableArray typeArray, Object value, int blobHandleMinBytes) {
+    Timestamp timestamp = (Timestamp) value;
+    WritableArray timestampArray = Arguments.createArray();
+    timestampArray.pushDouble(timestamp.getSeconds());
+    timestampArray.pushInt(timestamp.getNanoseconds());
+    typeArray.pushInt(INT_TIMESTAMP);
+    typeArray.pushArray(timestampArray);
+  }
 
-    if (value instanceof Timestamp) {
-      typeArray.pushInt(INT_TIMESTAMP);
-      WritableArray timestampArray = Arguments.createArray();
-      timestampArray.pushDouble(((Timestamp) value).getSeconds());
-      timestampArray.pushInt(((Timestamp) value).getNanoseconds());
-      typeArray.pushArray(timestampArray);
-      return typeArray;
-    }
+  private static void buildGeoPointTypeMap(
+      WritableArray typeArray, Object value, int blobHandleMinBytes) {
+    GeoPoint geoPoint = (GeoPoint) value;
+    WritableArray geopointArray = Arguments.createArray();
+    geopointArray.pushDouble(geoPoint.getLatitude());
+    geopointArray.pushDouble(geoPoint.getLongitude());
+    typeArray.pushInt(INT_GEOPOINT);
+    typeArray.pushArray(geopointArray);
+  }
 
-    if (value instanceof GeoPoint) {
-      typeArray.pushInt(INT_GEOPOINT);
-      WritableArray geopointArray = Arguments.createArray();
-      geopointArray.pushDouble(((GeoPoint) value).getLatitude());
-      geopointArray.pushDouble(((GeoPoint) value).getLongitude());
-      typeArray.pushArray(geopointArray);
-      return typeArray;
+  /**
+   * Blobs of at least blobHandleMinBytes are kept in the native blob pool and sent as a handle, JS
+   * then fetches the bytes only if needed. A negative blobHandleMinBytes always sends Base64, as
+   * does a full pool.
+   */
+  private static void buildBlobTypeMap(
+      WritableArray typeArray, Object value, int blobHandleMinBytes) {
+    byte[] bytes = ((Blob) value).toBytes();
+    int handle =
+        blobHandleMinBytes >= 0 && bytes.length >= blobHandleMinBytes
+            ? ReactNativeFirebaseFirestoreBlobPool.getSharedInstance().retain(bytes)
+            : ReactNativeFirebaseFirestoreBlobPool.NO_HANDLE;
+
+    if (handle != ReactNativeFirebaseFirestoreBlobPool.NO_HANDLE) {
+      WritableArray handleArray = Arguments.createArray();
+      handleArray.pushInt(handle);
+      handleArray.pushInt(bytes.length);
+      typeArray.pushInt(INT_BLOB_HANDLE);
+      typeArray.pushArray(handleArray);
+      return;
     }
 
-    if (value instanceof Blob) {
-      typeArray.pushInt(INT_BLOB);
-      typeArray.pushString(Base64.encodeToString(((Blob) value).toBytes(), Base64.NO_WRAP));
-      return typeArray;
+    typeArray.pushInt(INT_BLOB);
+    typeArray.pushString(Base64.encodeToString(bytes, Base64.NO_WRAP));
+  }
+
+  /**
+   * Adds a blob pool reference for every Blob handle in a serialized result, for a copy of it sent
+   * to another caller. Each caller then releases its own references.
+   */
+  static void retainBlobHandles(ReadableMap map) {
+    ReadableMapKeySetIterator iterator = map.keySetIterator();
+
+    while (iterator.hasNextKey()) {
+      String key = iterator.nextKey();
+      ReadableType type = map.getType(key);
+
+      if (type != ReadableType.Map && type != ReadableType.Array) {
+        continue;
+      }
+
+      if (KEY_DATA.equals(key) && type == ReadableType.Map) {
+        retainFieldBlobHandles(Objects.requireNonNull(map.getMap(key)));
+      } else if (type == ReadableType.Map) {
+        retainBlobHandles(Objects.requireNonNull(map.getMap(key)));
+      } else {
+        // documents and changes, other arrays of the result (e.g. metadata) hold no data
+        ReadableArray array = Objects.requireNonNull(map.getArray(key));
+        for (int i = 0; i < array.size(); i++) {
+          if (array.getType(i) == ReadableType.Map) {
+            retainBlobHandles(Objects.requireNonNull(array.getMap(i)));
+          }
+        }
+      }
     }
+  }
 
-    Log.w(TAG, "Unknown object of type " + value.getClass());
+  // a map of fields to type arrays, see objectMapToWritable
+  private static void retainFieldBlobHandles(ReadableMap fields) {
+    ReadableMapKeySetIterator iterator = fields.keySetIterator();
 
-    typeArray.pushInt(INT_UNKNOWN);
-    return typeArray;
+    while (iterator.hasNextKey()) {
+      retainTypeBlobHandles(Objects.requireNonNull(fields.getArray(iterator.nextKey())));
+    }
+  }
+
+  // only the type code of a type array is read, values such as the [latitude, longitude] of a
+  // GeoPoint may hold any number, see buildTypeMap
+  private static void retainTypeBlobHandles(ReadableArray typeArray) {
+    switch (typeArray.getInt(0)) {
+      case INT_BLOB_HANDLE:
+        ReactNativeFirebaseFirestoreBlobPool.getSharedInstance()
+            .retain(Objects.requireNonNull(typeArray.getArray(1)).getInt(0));
+        break;
+      case INT_OBJECT:
+        retainFieldBlobHandles(Objects.requireNonNull(typeArray.getMap(1)));
+        break;
+      case INT_ARRAY:
+        ReadableArray items = Objects.requireNonNull(typeArray.getArray(1));
+        for (int i = 0; i < items.size(); i++) {
+          retainTypeBlobHandles(Objects.requireNonNull(items.getArray(i)));
+        }
+        break;
+      default:
+        break;
+    }
   }
 
   /**
@@ -414,9 +539,18 @@ public class ReactNativeFirebaseFirestoreSerialize {
    */
   public static Map<String, Object> parseReadableMap(
       FirebaseFirestore firestore, @Nullable ReadableMap readableMap) {
-    Map<String, Object> map = new HashMap<>();
-    if (readableMap == null) return map;
+    if (readableMap == null) return new HashMap<>();
+
+    // ReadableMap has no size(), counting the keys first is cheap (the keys are already local) and
+    // lets the HashMap be allocated once at its final capacity rather than rehashed as it grows
+    int size = 0;
+    ReadableMapKeySetIterator counter = readableMap.keySetIterator();
+    while (counter.hasNextKey()) {
+      counter.nextKey();
+      size++;
+    }
 
+    Map<String, Object> map = new HashMap<>(getHashMapCapacity(size));
     ReadableMapKeySetIterator iterator = readableMap.keySetIterator();
     while (iterator.hasNextKey()) {
       String key = iterator.nextKey();
@@ -426,6 +560,11 @@ public class ReactNativeFirebaseFirestoreSerialize {
     return map;
   }
 
+  /** Returns the initial capacity a HashMap needs to hold size entries without resizing. */
+  private static int getHashMapCapacity(int size) {
+    return size < 3 ? size + 1 : (int) (size / 0.75f + 1.0f);
+  }
+
   /**
    * Convert a RN array to a valid Firestore array
    *
@@ -435,16 +574,30 @@ public class ReactNativeFirebaseFirestoreSerialize {
    */
   static List<Object> parseReadableArray(
       FirebaseFirestore firestore, @Nullable ReadableArray readableArray) {
-    List<Object> list = new ArrayList<>();
-    if (readableArray == null) return list;
+    if (readableArray == null) return new ArrayList<>();
 
-    for (int i = 0; i < readableArray.size(); i++) {
+    int size = readableArray.size();
+    List<Object> list = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
       list.add(parseTypeMap(firestore, readableArray.getArray(i)));
     }
 
     return list;
   }
 
+  /** Parses the elements of a FieldValue.arrayUnion/arrayRemove, without an intermediate list. */
+  private static Object[] parseFieldValueElements(
+      FirebaseFirestore firestore, @Nullable ReadableArray readableArray) {
+    if (readableArray == null) return new Object[0];
+
+    Object[] elements = new Object[readableArray.size()];
+    for (int i = 0; i < elements.length; i++) {
+      elements[i] = parseTypeMap(firestore, readableArray.getArray(i));
+    }
+
+    return elements;
+  }
+
   static Object parseTypeMap(FirebaseFirestore firestore, ReadableArray typeArray) {
     int value = typeArray.getInt(0);
 
@@ -487,31 +640,16 @@ public class ReactNativeFirebaseFirestoreSerialize {
             (long) Objects.requireNonNull(timestampArray).getDouble(0), timestampArray.getInt(1));
       case INT_BLOB:
         return Blob.fromBytes(Base64.decode(typeArray.getString(1), Base64.NO_WRAP));
-      case INT_FIELDVALUE:
-        ReadableArray fieldValueArray = typeArray.getArray(1);
-        String fieldValueType = Objects.requireNonNull(fieldValueArray).getString(0);
-
-        if (Objects.requireNonNull(fieldValueType).equals("timestamp")) {
-          return FieldValue.serverTimestamp();
-        }
-
-        if (Objects.requireNonNull(fieldValueType).equals("increment")) {
-          return FieldValue.increment(fieldValueArray.getDouble(1));
-        }
-
-        if (Objects.requireNonNull(fieldValueType).equals("delete")) {
-          return FieldValue.delete();
-        }
-
-        if (Objects.requireNonNull(fieldValueType).equals("array_union")) {
-          ReadableArray elements = fieldValueArray.getArray(1);
-          return FieldValue.arrayUnion(parseReadableArray(firestore, elements).toArray());
-        }
-
-        if (Objects.requireNonNull(fieldValueType).equals("array_remove")) {
-          ReadableArray elements = fieldValueArray.getArray(1);
-          return FieldValue.arrayRemove(parseReadableArray(firestore, elements).toArray());
+      case INT_BLOB_HANDLE:
+        int handle = typeArray.getInt(1);
+        byte[] bytes = ReactNativeFirebaseFirestoreBlobPool.getSharedInstance().getBytes(handle);
+        if (bytes == null) {
+          throw new IllegalArgumentException(
+              "Blob handle " + handle + " has been released, load() the Blob before writing it.");
         }
+        return Blob.fromBytes(bytes);
+      case INT_FIELDVALUE:
+        return parseFieldValue(firestore, Objects.requireNonNull(typeArray.getArray(1)));
       case INT_OBJECT:
         return parseReadableMap(firestore, typeArray.getMap(1));
       case INT_UNKNOWN:
@@ -520,35 +658,104 @@ public class ReactNativeFirebaseFirestoreSerialize {
     }
   }
 
+  private static Object parseFieldValue(
+      FirebaseFirestore firestore, ReadableArray fieldValueArray) {
+    String fieldValueType = Objects.requireNonNull(fieldValueArray.getString(0));
+
+    switch (fieldValueType) {
+      case FIELDVALUE_TIMESTAMP:
+        return FieldValue.serverTimestamp();
+      case FIELDVALUE_INCREMENT:
+        return FieldValue.increment(fieldValueArray.getDouble(1));
+      case FIELDVALUE_DELETE:
+        return FieldValue.delete();
+      case FIELDVALUE_ARRAY_UNION:
+        return FieldValue.arrayUnion(
+            parseFieldValueElements(firestore, fieldValueArray.getArray(1)));
+      case FIELDVALUE_ARRAY_REMOVE:
+        return FieldValue.arrayRemove(
+            parseFieldValueElements(firestore, fieldValueArray.getArray(1)));
+      default:
+        // writing null in its place would silently change the document
+        throw new IllegalArgumentException("Unknown FieldValue type " + fieldValueType);
+    }
+  }
+
   /**
    * Parse JS batches array from batch().commit()
    *
    * @param firestore FirebaseFirestore
    * @param readableArray ReadableArray
-   * @return List<Object>
+   * @return List<DocumentWrite>
    */
-  static List<Object> parseDocumentBatches(
+  static List<DocumentWrite> parseDocumentBatches(
       FirebaseFirestore firestore, ReadableArray readableArray) {
-    List<Object> writes = new ArrayList<>(readableArray.size());
+    int size = readableArray.size();
+    List<DocumentWrite> writes = new ArrayList<>(size);
 
-    for (int i = 0; i < readableArray.size(); i++) {
-      Map<String, Object> write = new HashMap<>();
-      ReadableMap map = readableArray.getMap(i);
-
-      write.put(TYPE, map.getString(TYPE));
-      write.put(KEY_PATH, map.getString(KEY_PATH));
+    for (int i = 0; i < size; i++) {
+      ReadableMap map = Objects.requireNonNull(readableArray.getMap(i));
+      Map<String, Object> data = null;
+      boolean merge = false;
+      List<String> mergeFields = null;
 
       if (map.hasKey(KEY_DATA)) {
-        write.put(KEY_DATA, parseReadableMap(firestore, map.getMap(KEY_DATA)));
+        data = parseReadableMap(firestore, map.getMap(KEY_DATA));
       }
 
       if (map.hasKey(KEY_OPTIONS)) {
-        write.put(KEY_OPTIONS, toHashMap(map.getMap(KEY_OPTIONS)));
+        ReadableMap options = Objects.requireNonNull(map.getMap(KEY_OPTIONS));
+        merge = options.hasKey("merge") && options.getBoolean("merge");
+
+        if (options.hasKey("mergeFields")) {
+          ReadableArray fields = Objects.requireNonNull(options.getArray("mergeFields"));
+          mergeFields = new ArrayList<>(fields.size());
+          for (int j = 0; j < fields.size(); j++) {
+            mergeFields.add(fields.getString(j));
+          }
+        }
       }
 
-      writes.add(write);
+      writes.add(
+          new DocumentWrite(
+              Objects.requireNonNull(map.getString(TYPE)),
+              Objects.requireNonNull(map.getString(KEY_PATH)),
+              data,
+              merge,
+              mergeFields));
     }
 
     return writes;
   }
+
+  /** A parsed write of a batch, see parseDocumentBatches. */
+  static final class DocumentWrite {
+    /** "SET", "UPDATE" or "DELETE". */
+    final String type;
+
+    final String path;
+    /** The parsed data, null for a delete. */
+    @Nullable final Map<String, Object> data;
+    /** For a set, whether to merge into the existing document. */
+    final boolean merge;
+    /** For a set, the only fields to merge into the existing document. */
+    @Nullable final List<String> mergeFields;
+
+    DocumentWrite(
+        String type,
+        String path,
+        @Nullable Map<String, Object> data,
+        boolean merge,
+        @Nullable List<String> mergeFields) {
+      this.type = type;
+      this.path = path;
+      this.data = data;
+      this.merge = merge;
+      this.mergeFields = mergeFields;
+    }
+  }
+
+  private interface TypeMapBuilder {
+    void build(WritableArray typeArray, Object value, int blobHandleMinBytes);
+  }
 }
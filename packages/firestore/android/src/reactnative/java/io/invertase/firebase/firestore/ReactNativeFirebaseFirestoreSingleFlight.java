@@ -0,0 +1,158 @@
+package io.invertase.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Shares a single in-flight Task between concurrent callers requesting the same key. The first
+ * caller starts the work, later callers join it until it completes.
+ *
+ * <p>Every caller gets its own Task. With a copier, the first caller gets the original result and
+ * every other caller a copy, made before any of the Tasks complete, e.g. for results which can
+ * only be consumed once.
+ */
+class ReactNativeFirebaseFirestoreSingleFlight<K, V> {
+  // guarded by synchronized (inFlight)
+  private final Map<K, List<TaskCompletionSource<V>>> inFlight = new HashMap<>();
+  @Nullable private final Copier<V> copier;
+
+  ReactNativeFirebaseFirestoreSingleFlight() {
+    this(null);
+  }
+
+  ReactNativeFirebaseFirestoreSingleFlight(@Nullable Copier<V> copier) {
+    this.copier = copier;
+  }
+
+  Task<V> execute(K key, Callable<Task<V>> taskFactory) {
+    return execute(key, taskFactory, null);
+  }
+
+  /**
+   * @param stats counts the call, and whether it joined an in-flight Task, if set
+   */
+  Task<V> execute(K key, Callable<Task<V>> taskFactory, @Nullable Stats stats) {
+    TaskCompletionSource<V> completionSource = new TaskCompletionSource<>();
+    List<TaskCompletionSource<V>> waiters;
+
+    if (stats != null) {
+      stats.requests.incrementAndGet();
+    }
+
+    synchronized (inFlight) {
+      List<TaskCompletionSource<V>> existingWaiters = inFlight.get(key);
+      if (existingWaiters != null) {
+        existingWaiters.add(completionSource);
+        if (stats != null) {
+          stats.shared.incrementAndGet();
+        }
+        return completionSource.getTask();
+      }
+
+      waiters = new ArrayList<>(1);
+      waiters.add(completionSource);
+      inFlight.put(key, waiters);
+    }
+
+    Task<V> task;
+    try {
+      task = taskFactory.call();
+    } catch (Exception e) {
+      complete(key, waiters, null, e);
+      return completionSource.getTask();
+    }
+
+    task.addOnCompleteListener(
+        Runnable::run,
+        completedTask -> {
+          if (completedTask.isSuccessful()) {
+            complete(key, waiters, completedTask.getResult(), null);
+          } else if (completedTask.getException() != null) {
+            complete(key, waiters, null, completedTask.getException());
+          } else {
+            complete(key, waiters, null, new CancellationException());
+          }
+        });
+
+    return completionSource.getTask();
+  }
+
+  private void complete(
+      K key,
+      List<TaskCompletionSource<V>> waiters,
+      @Nullable V result,
+      @Nullable Exception exception) {
+    List<TaskCompletionSource<V>> completedWaiters;
+
+    synchronized (inFlight) {
+      // removed before completing so callers arriving after completion start a new request
+      inFlight.remove(key);
+      completedWaiters = new ArrayList<>(waiters);
+    }
+
+    if (exception != null) {
+      for (TaskCompletionSource<V> waiter : completedWaiters) {
+        waiter.setException(exception);
+      }
+      return;
+    }
+
+    List<V> results = new ArrayList<>(completedWaiters.size());
+    List<RuntimeException> copyExceptions = new ArrayList<>(completedWaiters.size());
+    results.add(result);
+    copyExceptions.add(null);
+    for (int i = 1; i < completedWaiters.size(); i++) {
+      try {
+        results.add(copier != null && result != null ? copier.copy(result) : result);
+        copyExceptions.add(null);
+      } catch (RuntimeException e) {
+        // a failed copy only fails its own waiter, the others still complete
+        results.add(null);
+        copyExceptions.add(e);
+      }
+    }
+
+    for (int i = 0; i < completedWaiters.size(); i++) {
+      if (copyExceptions.get(i) != null) {
+        completedWaiters.get(i).setException(copyExceptions.get(i));
+      } else {
+        completedWaiters.get(i).setResult(results.get(i));
+      }
+    }
+  }
+
+  interface Copier<V> {
+    V copy(V value);
+  }
+
+  /** Counters of the calls to execute, e.g. per app. */
+  static class Stats {
+    final AtomicLong requests = new AtomicLong();
+    final AtomicLong shared = new AtomicLong();
+  }
+}
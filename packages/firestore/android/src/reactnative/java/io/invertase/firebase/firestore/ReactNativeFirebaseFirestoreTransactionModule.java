@@ -18,6 +18,7 @@ package io.invertase.firebase.firestore;
  */
 
 import static io.invertase.firebase.common.RCTConvertFirebase.toArrayList;
+import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.onLocalWrite;
 import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreSerialize.parseReadableMap;
 import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreSerialize.snapshotToWritableMap;
 import static io.invertase.firebase.firestore.UniversalFirebaseFirestoreCommon.getDocumentForFirestore;
@@ -119,6 +120,8 @@ public class ReactNativeFirebaseFirestoreTransactionModule extends ReactNativeFi
 
     FirebaseFirestore firebaseFirestore = getFirestoreForApp(appName);
     ReactNativeFirebaseEventEmitter emitter = ReactNativeFirebaseEventEmitter.getSharedInstance();
+    // the documents written by the last attempt, which is the one committed
+    List<DocumentReference> writtenDocuments = new ArrayList<>();
 
     // Provides its own executor
     firebaseFirestore
@@ -126,6 +129,7 @@ public class ReactNativeFirebaseFirestoreTransactionModule extends ReactNativeFi
             (Transaction.Function<Void>)
                 transaction -> {
                   transactionHandler.resetState(transaction);
+                  writtenDocuments.clear();
 
                   AsyncTask.execute(
                       () -> {
@@ -175,6 +179,7 @@ public class ReactNativeFirebaseFirestoreTransactionModule extends ReactNativeFi
                     String type = command.getString("type");
                     DocumentReference documentReference =
                         getDocumentForFirestore(firebaseFirestore, path);
+                    writtenDocuments.add(documentReference);
 
                     switch (Objects.requireNonNull(type)) {
                       case "SET":
@@ -213,6 +218,10 @@ public class ReactNativeFirebaseFirestoreTransactionModule extends ReactNativeFi
                 })
         .addOnCompleteListener(
             task -> {
+              if (task.isSuccessful()) {
+                onLocalWrite(appName, writtenDocuments);
+              }
+
               if (transactionHandler.aborted) {
                 return;
               }
@@ -0,0 +1,482 @@
+package io.invertase.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import static io.invertase.firebase.firestore.ReactNativeFirebaseFirestoreCommon.onLocalWrite;
+
+import android.os.Handler;
+import android.os.Looper;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.GeoPoint;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * Tracks the writes issued through the module which the server has not acknowledged yet, per app,
+ * and defers writes to low priority collections while other writes are pending.
+ *
+ * <p>A write (or batch) only touching collections whose id was set as low priority is held in an
+ * in-memory queue while any other write is pending, then submitted to the Firestore SDK in order
+ * once they have all been acknowledged, or once it has waited maxDeferMs. Deferred writes are not
+ * persisted: they are lost if the process dies before they are submitted. Any other write to a
+ * document with a deferred write pending first submits the deferred writes queued up to the last
+ * one to that document, so writes to a document always reach the SDK in the order they were made.
+ */
+class ReactNativeFirebaseFirestoreWriteBacklog {
+  private static final long DEFAULT_MAX_DEFER_MS = 60000;
+  private static final Map<String, ReactNativeFirebaseFirestoreWriteBacklog> backlogs =
+      new ConcurrentHashMap<>();
+  private static final Handler handler = new Handler(Looper.getMainLooper());
+
+  private final String appName;
+  private final Object lock = new Object();
+  // held while deferred writes are taken from the queue and handed to the SDK, before lock
+  private final Object submitLock = new Object();
+  private final Map<Long, PendingWrite> pendingWrites = new HashMap<>();
+  private final ArrayDeque<DeferredWrite> deferredWrites = new ArrayDeque<>();
+  // document path -> the number of deferred writes to it not handed to the SDK yet
+  private final Map<String, Integer> deferredDocuments = new HashMap<>();
+  private final Runnable deferTimeoutRunnable = this::submitDeferredWrites;
+  private Set<String> lowPriorityCollectionIds = Collections.emptySet();
+  private long maxDeferMs = DEFAULT_MAX_DEFER_MS;
+  private int priorityWritesPending = 0;
+  private long nextWriteId = 0;
+
+  private ReactNativeFirebaseFirestoreWriteBacklog(String appName) {
+    this.appName = appName;
+  }
+
+  static ReactNativeFirebaseFirestoreWriteBacklog getForApp(String appName) {
+    ReactNativeFirebaseFirestoreWriteBacklog backlog = backlogs.get(appName);
+    if (backlog == null) {
+      backlogs.putIfAbsent(appName, new ReactNativeFirebaseFirestoreWriteBacklog(appName));
+      backlog = backlogs.get(appName);
+    }
+    return backlog;
+  }
+
+  /**
+   * Sets the ids of collections whose writes are deferred while other writes are pending. Writes
+   * already deferred to a collection which is no longer low priority are submitted.
+   */
+  void setLowPriorityCollections(List<String> collectionIds, long maxDeferMs) {
+    synchronized (lock) {
+      lowPriorityCollectionIds = new HashSet<>(collectionIds);
+      this.maxDeferMs = maxDeferMs > 0 ? maxDeferMs : DEFAULT_MAX_DEFER_MS;
+    }
+    submitDeferredWrites();
+  }
+
+  /**
+   * Submits a write to the given documents through writeSubmitter, now or once no other write is
+   * pending if every document is in a low priority collection.
+   *
+   * @param data the parsed data written, a Map or a List of them for a batch, null for a delete.
+   *     Its size is only estimated if pendingWrites() reports it, see estimateBytes
+   * @return a task completed when the server acknowledged the write
+   */
+  Task<Void> submit(
+      List<DocumentReference> documents,
+      @Nullable Object data,
+      Callable<Task<Void>> writeSubmitter) {
+    WriteSize size = new WriteSize(data);
+    boolean lowPriority;
+    boolean afterDeferred;
+
+    synchronized (lock) {
+      lowPriority = isLowPriority(documents);
+
+      if (lowPriority && (priorityWritesPending > 0 || !deferredWrites.isEmpty())) {
+        DeferredWrite deferredWrite = new DeferredWrite(documents, size, writeSubmitter);
+        deferredWrites.add(deferredWrite);
+        updateDeferredDocuments(documents, 1);
+        if (deferredWrites.size() == 1) {
+          handler.postDelayed(deferTimeoutRunnable, maxDeferMs);
+        }
+        return deferredWrite.completionSource.getTask();
+      }
+
+      afterDeferred = isDeferred(documents);
+    }
+
+    if (!afterDeferred) {
+      return track(documents, size, !lowPriority, writeSubmitter);
+    }
+
+    synchronized (submitLock) {
+      List<DeferredWrite> toSubmit = new ArrayList<>();
+
+      synchronized (lock) {
+        int count = 0;
+        int lastToDocuments = 0;
+        for (DeferredWrite write : deferredWrites) {
+          count++;
+          if (touchesAny(write.documents, documents)) {
+            lastToDocuments = count;
+          }
+        }
+
+        for (int i = 0; i < lastToDocuments; i++) {
+          toSubmit.add(deferredWrites.poll());
+        }
+        scheduleDeferTimeout(System.currentTimeMillis());
+      }
+
+      submitDeferred(toSubmit);
+      return track(documents, size, !lowPriority, writeSubmitter);
+    }
+  }
+
+  WritableMap toWritableMap() {
+    long now = System.currentTimeMillis();
+    Map<String, WritableMap> collections = new HashMap<>();
+    WritableMap totals = Arguments.createMap();
+    long count = 0;
+    long bytes = 0;
+    long oldest = now;
+    long deferred;
+
+    synchronized (lock) {
+      for (PendingWrite write : pendingWrites.values()) {
+        long estimatedBytes = write.size.get();
+        for (DocumentReference document : write.documents) {
+          addToCollection(collections, document, estimatedBytes, write.issuedAt, false, now);
+        }
+        count += write.documents.size();
+        bytes += estimatedBytes;
+        oldest = Math.min(oldest, write.issuedAt);
+      }
+
+      for (DeferredWrite write : deferredWrites) {
+        long estimatedBytes = write.size.get();
+        for (DocumentReference document : write.documents) {
+          addToCollection(collections, document, estimatedBytes, write.deferredAt, true, now);
+        }
+        count += write.documents.size();
+        bytes += estimatedBytes;
+        oldest = Math.min(oldest, write.deferredAt);
+      }
+
+      deferred = deferredWrites.size();
+    }
+
+    WritableMap collectionsMap = Arguments.createMap();
+    for (Map.Entry<String, WritableMap> entry : collections.entrySet()) {
+      collectionsMap.putMap(entry.getKey(), entry.getValue());
+    }
+
+    totals.putDouble("count", count);
+    totals.putDouble("bytes", bytes);
+    totals.putDouble("oldestAgeMs", now - oldest);
+    totals.putDouble("deferredWrites", deferred);
+    totals.putMap("collections", collectionsMap);
+    return totals;
+  }
+
+  /**
+   * Approximates the encoded size of parsed write data: string lengths, blob sizes and a fixed
+   * size for every other value. Only used to compare backlogs, it is not the size on the wire.
+   */
+  static long estimateBytes(Object value) {
+    if (value instanceof Map) {
+      long bytes = 0;
+      for (Object entry : ((Map<?, ?>) value).entrySet()) {
+        Map.Entry<?, ?> mapEntry = (Map.Entry<?, ?>) entry;
+        bytes += String.valueOf(mapEntry.getKey()).length() + estimateBytes(mapEntry.getValue());
+      }
+      return bytes;
+    }
+
+    if (value instanceof List) {
+      long bytes = 0;
+      for (Object item : (List<?>) value) {
+        bytes += estimateBytes(item);
+      }
+      return bytes;
+    }
+
+    if (value instanceof String) {
+      return ((String) value).length();
+    }
+
+    if (value instanceof Blob) {
+      return ((Blob) value).toBytes().length;
+    }
+
+    if (value instanceof DocumentReference) {
+      return ((DocumentReference) value).getPath().length();
+    }
+
+    if (value instanceof GeoPoint) {
+      return 16;
+    }
+
+    if (value instanceof Timestamp) {
+      return 12;
+    }
+
+    return 8;
+  }
+
+  private boolean isLowPriority(List<DocumentReference> documents) {
+    if (lowPriorityCollectionIds.isEmpty() || documents.isEmpty()) {
+      return false;
+    }
+
+    for (DocumentReference document : documents) {
+      if (!lowPriorityCollectionIds.contains(document.getParent().getId())) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /** Whether a deferred write to any of the documents has not been handed to the SDK yet. */
+  private boolean isDeferred(List<DocumentReference> documents) {
+    if (deferredDocuments.isEmpty()) {
+      return false;
+    }
+
+    for (DocumentReference document : documents) {
+      if (deferredDocuments.containsKey(document.getPath())) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private void updateDeferredDocuments(List<DocumentReference> documents, int delta) {
+    for (DocumentReference document : documents) {
+      String path = document.getPath();
+      Integer writes = deferredDocuments.get(path);
+      int remaining = (writes == null ? 0 : writes) + delta;
+      if (remaining > 0) {
+        deferredDocuments.put(path, remaining);
+      } else {
+        deferredDocuments.remove(path);
+      }
+    }
+  }
+
+  private static boolean touchesAny(
+      List<DocumentReference> documents, List<DocumentReference> others) {
+    for (DocumentReference document : documents) {
+      for (DocumentReference other : others) {
+        if (document.getPath().equals(other.getPath())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private Task<Void> track(
+      List<DocumentReference> documents,
+      WriteSize size,
+      boolean priority,
+      Callable<Task<Void>> writeSubmitter) {
+    Task<Void> writeTask;
+
+    try {
+      writeTask = writeSubmitter.call();
+      onLocalWrite(appName, documents);
+    } catch (Exception e) {
+      TaskCompletionSource<Void> failed = new TaskCompletionSource<>();
+      failed.setException(e);
+      return failed.getTask();
+    }
+
+    long writeId;
+    synchronized (lock) {
+      writeId = nextWriteId++;
+      pendingWrites.put(writeId, new PendingWrite(documents, size, priority));
+      if (priority) {
+        priorityWritesPending++;
+      }
+    }
+
+    writeTask.addOnCompleteListener(Runnable::run, task -> onWriteSettled(writeId));
+    return writeTask;
+  }
+
+  private void onWriteSettled(long writeId) {
+    boolean submitDeferred;
+
+    synchronized (lock) {
+      PendingWrite write = pendingWrites.remove(writeId);
+      if (write != null && write.priority) {
+        priorityWritesPending--;
+      }
+      submitDeferred = priorityWritesPending == 0 && !deferredWrites.isEmpty();
+    }
+
+    if (submitDeferred) {
+      submitDeferredWrites();
+    }
+  }
+
+  /**
+   * Submits deferred writes in order, stopping at the first one which is still low priority, has
+   * not waited maxDeferMs yet and priority writes are pending for.
+   */
+  private void submitDeferredWrites() {
+    synchronized (submitLock) {
+      List<DeferredWrite> toSubmit = new ArrayList<>();
+      long now = System.currentTimeMillis();
+
+      synchronized (lock) {
+        while (!deferredWrites.isEmpty()) {
+          DeferredWrite write = deferredWrites.peek();
+          boolean expired = now - write.deferredAt >= maxDeferMs;
+          if (priorityWritesPending > 0 && isLowPriority(write.documents) && !expired) {
+            break;
+          }
+          toSubmit.add(deferredWrites.poll());
+        }
+
+        scheduleDeferTimeout(now);
+      }
+
+      submitDeferred(toSubmit);
+    }
+  }
+
+  /** Hands writes taken from the deferred queue to the SDK in order, holding submitLock. */
+  private void submitDeferred(List<DeferredWrite> writes) {
+    for (DeferredWrite write : writes) {
+      track(write.documents, write.size, false, write.writeSubmitter)
+          .addOnCompleteListener(
+              Runnable::run,
+              task -> {
+                if (task.isSuccessful()) {
+                  write.completionSource.setResult(null);
+                } else {
+                  write.completionSource.setException(task.getException());
+                }
+              });
+
+      // only now, so writes to its documents made meanwhile waited for submitLock
+      synchronized (lock) {
+        updateDeferredDocuments(write.documents, -1);
+      }
+    }
+  }
+
+  private void scheduleDeferTimeout(long now) {
+    handler.removeCallbacks(deferTimeoutRunnable);
+    DeferredWrite next = deferredWrites.peek();
+    if (next != null) {
+      long delay = Math.max(0, next.deferredAt + maxDeferMs - now);
+      handler.postDelayed(deferTimeoutRunnable, delay);
+    }
+  }
+
+  private static void addToCollection(
+      Map<String, WritableMap> collections,
+      DocumentReference document,
+      long estimatedBytes,
+      long since,
+      boolean deferred,
+      long now) {
+    String collectionPath = document.getParent().getPath();
+    WritableMap collection = collections.get(collectionPath);
+
+    if (collection == null) {
+      collection = Arguments.createMap();
+      collection.putDouble("count", 0);
+      collection.putDouble("bytes", 0);
+      collection.putDouble("oldestAgeMs", 0);
+      collection.putDouble("deferred", 0);
+      collections.put(collectionPath, collection);
+    }
+
+    collection.putDouble("count", collection.getDouble("count") + 1);
+    // a batch's size is attributed to each collection it writes to
+    collection.putDouble("bytes", collection.getDouble("bytes") + estimatedBytes);
+    collection.putDouble("oldestAgeMs", Math.max(collection.getDouble("oldestAgeMs"), now - since));
+    if (deferred) {
+      collection.putDouble("deferred", collection.getDouble("deferred") + 1);
+    }
+  }
+
+  /**
+   * The estimated size of a write, computed from its data the first time pendingWrites() reports
+   * it, so writes made while it is never called don't pay for it. Only accessed holding lock.
+   */
+  private static class WriteSize {
+    @Nullable private Object data;
+    private long estimatedBytes = 0;
+
+    WriteSize(@Nullable Object data) {
+      this.data = data;
+    }
+
+    long get() {
+      if (data != null) {
+        estimatedBytes = estimateBytes(data);
+        data = null;
+      }
+      return estimatedBytes;
+    }
+  }
+
+  private static class PendingWrite {
+    final List<DocumentReference> documents;
+    final WriteSize size;
+    final boolean priority;
+    final long issuedAt = System.currentTimeMillis();
+
+    PendingWrite(List<DocumentReference> documents, WriteSize size, boolean priority) {
+      this.documents = documents;
+      this.size = size;
+      this.priority = priority;
+    }
+  }
+
+  private static class DeferredWrite {
+    final List<DocumentReference> documents;
+    final WriteSize size;
+    final Callable<Task<Void>> writeSubmitter;
+    final TaskCompletionSource<Void> completionSource = new TaskCompletionSource<>();
+    final long deferredAt = System.currentTimeMillis();
+
+    DeferredWrite(
+        List<DocumentReference> documents, WriteSize size, Callable<Task<Void>> writeSubmitter) {
+      this.documents = documents;
+      this.size = size;
+      this.writeSubmitter = writeSubmitter;
+    }
+  }
+}
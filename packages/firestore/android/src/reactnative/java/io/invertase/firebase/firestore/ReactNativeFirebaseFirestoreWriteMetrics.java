@@ -0,0 +1,190 @@
+package io.invertase.firebase.firestore;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+import com.google.android.gms.tasks.Task;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how long document writes spend in each stage of the native write pipeline, for all apps
+ * since the process started (or the last reset):
+ *
+ * <ul>
+ *   <li>queue: from the bridge call reaching the module until parsing starts on the executor
+ *   <li>parse: converting the JS data into Firestore values
+ *   <li>defer: waiting in the write backlog behind other writes, 0 unless deferred
+ *   <li>commit: handing the write to the Firestore SDK, which applies it locally
+ *   <li>ack: from the SDK accepting the write until the server acknowledged it
+ *   <li>total: from the bridge call until the promise settles
+ * </ul>
+ *
+ * Timings are kept in microseconds and reported in milliseconds. The payload histogram records the
+ * number of top level fields written, the number of writes in a batch, or 0 for a delete.
+ */
+class ReactNativeFirebaseFirestoreWriteMetrics {
+  static final String OPERATION_SET = "set";
+  static final String OPERATION_UPDATE = "update";
+  static final String OPERATION_BATCH = "batch";
+  static final String OPERATION_DELETE = "delete";
+
+  private static final String[] OPERATIONS = {
+    OPERATION_SET, OPERATION_UPDATE, OPERATION_BATCH, OPERATION_DELETE
+  };
+  private static final String[] STAGES = {"queue", "parse", "defer", "commit", "ack", "total"};
+  private static final int STAGE_QUEUE = 0;
+  private static final int STAGE_PARSE = 1;
+  private static final int STAGE_DEFER = 2;
+  private static final int STAGE_COMMIT = 3;
+  private static final int STAGE_ACK = 4;
+  private static final int STAGE_TOTAL = 5;
+
+  private static final ReactNativeFirebaseFirestoreWriteMetrics sharedInstance =
+      new ReactNativeFirebaseFirestoreWriteMetrics();
+
+  // only read after construction, so a plain map is safe to share between threads
+  private final Map<String, OperationMetrics> operations = new LinkedHashMap<>();
+
+  private ReactNativeFirebaseFirestoreWriteMetrics() {
+    for (String operation : OPERATIONS) {
+      operations.put(operation, new OperationMetrics());
+    }
+  }
+
+  static ReactNativeFirebaseFirestoreWriteMetrics getSharedInstance() {
+    return sharedInstance;
+  }
+
+  /** Starts timing a write, call as soon as the bridge call reaches the module. */
+  WriteTimer start(String operation) {
+    return new WriteTimer(operations.get(operation));
+  }
+
+  WritableMap toWritableMap() {
+    WritableMap map = Arguments.createMap();
+
+    for (Map.Entry<String, OperationMetrics> entry : operations.entrySet()) {
+      OperationMetrics metrics = entry.getValue();
+      WritableMap operationMap = Arguments.createMap();
+      WritableMap stagesMap = Arguments.createMap();
+
+      for (int i = 0; i < STAGES.length; i++) {
+        stagesMap.putMap(STAGES[i], metrics.stages[i].toWritableMap(1000));
+      }
+
+      operationMap.putDouble("failed", metrics.failed.get());
+      operationMap.putMap("stages", stagesMap);
+      operationMap.putMap("payload", metrics.payload.toWritableMap(1));
+      map.putMap(entry.getKey(), operationMap);
+    }
+
+    return map;
+  }
+
+  void reset() {
+    for (OperationMetrics metrics : operations.values()) {
+      for (ReactNativeFirebaseFirestoreHistogram stage : metrics.stages) {
+        stage.reset();
+      }
+      metrics.payload.reset();
+      metrics.failed.set(0);
+    }
+  }
+
+  private static class OperationMetrics {
+    final ReactNativeFirebaseFirestoreHistogram[] stages =
+        new ReactNativeFirebaseFirestoreHistogram[STAGES.length];
+    final ReactNativeFirebaseFirestoreHistogram payload =
+        new ReactNativeFirebaseFirestoreHistogram();
+    final AtomicLong failed = new AtomicLong();
+
+    OperationMetrics() {
+      for (int i = 0; i < stages.length; i++) {
+        stages[i] = new ReactNativeFirebaseFirestoreHistogram();
+      }
+    }
+  }
+
+  /**
+   * Times the stages of a single write. Stages are marked in order from the tasks of the write, so
+   * no synchronization is needed.
+   */
+  static class WriteTimer {
+    private final OperationMetrics metrics;
+    private final long startedAt = System.nanoTime();
+    private long stageStartedAt = startedAt;
+
+    private WriteTimer(OperationMetrics metrics) {
+      this.metrics = metrics;
+    }
+
+    /** Marks the write as picked up by the executor. */
+    void queued() {
+      markStage(STAGE_QUEUE);
+    }
+
+    /** Marks the data as parsed, recording the number of fields or writes parsed. */
+    void parsed(int payloadSize) {
+      markStage(STAGE_PARSE);
+      metrics.payload.record(payloadSize);
+    }
+
+    /** Marks the write as taken from the write backlog, right before it is handed to the SDK. */
+    void submitting() {
+      markStage(STAGE_DEFER);
+    }
+
+    /** Marks the write as handed to the Firestore SDK. */
+    void committed() {
+      markStage(STAGE_COMMIT);
+    }
+
+    /**
+     * Wraps the submitter given to the write backlog, so the commit stage is marked when the write
+     * is actually handed to the SDK rather than when it is deferred.
+     */
+    Callable<Task<Void>> timeSubmitter(Callable<Task<Void>> writeSubmitter) {
+      return () -> {
+        submitting();
+        Task<Void> writeTask = writeSubmitter.call();
+        committed();
+        return writeTask;
+      };
+    }
+
+    /** Marks the write as settled, acknowledged by the server if successful. */
+    void finished(boolean successful) {
+      if (successful) {
+        markStage(STAGE_ACK);
+      } else {
+        metrics.failed.incrementAndGet();
+      }
+      metrics.stages[STAGE_TOTAL].record((System.nanoTime() - startedAt) / 1000);
+    }
+
+    private void markStage(int stage) {
+      long now = System.nanoTime();
+      metrics.stages[stage].record((now - stageStartedAt) / 1000);
+      stageStartedAt = now;
+    }
+  }
+}
@@ -37,7 +37,7 @@ describe('firestore.doc().get()', function () {
       return Promise.reject(new Error('Did not throw an Error.'));
     } catch (error) {
       error.message.should.containEql(
-        "'options' GetOptions.source must be one of 'default', 'server' or 'cache'",
+        "'options' GetOptions.source must be one of 'default', 'server', 'cache' or 'cacheThenServer'",
       );
       return Promise.resolve();
     }
@@ -71,4 +71,61 @@ describe('firestore.doc().get()', function () {
     snapshot.metadata.fromCache.should.equal(true);
     await ref.delete();
   });
+
+  it('gets data from cache then skips identical server data', async function () {
+    if (device.getPlatform() !== 'android') {
+      this.skip();
+    }
+
+    const ref = firebase.firestore().doc(`${COLLECTION}/get`);
+    const data = { foo: 'bar', bar: 123 };
+    await ref.set(data);
+
+    const serverSnapshot = await new Promise(async (resolve, reject) => {
+      const snapshot = await ref.get({
+        source: 'cacheThenServer',
+        onServerUpdate: resolve,
+        onServerError: reject,
+      });
+      snapshot.metadata.fromCache.should.equal(true);
+      // identical server data is not sent again
+      setTimeout(() => resolve(null), 5000);
+    });
+
+    should.not.exist(serverSnapshot);
+    await ref.delete();
+  });
+
+  it('shares a get with Blob handles next to GeoPoints and Timestamps', async function () {
+    if (device.getPlatform() !== 'android') {
+      this.skip();
+    }
+
+    const { Blob, GeoPoint, Timestamp } = firebase.firestore;
+    const ref = firebase.firestore().doc(`${COLLECTION}/get`);
+    // a latitude or seconds of 19 must not be read as a Blob handle
+    await ref.set({
+      blob: Blob.fromBase64String(Buffer.from('a'.repeat(1024)).toString('base64')),
+      geopoint: new GeoPoint(19.5, -99.1),
+      timestamp: new Timestamp(19, 0),
+      list: [new GeoPoint(19.5, 0), { nested: new Timestamp(19, 500) }],
+    });
+    await firebase.firestore().settings({ blobHandleMinBytes: 1 });
+
+    try {
+      const snapshots = await Promise.all([ref.get(), ref.get()]);
+
+      snapshots.forEach(snapshot => {
+        snapshot.get('geopoint').latitude.should.equal(19.5);
+        snapshot.get('timestamp').seconds.should.equal(19);
+        snapshot.get('list')[0].latitude.should.equal(19.5);
+        snapshot.get('list')[1].nested.seconds.should.equal(19);
+        snapshot.get('blob').byteLength.should.equal(1024);
+        snapshot.get('blob').release();
+      });
+    } finally {
+      await firebase.firestore().settings({ blobHandleMinBytes: -1 });
+      await ref.delete();
+    }
+  });
 });
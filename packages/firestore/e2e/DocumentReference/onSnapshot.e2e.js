@@ -308,4 +308,24 @@ describe('firestore().doc().onSnapshot()', function () {
     await Utils.spyToBeCalledTimesAsync(callback, 2);
     callback.should.be.callCount(2);
   });
+
+  it('drops intermediate snapshots but delivers the latest with throttleMs', async function () {
+    if (device.getPlatform() !== 'android') {
+      this.skip();
+    }
+
+    const callback = sinon.spy();
+    const doc = firebase.firestore().doc(`${COLLECTION}/throttled`);
+    await doc.set({ count: 0 });
+
+    const unsub = doc.onSnapshot({ includeMetadataChanges: false, throttleMs: 1000 }, callback);
+    await Utils.spyToBeCalledOnceAsync(callback);
+
+    await Promise.all([1, 2, 3, 4, 5].map(count => doc.set({ count })));
+    await Utils.sleep(2000);
+    unsub();
+
+    callback.callCount.should.be.lessThan(6);
+    callback.lastCall.args[0].data().count.should.equal(5);
+  });
 });
@@ -39,7 +39,7 @@ describe('firestore().collection().get()', function () {
       return Promise.reject(new Error('Did not throw an Error.'));
     } catch (error) {
       error.message.should.containEql(
-        "'options' GetOptions.source must be one of 'default', 'server' or 'cache'",
+        "'options' GetOptions.source must be one of 'default', 'server', 'cache' or 'cacheThenServer'",
       );
       return Promise.resolve();
     }
@@ -75,4 +75,30 @@ describe('firestore().collection().get()', function () {
     snapshot.constructor.name.should.eql('FirestoreQuerySnapshot');
     snapshot.metadata.fromCache.should.be.False();
   });
+
+  it('caches results until a listener sees changes', async function () {
+    if (device.getPlatform() !== 'android') {
+      this.skip();
+    }
+
+    const colRef = firebase.firestore().collection(`${COLLECTION}/resultcache/get`);
+    await colRef.doc('one').set({ value: 1 });
+
+    const first = await colRef.get({ source: 'server', resultCacheTtlMs: 60000 });
+    first.metadata.fromCache.should.be.False();
+    first.size.should.eql(1);
+
+    const second = await colRef.get({ source: 'server', resultCacheTtlMs: 60000 });
+    second.metadata.fromCache.should.be.True();
+    second.size.should.eql(1);
+
+    const unsubscribe = colRef.onSnapshot(() => {});
+    await colRef.doc('two').set({ value: 2 });
+    await Utils.sleep(1000);
+    unsubscribe();
+
+    const third = await colRef.get({ source: 'server', resultCacheTtlMs: 60000 });
+    third.metadata.fromCache.should.be.False();
+    third.size.should.eql(2);
+  });
 });
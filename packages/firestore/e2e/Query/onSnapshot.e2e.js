@@ -321,4 +321,25 @@ describe('firestore().collection().onSnapshot()', function () {
     await Utils.sleep(2000);
     callback.should.be.callCount(3);
   });
+
+  it('reports native listener stats', async function () {
+    if (device.getPlatform() !== 'android') {
+      this.skip();
+    }
+
+    const callback = sinon.spy();
+    const colRef = firebase.firestore().collection(`${COLLECTION}/listenerstats/stats`);
+    await colRef.doc('one').set({ value: 1 });
+
+    const unsubscribe = colRef.onSnapshot(callback);
+    await Utils.spyToBeCalledOnceAsync(callback);
+
+    const stats = await firebase.firestore().listenerStats();
+    const queryStats = stats.filter(listener => listener.type === 'query');
+    queryStats.length.should.be.greaterThan(0);
+    queryStats.some(listener => listener.events >= 1 && listener.items >= 1).should.be.True();
+    queryStats.some(listener => listener.leaked).should.be.False();
+
+    unsubscribe();
+  });
 });
@@ -198,6 +198,44 @@ describe('firestore()', function () {
     });
   });
 
+  describe('pendingWrites() & setLowPriorityCollections()', function () {
+    afterEach(async function () {
+      if (device.getPlatform() === 'android') {
+        await firebase.firestore().setLowPriorityCollections([]);
+        await firebase.firestore().enableNetwork();
+      }
+    });
+
+    it('defers low priority writes until other writes are acknowledged', async function () {
+      if (device.getPlatform() !== 'android') {
+        return;
+      }
+
+      const db = firebase.firestore();
+      await db.setLowPriorityCollections(['backlogLogs']);
+      await db.disableNetwork();
+
+      const priorityWrite = db.doc(`${COLLECTION}/backlogPriority`).set({ foo: 'bar' });
+      const deferredWrite = db.doc(`${COLLECTION}/backlog/backlogLogs/log`).set({ foo: 'baz' });
+      await Utils.sleep(500);
+
+      const pending = await db.pendingWrites();
+      should(pending.count).equal(2);
+      should(pending.deferredWrites).equal(1);
+      should(pending.collections[COLLECTION].count).equal(1);
+      should(pending.collections[COLLECTION].deferred).equal(0);
+      should(pending.collections[`${COLLECTION}/backlog/backlogLogs`].deferred).equal(1);
+
+      await db.enableNetwork();
+      await priorityWrite;
+      await deferredWrite;
+
+      const flushed = await db.pendingWrites();
+      should(flushed.count).equal(0);
+      should(flushed.deferredWrites).equal(0);
+    });
+  });
+
   describe('settings', function () {
     describe('serverTimestampBehavior', function () {
       it("handles 'estimate'", async function () {
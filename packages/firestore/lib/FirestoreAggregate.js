@@ -15,12 +15,57 @@
  *
  */
 
+import {
+  isAndroid,
+  isNumber,
+  isObject,
+  isString,
+  isUndefined,
+} from '@react-native-firebase/app/lib/common';
+import FirestoreFieldPath, { fromDotSeparatedString } from './FirestoreFieldPath';
+
+export class FirestoreAggregateField {
+  constructor(aggregateType, fieldPath) {
+    this.type = 'AggregateField';
+    this.aggregateType = aggregateType;
+    this._fieldPath = fieldPath;
+  }
+
+  static count() {
+    return new FirestoreAggregateField('count');
+  }
+
+  static sum(field) {
+    return new FirestoreAggregateField('sum', toFieldPath('sum', field));
+  }
+
+  static average(field) {
+    return new FirestoreAggregateField('average', toFieldPath('average', field));
+  }
+}
+
+function toFieldPath(method, field) {
+  if (field instanceof FirestoreFieldPath) {
+    return field;
+  }
+
+  if (!isString(field)) {
+    throw new Error(
+      `firebase.firestore.AggregateField.${method}(*) 'field' expected a string or FieldPath value.`,
+    );
+  }
+
+  return fromDotSeparatedString(field);
+}
+
 export class FirestoreAggregateQuery {
-  constructor(firestore, query, collectionPath, modifiers) {
+  constructor(firestore, query, collectionPath, modifiers, aggregateSpec, aggregateOptions) {
     this._firestore = firestore;
     this._query = query;
     this._collectionPath = collectionPath;
     this._modifiers = modifiers;
+    this._aggregateSpec = aggregateSpec;
+    this._aggregateOptions = aggregateOptions;
   }
 
   get query() {
@@ -28,6 +73,35 @@ export class FirestoreAggregateQuery {
   }
 
   get() {
+    if (!isUndefined(this._aggregateSpec)) {
+      if (!isAndroid) {
+        return Promise.reject(
+          new Error('firebase.firestore().collection().aggregate() is only supported on Android.'),
+        );
+      }
+
+      const aggregates = Object.keys(this._aggregateSpec).map(key => {
+        const aggregateField = this._aggregateSpec[key];
+        return {
+          key,
+          aggregateType: aggregateField.aggregateType,
+          fieldPath: aggregateField._fieldPath ? aggregateField._fieldPath._segments : undefined,
+        };
+      });
+
+      return this._firestore.native
+        .collectionAggregate(
+          this._collectionPath.relativeName,
+          this._modifiers.type,
+          this._modifiers.filters,
+          this._modifiers.orders,
+          this._modifiers.options,
+          aggregates,
+          this._aggregateOptions || {},
+        )
+        .then(data => new FirestoreAggregateQuerySnapshot(this._query, data, true));
+    }
+
     return this._firestore.native
       .collectionCount(
         this._collectionPath.relativeName,
@@ -41,12 +115,58 @@ export class FirestoreAggregateQuery {
 }
 
 export class FirestoreAggregateQuerySnapshot {
-  constructor(query, data) {
+  constructor(query, data, isAggregateSpec) {
     this._query = query;
     this._data = data;
+    this._isAggregateSpec = isAggregateSpec;
   }
 
   data() {
+    if (this._isAggregateSpec) {
+      return { ...this._data };
+    }
+
     return { count: this._data.count };
   }
 }
+
+export function validateAggregateSpec(aggregateSpec, aggregateOptions) {
+  if (!isObject(aggregateSpec)) {
+    throw new Error(
+      "firebase.firestore().collection().aggregate(*) 'aggregateSpec' must be an object.",
+    );
+  }
+
+  const keys = Object.keys(aggregateSpec);
+
+  if (keys.length === 0) {
+    throw new Error(
+      "firebase.firestore().collection().aggregate(*) 'aggregateSpec' must contain at least one aggregation.",
+    );
+  }
+
+  for (let i = 0; i < keys.length; i++) {
+    if (!(aggregateSpec[keys[i]] instanceof FirestoreAggregateField)) {
+      throw new Error(
+        `firebase.firestore().collection().aggregate(*) 'aggregateSpec.${keys[i]}' must be an AggregateField.`,
+      );
+    }
+  }
+
+  if (!isUndefined(aggregateOptions)) {
+    if (!isObject(aggregateOptions)) {
+      throw new Error(
+        "firebase.firestore().collection().aggregate(_, *) 'options' must be an object.",
+      );
+    }
+
+    if (
+      !isUndefined(aggregateOptions.cacheTtlMs) &&
+      (!isNumber(aggregateOptions.cacheTtlMs) || aggregateOptions.cacheTtlMs < 0)
+    ) {
+      throw new Error(
+        "firebase.firestore().collection().aggregate(_, *) 'options.cacheTtlMs' must be a positive number.",
+      );
+    }
+  }
+}
@@ -28,6 +28,98 @@ export default class FirestoreBlob {
     this._binaryString = binaryString;
   }
 
+  /**
+   * Creates a Blob whose bytes are held natively, see `settings.blobHandleMinBytes`.
+   *
+   * @private
+   */
+  static _fromHandle(firestore, handle, byteLength) {
+    const blob = new FirestoreBlob(true);
+    blob._firestore = firestore;
+    blob._handle = handle;
+    blob._byteLength = byteLength;
+    return blob;
+  }
+
+  _isUnloadedHandle() {
+    return this._handle !== undefined && this._binaryString === undefined;
+  }
+
+  _getBinaryString() {
+    if (this._isUnloadedHandle()) {
+      throw new Error(
+        'firestore.Blob bytes are held natively, call blob.load() before reading them.',
+      );
+    }
+
+    return this._binaryString;
+  }
+
+  /**
+   * The size of the Blob in bytes.
+   */
+  get byteLength() {
+    if (this._isUnloadedHandle()) {
+      return this._byteLength;
+    }
+
+    return this._binaryString.length;
+  }
+
+  /**
+   * Returns 'true' if the bytes of this Blob are available in JavaScript. Blobs received as native
+   * handles are not loaded until `load()` resolves.
+   */
+  get isLoaded() {
+    return !this._isUnloadedHandle();
+  }
+
+  /**
+   * Loads the bytes of a Blob received as a native handle. Resolves immediately for other Blobs.
+   *
+   * @returns Promise<Blob> This Blob, with its bytes loaded.
+   */
+  load() {
+    if (!this._isUnloadedHandle()) {
+      return Promise.resolve(this);
+    }
+
+    return this._firestore.native.blobHandleGet(this._handle).then(base64 => {
+      this._binaryString = Base64.atob(base64);
+      return this;
+    });
+  }
+
+  /**
+   * Writes the bytes of a Blob received as a native handle to a file, without loading them into
+   * JavaScript.
+   *
+   * @param path string Absolute file path or file:// uri.
+   */
+  writeToFile(path) {
+    if (!isString(path) || path.length < 1) {
+      throw new Error('firestore.Blob.writeToFile expects a non-empty string path');
+    }
+
+    if (this._handle === undefined) {
+      return Promise.reject(
+        new Error('firestore.Blob.writeToFile is only supported for Blobs held natively.'),
+      );
+    }
+
+    return this._firestore.native.blobHandleWriteToFile(this._handle, path);
+  }
+
+  /**
+   * Releases the native bytes of a Blob received as a handle. Loaded bytes remain available.
+   */
+  release() {
+    if (this._handle !== undefined && !this._released) {
+      this._released = true;
+      this._firestore.native.blobHandleRelease(this._handle);
+    }
+  }
+
   /**
    * Creates a new Blob from the given Base64 string
    *
@@ -72,7 +164,11 @@ export default class FirestoreBlob {
       throw new Error('firestore.Blob.isEqual expects an instance of Blob');
     }
 
-    return this._binaryString === blob._binaryString;
+    if (this._isUnloadedHandle() && blob._isUnloadedHandle()) {
+      return this._handle === blob._handle;
+    }
+
+    return this._getBinaryString() === blob._getBinaryString();
   }
 
   /**
@@ -82,7 +178,7 @@ export default class FirestoreBlob {
    * @returns string The Base64-encoded string created from the Blob object.
    */
   toBase64() {
-    return Base64.btoa(this._binaryString);
+    return Base64.btoa(this._getBinaryString());
   }
 
   /**
@@ -92,7 +188,7 @@ export default class FirestoreBlob {
    * @returns non-null Uint8Array The Uint8Array created from the Blob object.
    */
   toUint8Array() {
-    return new Uint8Array(this._binaryString.split('').map(c => c.charCodeAt(0)));
+    return new Uint8Array(this._getBinaryString().split('').map(c => c.charCodeAt(0)));
   }
 
   /**
@@ -102,6 +198,10 @@ export default class FirestoreBlob {
    * @memberof Blob
    */
   toString() {
+    if (this._isUnloadedHandle()) {
+      return `firestore.Blob(handle: ${this._handle}, byteLength: ${this._byteLength})`;
+    }
+
     return `firestore.Blob(base64: ${this.toBase64()})`;
   }
 }
@@ -15,7 +15,13 @@
  *
  */
 
-import { isObject, isString, isUndefined } from '@react-native-firebase/app/lib/common';
+import {
+  isAndroid,
+  isFunction,
+  isObject,
+  isString,
+  isUndefined,
+} from '@react-native-firebase/app/lib/common';
 import NativeError from '@react-native-firebase/app/lib/internal/NativeFirebaseError';
 import { parseSetOptions, parseSnapshotArgs, parseUpdateArgs } from './utils';
 import { buildNativeMap, provideDocumentReferenceClass } from './utils/serialize';
@@ -94,18 +100,77 @@ export default class FirestoreDocumentReference {
       options.source &&
       options.source !== 'default' &&
       options.source !== 'server' &&
-      options.source !== 'cache'
+      options.source !== 'cache' &&
+      options.source !== 'cacheThenServer'
     ) {
       throw new Error(
-        "firebase.firestore().doc().get(*) 'options' GetOptions.source must be one of 'default', 'server' or 'cache'.",
+        "firebase.firestore().doc().get(*) 'options' GetOptions.source must be one of 'default', 'server', 'cache' or 'cacheThenServer'.",
       );
     }
 
+    if (options && !isUndefined(options.onServerUpdate) && !isFunction(options.onServerUpdate)) {
+      throw new Error(
+        "firebase.firestore().doc().get(*) 'options' GetOptions.onServerUpdate must be a function.",
+      );
+    }
+
+    if (options && !isUndefined(options.onServerError) && !isFunction(options.onServerError)) {
+      throw new Error(
+        "firebase.firestore().doc().get(*) 'options' GetOptions.onServerError must be a function.",
+      );
+    }
+
+    if (options && options.source === 'cacheThenServer') {
+      if (!isAndroid) {
+        return Promise.reject(
+          new Error(
+            "firebase.firestore().doc().get(*) GetOptions.source 'cacheThenServer' is only supported on Android.",
+          ),
+        );
+      }
+
+      return this._getCacheThenServer(options);
+    }
+
     return this._firestore.native
       .documentGet(this.path, options)
       .then(data => new FirestoreDocumentSnapshot(this._firestore, data));
   }
 
+  /**
+   * Resolves with the cached document, then natively re-reads it from the server. A single event
+   * is always sent once the server read settles; it only carries a snapshot if the data changed.
+   */
+  _getCacheThenServer(options) {
+    const listenerId = _id++;
+    const { onServerUpdate, onServerError } = options;
+
+    const subscription = this._firestore.emitter.addListener(
+      this._firestore.eventNameForApp(`firestore_document_sync_event:${listenerId}`),
+      event => {
+        subscription.remove();
+
+        if (event.body.error) {
+          if (isFunction(onServerError)) {
+            onServerError(NativeError.fromEvent(event.body.error, 'firestore'));
+          }
+        } else if (event.body.snapshot && isFunction(onServerUpdate)) {
+          onServerUpdate(new FirestoreDocumentSnapshot(this._firestore, event.body.snapshot));
+        }
+      },
+    );
+
+    return this._firestore.native
+      .documentGet(this.path, { source: 'cacheThenServer', listenerId })
+      .then(
+        data => new FirestoreDocumentSnapshot(this._firestore, data),
+        error => {
+          subscription.remove();
+          throw error;
+        },
+      );
+  }
+
   isEqual(other) {
     if (!(other instanceof FirestoreDocumentReference)) {
       throw new Error(
@@ -16,8 +16,11 @@
  */
 
 import {
+  isAndroid,
   isArray,
+  isFunction,
   isNull,
+  isNumber,
   isObject,
   isString,
   isUndefined,
@@ -26,7 +29,7 @@ import NativeError from '@react-native-firebase/app/lib/internal/NativeFirebaseE
 import FirestoreDocumentSnapshot from './FirestoreDocumentSnapshot';
 import FirestoreFieldPath, { fromDotSeparatedString } from './FirestoreFieldPath';
 import FirestoreQuerySnapshot from './FirestoreQuerySnapshot';
-import { FirestoreAggregateQuery } from './FirestoreAggregate';
+import { FirestoreAggregateQuery, validateAggregateSpec } from './FirestoreAggregate';
 import { parseSnapshotArgs } from './utils';
 
 let _id = 0;
@@ -131,6 +134,19 @@ export default class FirestoreQuery {
     return modifiers.setFieldsCursor(cursor, allFields);
   }
 
+  aggregate(aggregateSpec, options) {
+    validateAggregateSpec(aggregateSpec, options);
+
+    return new FirestoreAggregateQuery(
+      this._firestore,
+      this,
+      this._collectionPath,
+      this._modifiers,
+      aggregateSpec,
+      options,
+    );
+  }
+
   count() {
     return new FirestoreAggregateQuery(
       this._firestore,
@@ -174,13 +190,62 @@ export default class FirestoreQuery {
       options.source &&
       options.source !== 'default' &&
       options.source !== 'server' &&
-      options.source !== 'cache'
+      options.source !== 'cache' &&
+      options.source !== 'cacheThenServer'
+    ) {
+      throw new Error(
+        "firebase.firestore().collection().get(*) 'options' GetOptions.source must be one of 'default', 'server', 'cache' or 'cacheThenServer'.",
+      );
+    }
+
+    if (options && !isUndefined(options.onServerUpdate) && !isFunction(options.onServerUpdate)) {
+      throw new Error(
+        "firebase.firestore().collection().get(*) 'options' GetOptions.onServerUpdate must be a function.",
+      );
+    }
+
+    if (options && !isUndefined(options.onServerError) && !isFunction(options.onServerError)) {
+      throw new Error(
+        "firebase.firestore().collection().get(*) 'options' GetOptions.onServerError must be a function.",
+      );
+    }
+
+    if (
+      options &&
+      !isUndefined(options.resultCacheTtlMs) &&
+      (!isNumber(options.resultCacheTtlMs) || options.resultCacheTtlMs <= 0)
+    ) {
+      throw new Error(
+        "firebase.firestore().collection().get(*) 'options' GetOptions.resultCacheTtlMs must be a positive number.",
+      );
+    }
+
+    if (
+      options &&
+      !isUndefined(options.resultCacheNamespace) &&
+      !isString(options.resultCacheNamespace)
     ) {
       throw new Error(
-        "firebase.firestore().collection().get(*) 'options' GetOptions.source must be one of 'default', 'server' or 'cache'.",
+        "firebase.firestore().collection().get(*) 'options' GetOptions.resultCacheNamespace must be a string.",
       );
     }
 
+    if (options && options.source === 'cacheThenServer') {
+      if (!isAndroid) {
+        return Promise.reject(
+          new Error(
+            "firebase.firestore().collection().get(*) GetOptions.source 'cacheThenServer' is only supported on Android.",
+          ),
+        );
+      }
+
+      return this._getCacheThenServer(options);
+    }
+
+    return this._get(options);
+  }
+
+  _get(getOptions) {
     if (!isUndefined(this._queryName)) {
       return this._firestore.native
         .namedQueryGet(
@@ -189,7 +254,7 @@ export default class FirestoreQuery {
           this._modifiers.filters,
           this._modifiers.orders,
           this._modifiers.options,
-          options,
+          getOptions,
         )
         .then(data => new FirestoreQuerySnapshot(this._firestore, this, data));
     }
@@ -203,11 +268,40 @@ export default class FirestoreQuery {
         this._modifiers.filters,
         this._modifiers.orders,
         this._modifiers.options,
-        options,
+        getOptions,
       )
       .then(data => new FirestoreQuerySnapshot(this._firestore, this, data));
   }
 
+  /**
+   * Resolves with the cached results, then natively re-reads from the server. A single event
+   * is always sent once the server read settles; it only carries a snapshot if the data changed.
+   */
+  _getCacheThenServer(options) {
+    const listenerId = _id++;
+    const { onServerUpdate, onServerError } = options;
+
+    const subscription = this._firestore.emitter.addListener(
+      this._firestore.eventNameForApp(`firestore_collection_sync_event:${listenerId}`),
+      event => {
+        subscription.remove();
+
+        if (event.body.error) {
+          if (isFunction(onServerError)) {
+            onServerError(NativeError.fromEvent(event.body.error, 'firestore'));
+          }
+        } else if (event.body.snapshot && isFunction(onServerUpdate)) {
+          onServerUpdate(new FirestoreQuerySnapshot(this._firestore, this, event.body.snapshot));
+        }
+      },
+    );
+
+    return this._get({ source: 'cacheThenServer', listenerId }).catch(error => {
+      subscription.remove();
+      throw error;
+    });
+  }
+
   isEqual(other) {
     if (!(other instanceof FirestoreQuery)) {
       throw new Error(
@@ -16,6 +16,7 @@
  */
 
 import { NativeModules } from 'react-native';
+import { FirestoreAggregateField } from './FirestoreAggregate';
 import FirestoreBlob from './FirestoreBlob';
 import FirestoreFieldPath from './FirestoreFieldPath';
 import FirestoreFieldValue from './FirestoreFieldValue';
@@ -23,6 +24,7 @@ import FirestoreGeoPoint from './FirestoreGeoPoint';
 import FirestoreTimestamp from './FirestoreTimestamp';
 
 export default {
+  AggregateField: FirestoreAggregateField,
   Blob: FirestoreBlob,
   FieldPath: FirestoreFieldPath,
   FieldValue: FirestoreFieldValue,
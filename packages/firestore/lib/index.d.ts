@@ -84,6 +84,36 @@ export namespace FirebaseFirestoreTypes {
      * Returns the bytes of a Blob in a new Uint8Array.
      */
     toUint8Array(): Uint8Array;
+
+    /**
+     * The size of the Blob in bytes, available before the bytes of a native handle are loaded.
+     */
+    readonly byteLength: number;
+
+    /**
+     * False for Blobs received as native handles (see `Settings.blobHandleMinBytes`) until `load()`
+     * resolves. Reading the bytes of an unloaded Blob throws.
+     */
+    readonly isLoaded: boolean;
+
+    /**
+     * Loads the bytes of a Blob received as a native handle. Resolves immediately for other Blobs.
+     */
+    load(): Promise<Blob>;
+
+    /**
+     * Writes the bytes of a Blob received as a native handle to a file, without loading them into
+     * JavaScript.
+     *
+     * @android Android only - iOS rejects
+     * @param path Absolute file path or file:// uri.
+     */
+    writeToFile(path: string): Promise<void>;
+
+    /**
+     * Releases the native bytes of a Blob received as a handle. Loaded bytes remain available.
+     */
+    release(): void;
   }
 
   /**
@@ -836,8 +866,39 @@ export namespace FirebaseFirestoreTypes {
      * (implying that the returned value may be stale with respect to the value on the server.) If there is no data in the
      * cache to satisfy the `get()` call, `DocumentReference.get()` will return an error and `QuerySnapshot.get()` will return an
      * empty `QuerySnapshot` with no documents.
+     *
+     * Setting to `cacheThenServer` resolves immediately from the cache (falling back to the server if there is no cached
+     * document), then re-reads from the server. If the server data differs from the cached data, `onServerUpdate` is
+     * called with the fresh snapshot; identical server data is not sent again.
+     *
+     * @android `cacheThenServer` is Android only - iOS rejects
+     */
+    source: 'default' | 'server' | 'cache' | 'cacheThenServer';
+    /**
+     * With `source: 'cacheThenServer'`, called with the server snapshot when it differs from the cached one.
+     */
+    onServerUpdate?: (snapshot: DocumentSnapshot | QuerySnapshot) => void;
+    /**
+     * With `source: 'cacheThenServer'`, called if the server read fails after the cached result was returned.
+     */
+    onServerError?: (error: Error) => void;
+    /**
+     * For `Query.get()`, keeps the serialized result on device for this many milliseconds. Repeating the same
+     * query with the same `source` and `resultCacheNamespace` within that time resolves from the stored result
+     * (with `metadata.fromCache` set to `true`) without re-running the query. Stored results are dropped as soon
+     * as an active `onSnapshot` listener on the same query sees changes, when a write to the query's collection
+     * is made through this module, and by `clearPersistence()`. Ignored with `source: 'server'`.
+     *
+     * @android Android only - ignored on iOS
+     */
+    resultCacheTtlMs?: number;
+    /**
+     * With `resultCacheTtlMs`, results are only stored for and returned to gets passing the same namespace. Pass
+     * the signed in user's uid so one user's results are never returned to another.
+     *
+     * @android Android only - ignored on iOS
      */
-    source: 'default' | 'server' | 'cache';
+    resultCacheNamespace?: string;
   }
 
   /**
@@ -847,12 +908,214 @@ export namespace FirebaseFirestoreTypes {
   export class AggregateField<T> {
     /** A type string to uniquely identify instances of this class. */
     type = 'AggregateField';
+
+    /**
+     * Creates an `AggregateField` that counts the documents in the result set of a query.
+     *
+     * @android Android only - iOS rejects
+     */
+    static count(): AggregateField<number>;
+
+    /**
+     * Creates an `AggregateField` that sums the values of the given field across the result set
+     * of a query.
+     *
+     * @android Android only - iOS rejects
+     * @param field The field to sum, as a dot-separated string or `FieldPath`.
+     */
+    static sum(field: string | FieldPath): AggregateField<number>;
+
+    /**
+     * Creates an `AggregateField` that averages the values of the given field across the result
+     * set of a query. The result is `null` if no documents contain a numeric value for the field.
+     *
+     * @android Android only - iOS rejects
+     * @param field The field to average, as a dot-separated string or `FieldPath`.
+     */
+    static average(field: string | FieldPath): AggregateField<number | null>;
   }
 
   /**
    * The union of all `AggregateField` types that are supported by Firestore.
    */
-  export type AggregateFieldType = AggregateField<number>;
+  export type AggregateFieldType = AggregateField<number> | AggregateField<number | null>;
+
+  /**
+   * A histogram summary in `firebase.firestore().writeMetrics()`. Percentiles are approximate: they
+   * are the upper bound of a power of two bucket, capped at `max`.
+   */
+  export interface WriteMetricsHistogram {
+    count: number;
+    sum: number;
+    max: number;
+    p50: number;
+    p90: number;
+    p99: number;
+  }
+
+  /**
+   * Metrics for one kind of write in `firebase.firestore().writeMetrics()`.
+   */
+  export interface WriteOperationMetrics {
+    /**
+     * The number of writes which failed.
+     */
+    failed: number;
+
+    /**
+     * Time spent in each stage of the native write pipeline, in milliseconds:
+     *
+     * - `queue`: from the bridge call reaching native until parsing starts
+     * - `parse`: converting the JavaScript data into Firestore values
+     * - `defer`: waiting behind other writes, see `setLowPriorityCollections()` (0 unless deferred)
+     * - `commit`: handing the write to the Firestore SDK, which applies it locally
+     * - `ack`: waiting for the server to acknowledge the write (successful writes only)
+     * - `total`: from the bridge call until the promise settles
+     */
+    stages: {
+      queue: WriteMetricsHistogram;
+      parse: WriteMetricsHistogram;
+      defer: WriteMetricsHistogram;
+      commit: WriteMetricsHistogram;
+      ack: WriteMetricsHistogram;
+      total: WriteMetricsHistogram;
+    };
+
+    /**
+     * The number of top level fields written by `set()`/`update()`, of writes in a batch, or 0 for
+     * `delete()`.
+     */
+    payload: WriteMetricsHistogram;
+  }
+
+  /**
+   * Returned from `firebase.firestore().writeMetrics()`.
+   */
+  export interface WriteMetrics {
+    set: WriteOperationMetrics;
+    update: WriteOperationMetrics;
+    batch: WriteOperationMetrics;
+    delete: WriteOperationMetrics;
+  }
+
+  /**
+   * Unacknowledged writes to one collection, in `firebase.firestore().pendingWrites()`.
+   */
+  export interface PendingWritesCollection {
+    /**
+     * The number of documents written.
+     */
+    count: number;
+
+    /**
+     * The approximate size of the data written, in bytes. A batch counts in full for every
+     * collection it writes to.
+     */
+    bytes: number;
+
+    /**
+     * How long ago the oldest write was issued, in milliseconds.
+     */
+    oldestAgeMs: number;
+
+    /**
+     * The number of documents whose writes are deferred as low priority and not yet handed to
+     * the Firestore SDK.
+     */
+    deferred: number;
+  }
+
+  /**
+   * Returned from `firebase.firestore().pendingWrites()`.
+   */
+  export interface PendingWrites {
+    /**
+     * The number of documents written, across all collections.
+     */
+    count: number;
+
+    /**
+     * The approximate size of the data written, in bytes.
+     */
+    bytes: number;
+
+    /**
+     * How long ago the oldest write was issued, in milliseconds, or 0 if none are pending.
+     */
+    oldestAgeMs: number;
+
+    /**
+     * The number of writes (or batches) deferred as low priority.
+     */
+    deferredWrites: number;
+
+    /**
+     * The pending writes by collection path.
+     */
+    collections: { [collectionPath: string]: PendingWritesCollection };
+  }
+
+  /**
+   * Describes a native snapshot listener, returned from `firebase.firestore().listenerStats()`.
+  export interface ListenerStats {
+    /**
+     * Whether the listener is on a `'query'` or a `'document'`.
+     */
+    type: 'query' | 'document';
+
+    /**
+     * The internal id of the listener.
+     */
+    id: string;
+
+    /**
+     * How long ago the listener was registered, in milliseconds.
+     */
+    ageMs: number;
+
+    /**
+     * The number of snapshots sent to JavaScript by the listener.
+     */
+    events: number;
+
+    /**
+     * The number of documents carried by those snapshots.
+     */
+    items: number;
+
+    /**
+     * `true` if the listener is still registered although the JavaScript context that registered
+     * it has been destroyed (e.g. by a reload), i.e. it has leaked.
+     */
+    leaked: boolean;
+  }
+
+  /**
+   * Counters returned from `firebase.firestore().readDeduplicationStats()`.
+   */
+  export interface ReadDeduplicationStats {
+    /**
+     * The number of document and query `get()` calls eligible for de-duplication.
+     */
+    requests: number;
+
+    /**
+     * The number of those calls which shared an identical in-flight read.
+     */
+    shared: number;
+  }
+
+  /**
+   * Options for an aggregation query created with `Query.aggregate()`.
+   */
+  export interface AggregateOptions {
+    /**
+     * When set, identical aggregations resolved from the server within the last `cacheTtlMs`
+     * milliseconds are returned without another round trip. Concurrent identical aggregations
+     * always share a single server request.
+     */
+    cacheTtlMs?: number;
+  }
 
   /**
    * A type whose property values are all `AggregateField` objects.
@@ -946,6 +1209,33 @@ export namespace FirebaseFirestoreTypes {
      */
     countFromServer(): AggregateQuery<{ count: AggregateField<number> }>;
 
+    /**
+     * Calculates several aggregations over the result set of the given query in a single
+     * request, without downloading the documents.
+     *
+     * #### Example
+     *
+     * ```js
+     * const { AggregateField } = firebase.firestore;
+     * const snapshot = await firebase.firestore()
+     *   .collection('orders')
+     *   .aggregate({
+     *     total: AggregateField.count(),
+     *     revenue: AggregateField.sum('price'),
+     *     averagePrice: AggregateField.average('price'),
+     *   })
+     *   .get();
+     * ```
+     *
+     * @android Android only - iOS rejects
+     * @param aggregateSpec An object whose values are the `AggregateField`s to calculate.
+     * @param options Optional aggregation options.
+     */
+    aggregate<S extends AggregateSpec>(
+      aggregateSpec: S,
+      options?: AggregateOptions,
+    ): AggregateQuery<S>;
+
     /**
      * Creates and returns a new Query that ends at the provided document (inclusive). The end
      * position is relative to the order of the query. The document must contain all of the
@@ -1549,6 +1839,17 @@ export namespace FirebaseFirestoreTypes {
      *
      */
     serverTimestampBehavior?: 'estimate' | 'previous' | 'none';
+
+    /**
+     * Blobs read from Firestore of at least this many bytes are kept natively and received as
+     * handles instead of Base64 strings, so their bytes only cross the bridge if the app asks for
+     * them with `blob.load()`, or not at all with `blob.writeToFile()`. Call `blob.release()` when a
+     * handle is no longer needed; the native pool holds at most 32MB, and Blobs which don't fit
+     * beside unreleased handles are sent as Base64. Defaults to -1, which always sends Base64.
+     *
+     * @android Android only - ignored on iOS
+     */
+    blobHandleMinBytes?: number;
   }
 
   /**
@@ -1560,6 +1861,23 @@ export namespace FirebaseFirestoreTypes {
      * Include a change even if only the metadata of the query or of a document changed. Default is false.
      */
     includeMetadataChanges: boolean;
+    /**
+     * Deliver at most one snapshot every `throttleMs` milliseconds. Intermediate snapshots are dropped
+     * natively before they are serialized; the latest snapshot is always delivered.
+     *
+     * As dropped snapshots are never sent, `docChanges()` of a query snapshot only describes the changes
+     * since the snapshot Firestore produced before it, not since the previously delivered snapshot.
+     *
+     * @android Android only - ignored on iOS
+     */
+    throttleMs?: number;
+    /**
+     * Deliver a snapshot once no newer snapshot has arrived for `debounceMs` milliseconds. Combined with
+     * `throttleMs`, a snapshot never waits longer than `throttleMs`. See `throttleMs` for `docChanges()`.
+     *
+     * @android Android only - ignored on iOS
+     */
+    debounceMs?: number;
   }
 
   /**
@@ -1981,6 +2299,11 @@ export namespace FirebaseFirestoreTypes {
    * `firebase.firestore.X`
    */
   export interface Statics {
+    /**
+     * Returns the `AggregateField` class.
+     */
+    AggregateField: typeof AggregateField;
+
     /**
      * Returns the `Blob` class.
      */
@@ -2184,6 +2507,44 @@ export namespace FirebaseFirestoreTypes {
      * ```
      */
     loadBundle(bundle: string): Promise<LoadBundleTaskProgress>;
+    /**
+     * Loads a Firestore bundle from a local file into the local cache. The bundle is streamed from
+     * disk natively, so it never has to be read into JavaScript memory.
+     *
+     * #### Example
+     *
+     * ```js
+     * await firestore().loadBundleFromFile(`${dirs.DocumentDir}/bundle.txt`, progress => {
+     *   console.log(progress.documentsLoaded, progress.totalDocuments);
+     * });
+     * ```
+     *
+     * @android Android only - iOS rejects
+     * @param path Absolute path, or `file://` uri, of the bundle file.
+     * @param onProgress Optional callback invoked with throttled progress updates.
+     */
+    loadBundleFromFile(
+      path: string,
+      onProgress?: (progress: LoadBundleTaskProgress) => void,
+    ): Promise<LoadBundleTaskProgress>;
+    /**
+     * Loads a Firestore bundle from a remote url into the local cache. The bundle is downloaded
+     * and streamed into Firestore natively, so it never crosses the React Native bridge.
+     *
+     * #### Example
+     *
+     * ```js
+     * await firestore().loadBundleFromUrl('https://example.com/createBundle');
+     * ```
+     *
+     * @android Android only - iOS rejects
+     * @param url The url of the bundle.
+     * @param onProgress Optional callback invoked with throttled progress updates.
+     */
+    loadBundleFromUrl(
+      url: string,
+      onProgress?: (progress: LoadBundleTaskProgress) => void,
+    ): Promise<LoadBundleTaskProgress>;
     /**
      * Reads a Firestore Query from local cache, identified by the given name.
      *
@@ -2235,6 +2596,99 @@ export namespace FirebaseFirestoreTypes {
      * ```
      */
     terminate(): Promise<void>;
+    /**
+     * Returns counters for the native de-duplication of concurrent identical `get()` calls on
+     * documents and queries. Identical reads that are in flight at the same time share a single
+     * read and serialization; `shared` counts the reads which joined an in-flight read. A read
+     * never joins one started before a write made through this library, so it always sees the
+     * app's own writes. The counters cover this Firestore instance's app since the process started.
+     *
+     * #### Example
+     *
+     *```js
+     * const { requests, shared } = await firebase.firestore().readDeduplicationStats();
+     * console.log(`De-duplicated ${shared} of ${requests} reads`);
+     * ```
+     *
+     * @android Android only - iOS rejects
+     */
+    readDeduplicationStats(): Promise<ReadDeduplicationStats>;
+
+    /**
+     * Returns every `onSnapshot` listener currently registered natively, for all apps, with its
+     * age, the number of snapshots it has sent and whether it has outlived the JavaScript context
+     * that registered it. Use it to find listeners which were never unsubscribed.
+     *
+     * #### Example
+     *
+     *```js
+     * const stats = await firebase.firestore().listenerStats();
+     * const leaked = stats.filter(listener => listener.leaked);
+     * ```
+     *
+     * @android Android only - iOS rejects
+     */
+    listenerStats(): Promise<ListenerStats[]>;
+
+    /**
+     * Returns timings of the native write pipeline for `DocumentReference.set()`/`update()` and
+     * `WriteBatch.commit()`, for all apps since the process started or the metrics were last reset.
+     * `queue` and `parse` are the cost of crossing the bridge, `ack` is the cost of the network.
+     *
+     * #### Example
+     *
+     *```js
+     * const { set } = await firebase.firestore().writeMetrics({ reset: true });
+     * console.log(`set() p90: ${set.stages.parse.p90}ms parsing, ${set.stages.ack.p90}ms network`);
+     * ```
+     *
+     * @param options Pass `reset: true` to clear the metrics once they have been read.
+     * @android Android only - iOS rejects
+     */
+    writeMetrics(options?: { reset?: boolean }): Promise<WriteMetrics>;
+
+    /**
+     * Returns the writes issued through this Firestore instance since the app started which the
+     * server has not acknowledged yet (e.g. while offline), with their count, approximate size and
+     * age by collection. `waitForPendingWrites()` only tells when they have all been acknowledged.
+     *
+     * Writes left in the local cache by a previous run of the app, and transaction writes, are not
+     * included.
+     *
+     * #### Example
+     *
+     *```js
+     * const { count, oldestAgeMs, collections } = await firebase.firestore().pendingWrites();
+     * ```
+     *
+     * @android Android only - iOS rejects
+     */
+    pendingWrites(): Promise<PendingWrites>;
+
+    /**
+     * Defers writes to low priority collections (e.g. analytics-like logs) while other writes are
+     * awaiting server acknowledgement, so those are flushed first after a long offline period.
+     *
+     * A `set()`, `update()`, `delete()` or batch writing only to documents in collections with one of
+     * the given ids is held in a native queue while any other write is pending, and handed to the
+     * Firestore SDK in order once they have all been acknowledged, or once it has waited
+     * `maxDeferMs`. Deferred writes are not applied to the local cache until then, and are lost if
+     * the app is killed before. Pass an empty array to stop deferring writes.
+     *
+     * #### Example
+     *
+     *```js
+     * await firebase.firestore().setLowPriorityCollections(['logs'], { maxDeferMs: 120000 });
+     * ```
+     *
+     * @param collectionIds The ids (last path segment) of the low priority collections.
+     * @param options `maxDeferMs`: the longest a write is deferred for, 60 seconds by default.
+     * @android Android only - iOS rejects
+     */
+    setLowPriorityCollections(
+      collectionIds: string[],
+      options?: { maxDeferMs?: number },
+    ): Promise<void>;
 
     /**
      * Modify this Firestore instance to communicate with the Firebase Firestore emulator.
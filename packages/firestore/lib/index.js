@@ -16,6 +16,7 @@
  */
 
 import {
+  isArray,
   isBoolean,
   isFunction,
   isNumber,
@@ -41,6 +42,8 @@ import version from './version';
 
 const namespace = 'firestore';
 
+let _id = 0;
+
 const nativeModuleName = [
   'RNFBFirestoreModule',
   'RNFBFirestoreCollectionModule',
@@ -52,6 +55,7 @@ const nativeEvents = [
   'firestore_collection_sync_event',
   'firestore_document_sync_event',
   'firestore_transaction_event',
+  'firestore_bundle_progress_event',
 ];
 
 class FirebaseFirestoreModule extends FirebaseModule {
@@ -75,6 +79,13 @@ class FirebaseFirestoreModule extends FirebaseModule {
       );
     });
 
+    this.emitter.addListener(this.eventNameForApp('firestore_bundle_progress_event'), event => {
+      this.emitter.emit(
+        this.eventNameForApp(`firestore_bundle_progress_event:${event.listenerId}`),
+        event,
+      );
+    });
+
     this._settings = {
       ignoreUndefinedProperties: false,
     };
@@ -96,6 +107,81 @@ class FirebaseFirestoreModule extends FirebaseModule {
     return this.native.loadBundle(bundle);
   }
 
+  loadBundleFromFile(path, onProgress) {
+    if (!isString(path)) {
+      throw new Error("firebase.firestore().loadBundleFromFile(*) 'path' must be a string value.");
+    }
+
+    if (path === '') {
+      throw new Error(
+        "firebase.firestore().loadBundleFromFile(*) 'path' must be a non-empty string.",
+      );
+    }
+
+    if (!isUndefined(onProgress) && !isFunction(onProgress)) {
+      throw new Error(
+        "firebase.firestore().loadBundleFromFile(_, *) 'onProgress' must be a function.",
+      );
+    }
+
+    if (!isAndroid) {
+      return Promise.reject(
+        new Error('firebase.firestore().loadBundleFromFile() is only supported on Android.'),
+      );
+    }
+
+    return this._loadBundleWithProgress('loadBundleFromFile', path, onProgress);
+  }
+
+  loadBundleFromUrl(url, onProgress) {
+    if (!isString(url)) {
+      throw new Error("firebase.firestore().loadBundleFromUrl(*) 'url' must be a string value.");
+    }
+
+    if (url === '') {
+      throw new Error(
+        "firebase.firestore().loadBundleFromUrl(*) 'url' must be a non-empty string.",
+      );
+    }
+
+    if (!isUndefined(onProgress) && !isFunction(onProgress)) {
+      throw new Error(
+        "firebase.firestore().loadBundleFromUrl(_, *) 'onProgress' must be a function.",
+      );
+    }
+
+    if (!isAndroid) {
+      return Promise.reject(
+        new Error('firebase.firestore().loadBundleFromUrl() is only supported on Android.'),
+      );
+    }
+
+    return this._loadBundleWithProgress('loadBundleFromUrl', url, onProgress);
+  }
+
+  _loadBundleWithProgress(method, source, onProgress) {
+    if (!onProgress) {
+      return this.native[method](source, -1);
+    }
+
+    const listenerId = _id++;
+    const subscription = this.emitter.addListener(
+      this.eventNameForApp(`firestore_bundle_progress_event:${listenerId}`),
+      event => onProgress(event.body),
+    );
+
+    return this.native[method](source, listenerId).then(
+      progress => {
+        subscription.remove();
+        return progress;
+      },
+      error => {
+        subscription.remove();
+        throw error;
+      },
+    );
+  }
+
   namedQuery(queryName) {
     if (!isString(queryName)) {
       throw new Error("firebase.firestore().namedQuery(*) 'queryName' must be a string value.");
@@ -120,6 +206,92 @@ class FirebaseFirestoreModule extends FirebaseModule {
     await this.native.terminate();
   }
 
+  readDeduplicationStats() {
+    if (!isAndroid) {
+      return Promise.reject(
+        new Error('firebase.firestore().readDeduplicationStats() is only supported on Android.'),
+      );
+    }
+
+    return this.native.readDeduplicationStats();
+  }
+
+  writeMetrics(options) {
+    if (!isUndefined(options) && !isObject(options)) {
+      throw new Error("firebase.firestore().writeMetrics(*) 'options' must be an object.");
+    }
+
+    if (options && !isUndefined(options.reset) && !isBoolean(options.reset)) {
+      throw new Error("firebase.firestore().writeMetrics(*) 'options.reset' must be a boolean.");
+    }
+
+    if (!isAndroid) {
+      return Promise.reject(
+        new Error('firebase.firestore().writeMetrics() is only supported on Android.'),
+      );
+    }
+
+    return this.native.writeMetrics(!!(options && options.reset));
+  }
+
+  pendingWrites() {
+    if (!isAndroid) {
+      return Promise.reject(
+        new Error('firebase.firestore().pendingWrites() is only supported on Android.'),
+      );
+    }
+
+    return this.native.pendingWrites();
+  }
+
+  setLowPriorityCollections(collectionIds, options) {
+    if (!isArray(collectionIds)) {
+      throw new Error(
+        "firebase.firestore().setLowPriorityCollections(*) 'collectionIds' must be an array.",
+      );
+    }
+
+    for (let i = 0; i < collectionIds.length; i++) {
+      const collectionId = collectionIds[i];
+      if (!isString(collectionId) || collectionId === '' || collectionId.includes('/')) {
+        throw new Error(
+          "firebase.firestore().setLowPriorityCollections(*) 'collectionIds' must only contain collection ids, non-empty strings without '/'.",
+        );
+      }
+    }
+
+    if (!isUndefined(options) && !isObject(options)) {
+      throw new Error(
+        "firebase.firestore().setLowPriorityCollections(_, *) 'options' must be an object.",
+      );
+    }
+
+    const maxDeferMs = options ? options.maxDeferMs : undefined;
+    if (!isUndefined(maxDeferMs) && (!isNumber(maxDeferMs) || maxDeferMs <= 0)) {
+      throw new Error(
+        "firebase.firestore().setLowPriorityCollections(_, *) 'options.maxDeferMs' must be a positive number.",
+      );
+    }
+
+    if (!isAndroid) {
+      return Promise.reject(
+        new Error('firebase.firestore().setLowPriorityCollections() is only supported on Android.'),
+      );
+    }
+
+    return this.native.setLowPriorityCollections(collectionIds, maxDeferMs || 0);
+  }
+
+  listenerStats() {
+    if (!isAndroid) {
+      return Promise.reject(
+        new Error('firebase.firestore().listenerStats() is only supported on Android.'),
+      );
+    }
+
+    return this.native.listenerStats();
+  }
+
   useEmulator(host, port) {
     if (!host || !isString(host) || !port || !isNumber(port)) {
       throw new Error('firebase.firestore().useEmulator() takes a non-empty host and port');
@@ -244,6 +416,7 @@ class FirebaseFirestoreModule extends FirebaseModule {
       'ssl',
       'ignoreUndefinedProperties',
       'serverTimestampBehavior',
+      'blobHandleMinBytes',
     ];
 
     for (let i = 0; i < keys.length; i++) {
@@ -338,6 +511,20 @@ class FirebaseFirestoreModule extends FirebaseModule {
       );
     }
 
+    if (!isUndefined(settings.blobHandleMinBytes)) {
+      if (!isNumber(settings.blobHandleMinBytes) || settings.blobHandleMinBytes < -1) {
+        return Promise.reject(
+          new Error(
+            "firebase.firestore().settings(*) 'settings.blobHandleMinBytes' must be a number of bytes, or -1 to disable.",
+          ),
+        );
+      }
+
+      if (!isAndroid) {
+        delete settings.blobHandleMinBytes;
+      }
+    }
+
     if (!isUndefined(settings.ignoreUndefinedProperties)) {
       if (!isBoolean(settings.ignoreUndefinedProperties)) {
         return Promise.reject(
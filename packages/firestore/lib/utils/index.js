@@ -20,6 +20,7 @@ import {
   isArray,
   isBoolean,
   isFunction,
+  isNumber,
   isObject,
   isString,
   isUndefined,
@@ -197,6 +198,11 @@ export function parseSnapshotArgs(args) {
   if (isObject(args[0]) && !isPartialObserver(args[0])) {
     snapshotListenOptions.includeMetadataChanges =
       args[0].includeMetadataChanges == null ? false : args[0].includeMetadataChanges;
+    for (const key of ['throttleMs', 'debounceMs']) {
+      if (!isUndefined(args[0][key])) {
+        snapshotListenOptions[key] = args[0][key];
+      }
+    }
     if (isFunction(args[1])) {
       /**
        * .onSnapshot(SnapshotListenOptions, Function);
@@ -233,6 +239,17 @@ export function parseSnapshotArgs(args) {
     }
   }
 
+  for (const key of ['throttleMs', 'debounceMs']) {
+    if (
+      hasOwnProperty(snapshotListenOptions, key) &&
+      (!isNumber(snapshotListenOptions[key]) || snapshotListenOptions[key] < 0)
+    ) {
+      throw new Error(
+        `'options' SnapshotOptions.${key} must be a number greater than or equal to 0.`,
+      );
+    }
+  }
+
   if (!isFunction(onNext)) {
     throw new Error("'observer.next' or 'onNext' expected a function.");
   }
@@ -180,6 +180,12 @@ export function generateNativeData(value, ignoreUndefined) {
     }
 
     if (value instanceof FirestoreBlob) {
+      if (value._isUnloadedHandle()) {
+        if (value._released) {
+          throw new Error('firestore.Blob has been released, call blob.load() before release().');
+        }
+        return getTypeMapInt('blobHandle', value._handle);
+      }
       return getTypeMapInt('blob', value.toBase64());
     }
 
@@ -277,6 +283,8 @@ export function parseNativeData(firestore, nativeArray) {
       return new FirestoreTimestamp(value[0], value[1]);
     case 'blob':
       return FirestoreBlob.fromBase64String(value);
+    case 'blobHandle':
+      return FirestoreBlob._fromHandle(firestore, value[0], value[1]);
     default:
       // eslint-disable-next-line no-console
       console.warn(`Unknown data type received from native channel: ${type}`);